@@ -0,0 +1,55 @@
+package com.maciej.wojtaczka.announcementboard.cache.entry;
+
+import com.maciej.wojtaczka.announcementboard.domain.model.Announcement;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AnnouncementEntryBenchmark {
+
+	private Announcement announcement;
+	private AnnouncementEntry entry;
+
+	@Setup
+	public void setup() {
+		announcement = Announcement.builder()
+								   .authorId(UUID.randomUUID())
+								   .creationTime(Instant.parse("2021-01-01T10:15:30.123Z"))
+								   .content("Hello world")
+								   .commentsCount(42)
+								   .build();
+		entry = AnnouncementEntry.from(announcement);
+	}
+
+	@Benchmark
+	public AnnouncementEntry from() {
+		return AnnouncementEntry.from(announcement);
+	}
+
+	@Benchmark
+	public Announcement toModel() {
+		return entry.toModel();
+	}
+
+	@Benchmark
+	public String createId() {
+		return AnnouncementEntry.createId(announcement.getAuthorId(), announcement.getCreationTime());
+	}
+}
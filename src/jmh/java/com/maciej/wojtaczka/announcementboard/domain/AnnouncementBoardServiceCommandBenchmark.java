@@ -0,0 +1,99 @@
+package com.maciej.wojtaczka.announcementboard.domain;
+
+import com.maciej.wojtaczka.announcementboard.domain.hotkeys.HotKeys;
+import com.maciej.wojtaczka.announcementboard.domain.model.Announcement;
+import com.maciej.wojtaczka.announcementboard.domain.model.User;
+import com.maciej.wojtaczka.announcementboard.util.DatasetLoader;
+import com.maciej.wojtaczka.announcementboard.util.InMemoryAnnouncementCache;
+import com.maciej.wojtaczka.announcementboard.util.InMemoryAnnouncementRepository;
+import com.maciej.wojtaczka.announcementboard.util.InMemoryDomainEventPublisher;
+import com.maciej.wojtaczka.announcementboard.util.InMemoryUserService;
+import com.maciej.wojtaczka.announcementboard.util.SkewedDataset;
+import com.maciej.wojtaczka.announcementboard.util.SkewedWorkload;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.opentelemetry.api.trace.TracerProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AnnouncementBoardServiceCommandBenchmark {
+
+	private static final int COMMENT_REQUESTS = 1024;
+
+	@Param({ "100", "1000" })
+	public int authors;
+
+	@Param({ "0.0", "0.5", "0.9" })
+	public double cacheHitRatio;
+
+	private AnnouncementBoardService service;
+	private InMemoryAnnouncementRepository repository;
+	private UUID publisherId;
+	private List<SkewedWorkload.CommentRequest> commentRequests;
+	private int nextCommentRequest;
+
+	@Setup
+	public void setup() {
+		SkewedDataset dataset = SkewedDataset.generate(SkewedDataset.Spec.builder()
+																		 .authors(authors)
+																		 .build());
+
+		InMemoryUserService userService = new InMemoryUserService();
+		InMemoryAnnouncementCache cache = new InMemoryAnnouncementCache();
+		repository = new InMemoryAnnouncementRepository();
+		DatasetLoader loader = new DatasetLoader(dataset);
+		loader.toInMemory(repository, userService);
+		loader.toCache(cache, cacheHitRatio);
+
+		publisherId = userService.save(User.builder().id(UUID.randomUUID()).nickname("publisher").build()).getId();
+
+		SkewedWorkload workload = dataset.workload(7);
+		commentRequests = new ArrayList<>(COMMENT_REQUESTS);
+		for (int i = 0; i < COMMENT_REQUESTS; i++) {
+			commentRequests.add(workload.nextCommentRequest());
+		}
+
+		service = new AnnouncementBoardService(userService, new InMemoryDomainEventPublisher(), repository, cache, new SimpleMeterRegistry(),
+											   TracerProvider.noop().get("benchmark"),
+											   new HotKeys(200, 4096, 4, Duration.ofMinutes(5), 100));
+	}
+
+	@TearDown(Level.Iteration)
+	public void discardPublished() {
+		repository.deleteAll(publisherId);
+	}
+
+	@Benchmark
+	public Announcement publishAnnouncement() {
+		return service.publishAnnouncement(publisherId, "Hello world");
+	}
+
+	@Benchmark
+	public void placeComment() {
+		SkewedWorkload.CommentRequest request = commentRequests.get(nextCommentRequest);
+		nextCommentRequest = (nextCommentRequest + 1) % COMMENT_REQUESTS;
+		service.placeComment(request.getCommenterId(), request.getContent(), request.getAnnouncementAuthorId(), request.getAnnouncementCreationTime());
+	}
+}
@@ -0,0 +1,77 @@
+package com.maciej.wojtaczka.announcementboard.domain;
+
+import com.maciej.wojtaczka.announcementboard.domain.hotkeys.HotKeys;
+import com.maciej.wojtaczka.announcementboard.domain.query.AnnouncementQuery;
+import com.maciej.wojtaczka.announcementboard.util.DatasetLoader;
+import com.maciej.wojtaczka.announcementboard.util.InMemoryAnnouncementCache;
+import com.maciej.wojtaczka.announcementboard.util.InMemoryAnnouncementRepository;
+import com.maciej.wojtaczka.announcementboard.util.InMemoryDomainEventPublisher;
+import com.maciej.wojtaczka.announcementboard.util.InMemoryUserService;
+import com.maciej.wojtaczka.announcementboard.util.SkewedDataset;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.opentelemetry.api.trace.TracerProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AnnouncementBoardServiceFetchBenchmark {
+
+	@Param({ "10", "100", "1000" })
+	public int queryBatchSize;
+
+	@Param({ "1", "10", "100" })
+	public int authorFanOut;
+
+	@Param({ "0.0", "0.5", "0.9" })
+	public double cacheHitRatio;
+
+	private AnnouncementBoardService service;
+	private List<AnnouncementQuery> queries;
+
+	@Setup
+	public void setup() {
+		int announcementsPerQueriedAuthor = queryBatchSize / authorFanOut + 1;
+		SkewedDataset dataset = SkewedDataset.generate(SkewedDataset.Spec.builder()
+																		 .authors(Math.max(100, authorFanOut * 4))
+																		 .minAnnouncementsPerAuthor(announcementsPerQueriedAuthor)
+																		 .maxAnnouncementsPerAuthor(Math.max(1_000, announcementsPerQueriedAuthor))
+																		 .build());
+
+		InMemoryUserService userService = new InMemoryUserService();
+		InMemoryAnnouncementRepository repository = new InMemoryAnnouncementRepository();
+		InMemoryAnnouncementCache cache = new InMemoryAnnouncementCache();
+		DatasetLoader loader = new DatasetLoader(dataset);
+		loader.toInMemory(repository, userService);
+		loader.toCache(cache, cacheHitRatio);
+		cache.freeze();
+
+		queries = dataset.workload(7).nextQueryBatch(queryBatchSize, authorFanOut);
+
+		service = new AnnouncementBoardService(userService, new InMemoryDomainEventPublisher(), repository, cache, new SimpleMeterRegistry(),
+											   TracerProvider.noop().get("benchmark"),
+											   new HotKeys(200, 4096, 4, Duration.ofMinutes(5), 100));
+	}
+
+	@Benchmark
+	public List<AnnouncementQuery.Result> fetchAll() {
+		return service.fetchAll(queries);
+	}
+}
@@ -0,0 +1,90 @@
+package com.maciej.wojtaczka.announcementboard.messaging;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.maciej.wojtaczka.announcementboard.domain.DomainEvent;
+import com.maciej.wojtaczka.announcementboard.domain.model.Announcement;
+import com.maciej.wojtaczka.announcementboard.domain.model.User;
+import com.maciej.wojtaczka.announcementboard.domain.query.AnnouncementQuery;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonSerializationBenchmark {
+
+	@Param({ "1", "10", "100" })
+	public int announcementsPerResult;
+
+	private ObjectMapper objectMapper;
+	private List<AnnouncementQuery.Result> results;
+	private DomainEvent<?> announcementPublished;
+	private DomainEvent<?> announcementCommented;
+
+	@Setup
+	public void setup() {
+		// the same configuration Spring Boot applies to the ObjectMapper injected into KafkaPublisher and the controllers
+		objectMapper = Jackson2ObjectMapperBuilder.json()
+												  .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+												  .build();
+
+		User author = User.builder().id(UUID.randomUUID()).nickname("author").build();
+		User commenter = User.builder().id(UUID.randomUUID()).nickname("commenter").build();
+
+		List<Announcement> announcements = new ArrayList<>(announcementsPerResult);
+		Instant firstCreationTime = Instant.parse("2021-01-01T10:15:30.123Z");
+		for (int i = 0; i < announcementsPerResult; i++) {
+			announcements.add(Announcement.builder()
+										  .authorId(author.getId())
+										  .creationTime(firstCreationTime.plusSeconds(i))
+										  .content("Announcement number " + i)
+										  .commentsCount(i)
+										  .build());
+		}
+		results = List.of(AnnouncementQuery.Result.builder()
+											   .authorId(author.getId())
+											   .announcements(announcements)
+											   .build());
+
+		author.publishAnnouncement("Hello world");
+		announcementPublished = author.getDomainEvents().get(0);
+		commenter.commentAnnouncement("Nice", announcements.get(0));
+		announcementCommented = commenter.getDomainEvents().get(0);
+	}
+
+	@Benchmark
+	public String queryResults() throws JsonProcessingException {
+		return objectMapper.writeValueAsString(results);
+	}
+
+	@Benchmark
+	public String announcementPublishedPayload() throws JsonProcessingException {
+		return objectMapper.writeValueAsString(announcementPublished.getPayload());
+	}
+
+	@Benchmark
+	public String announcementCommentedPayload() throws JsonProcessingException {
+		return objectMapper.writeValueAsString(announcementCommented.getPayload());
+	}
+}
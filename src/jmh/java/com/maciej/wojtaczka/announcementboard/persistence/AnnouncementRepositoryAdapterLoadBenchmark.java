@@ -0,0 +1,192 @@
+package com.maciej.wojtaczka.announcementboard.persistence;
+
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.config.DefaultDriverOption;
+import com.datastax.oss.driver.api.core.config.DriverConfigLoader;
+import com.maciej.wojtaczka.announcementboard.diagnostics.SlowOperationLog;
+import com.maciej.wojtaczka.announcementboard.domain.model.Announcement;
+import com.maciej.wojtaczka.announcementboard.util.DatasetLoader;
+import com.maciej.wojtaczka.announcementboard.util.SkewedDataset;
+import com.maciej.wojtaczka.announcementboard.util.SkewedWorkload;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.opentelemetry.api.trace.TracerProvider;
+import org.cassandraunit.CQLDataLoader;
+import org.cassandraunit.dataset.cql.ClassPathCQLDataSet;
+import org.cassandraunit.utils.EmbeddedCassandraServerHelper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.cassandra.core.AsyncCassandraTemplate;
+import org.springframework.data.cassandra.core.CassandraTemplate;
+
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs {@link AnnouncementRepositoryAdapter#fetchAll(Map)} against the embedded Cassandra used by the integration tests,
+ * loaded with a {@link SkewedDataset} whose most prolific author has {@code partitionDepth} announcements.
+ * Use JMH's {@code -t} option to add concurrent requests on top of the swept parameters.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class AnnouncementRepositoryAdapterLoadBenchmark {
+
+	private static final int REQUESTS = 64;
+
+	@Param({ "1", "10", "100" })
+	public int authorsPerRequest;
+
+	@Param({ "1", "10" })
+	public int creationTimesPerAuthor;
+
+	@Param({ "10", "1000" })
+	public int partitionDepth;
+
+	/**
+	 * A number is a fixed limit on selects in flight, shared by all benchmark threads.
+	 */
+	@Param({ "10", "100", "adaptive" })
+	public String selectLimit;
+
+	/**
+	 * {@code tail} always scans from the oldest requested time on, which is how selects were built before the planner.
+	 */
+	@Param({ "cost", "tail" })
+	public String fetchPlan;
+
+	/**
+	 * {@code BUCKETED} copies the loaded dataset with {@link AnnouncementBucketBackfill} and reads one partition per month.
+	 */
+	@Param({ "UNBUCKETED", "BUCKETED" })
+	public PartitionLayout layout;
+
+	private CqlSession session;
+	private CounterAdjustmentQueue adjustments;
+	private AnnouncementRepositoryAdapter repository;
+	private List<Map<UUID, List<Instant>>> requests;
+	private int nextRequest;
+
+	@Setup
+	public void setup() throws Exception {
+		EmbeddedCassandraServerHelper.startEmbeddedCassandra(60_000L);
+		new CQLDataLoader(EmbeddedCassandraServerHelper.getSession()).load(new ClassPathCQLDataSet("schema.cql"));
+
+		session = CqlSession.builder()
+							.addContactPoint(new InetSocketAddress(EmbeddedCassandraServerHelper.getHost(),
+																   EmbeddedCassandraServerHelper.getNativeTransportPort()))
+							.withLocalDatacenter("datacenter1")
+							.withKeyspace("announcement_board")
+							.withConfigLoader(executionProfiles())
+							.build();
+
+		adjustments = new CounterAdjustmentQueue(session, Files.createTempFile("counter-adjustments", ".log"), Duration.ofMinutes(1),
+												  new SimpleMeterRegistry());
+		repository = new AnnouncementRepositoryAdapter(session,
+													   new CassandraTemplate(session),
+													   new AsyncCassandraTemplate(session),
+													   layout,
+													   selectLimiter(),
+													   fetchPlanner(),
+													   CommentCounterSharding.disabled(),
+													   CommentCountWriteBehind.disabled(),
+													   adjustments,
+													   new SimpleMeterRegistry(),
+													   TracerProvider.noop().get("benchmark"),
+													   new SlowOperationLog(Duration.ofSeconds(1), 0));
+
+		SkewedDataset dataset = SkewedDataset.generate(SkewedDataset.Spec.builder()
+																		 .authors(Math.max(100, authorsPerRequest * 4))
+																		 .minAnnouncementsPerAuthor(creationTimesPerAuthor)
+																		 .maxAnnouncementsPerAuthor(partitionDepth)
+																		 .build());
+		new DatasetLoader(dataset).toCassandra(session);
+		if (layout == PartitionLayout.BUCKETED) {
+			new AnnouncementBucketBackfill(session, 256).run();
+		}
+
+		SkewedWorkload workload = dataset.workload(7);
+		requests = new ArrayList<>(REQUESTS);
+		for (int i = 0; i < REQUESTS; i++) {
+			requests.add(SkewedWorkload.groupByAuthor(workload.nextQueryBatch(authorsPerRequest * creationTimesPerAuthor, authorsPerRequest)));
+		}
+	}
+
+	@TearDown
+	public void tearDown() throws Exception {
+		adjustments.close();
+		session.close();
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.Throughput)
+	@OutputTimeUnit(TimeUnit.SECONDS)
+	public List<Announcement> throughput() {
+		return repository.fetchAll(nextRequest());
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.SampleTime)
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public List<Announcement> latency() {
+		return repository.fetchAll(nextRequest());
+	}
+
+	/**
+	 * The profiles the statements name, without hedging so that results are comparable with earlier runs.
+	 */
+	private static DriverConfigLoader executionProfiles() {
+		return DriverConfigLoader.programmaticBuilder()
+								 .startProfile(BoundStatements.READ_PROFILE)
+								 .withDuration(DefaultDriverOption.REQUEST_TIMEOUT, Duration.ofSeconds(2))
+								 .endProfile()
+								 .startProfile(BoundStatements.WRITE_PROFILE)
+								 .withDuration(DefaultDriverOption.REQUEST_TIMEOUT, Duration.ofSeconds(5))
+								 .endProfile()
+								 .build();
+	}
+
+	private AdaptiveConcurrencyLimiter selectLimiter() {
+		if (selectLimit.equals("adaptive")) {
+			return new AdaptiveConcurrencyLimiter(32, 8, 256, 2, 0.9);
+		}
+		return AdaptiveConcurrencyLimiter.fixed(Integer.parseInt(selectLimit));
+	}
+
+	private FetchPlanner fetchPlanner() {
+		Clock clock = Clock.fixed(SkewedDataset.NOW, ZoneOffset.UTC);
+		if (fetchPlan.equals("tail")) {
+			return new FetchPlanner(0, 0, 0, clock);
+		}
+		return new FetchPlanner(64, 3, 10, clock);
+	}
+
+	private synchronized Map<UUID, List<Instant>> nextRequest() {
+		Map<UUID, List<Instant>> request = requests.get(nextRequest);
+		nextRequest = (nextRequest + 1) % REQUESTS;
+
+		Map<UUID, List<Instant>> copy = new HashMap<>();
+		request.forEach((authorId, creationTimes) -> copy.put(authorId, new ArrayList<>(creationTimes)));
+		return copy;
+	}
+}
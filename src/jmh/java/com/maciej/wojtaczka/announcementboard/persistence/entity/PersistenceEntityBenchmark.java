@@ -0,0 +1,69 @@
+package com.maciej.wojtaczka.announcementboard.persistence.entity;
+
+import com.maciej.wojtaczka.announcementboard.domain.model.Announcement;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PersistenceEntityBenchmark {
+
+	@Param({ "1", "100" })
+	public int commentsCountsPerPartition;
+
+	private AnnouncementDbEntity announcement;
+	private CommentsCountDbEntity commentsCount;
+	private Map<String, CommentsCountDbEntity> commentsCounts;
+
+	@Setup
+	public void setup() {
+		UUID authorId = UUID.randomUUID();
+		Instant creationTime = Instant.parse("2021-01-01T10:15:30.123Z");
+
+		announcement = AnnouncementDbEntity.builder()
+										   .authorId(authorId)
+										   .creationTime(creationTime)
+										   .content("Hello world")
+										   .build();
+
+		commentsCounts = new HashMap<>();
+		for (int i = 0; i < commentsCountsPerPartition; i++) {
+			CommentsCountDbEntity count = CommentsCountDbEntity.builder()
+															   .announcementAuthorId(authorId)
+															   .announcementCreationTime(creationTime.plusSeconds(i))
+															   .commentsCount((long) i)
+															   .build();
+			commentsCounts.put(count.getKey(), count);
+		}
+		commentsCount = commentsCounts.values().iterator().next();
+	}
+
+	@Benchmark
+	public Announcement announcementToModel() {
+		return announcement.toModel(commentsCounts);
+	}
+
+	@Benchmark
+	public String commentsCountKey() {
+		return commentsCount.getKey();
+	}
+}
@@ -0,0 +1,115 @@
+package com.maciej.wojtaczka.announcementboard.util;
+
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.cql.PreparedStatement;
+import com.datastax.oss.driver.api.core.cql.Statement;
+import com.maciej.wojtaczka.announcementboard.domain.AnnouncementCache;
+import com.maciej.wojtaczka.announcementboard.domain.model.Announcement;
+import com.maciej.wojtaczka.announcementboard.domain.model.Comment;
+import com.maciej.wojtaczka.announcementboard.domain.model.User;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class DatasetLoader {
+
+	private static final int MAX_IN_FLIGHT_WRITES = 256;
+	private static final int CACHE_CHUNK_SIZE = 1_000;
+
+	private final SkewedDataset dataset;
+
+	public DatasetLoader(SkewedDataset dataset) {
+		this.dataset = dataset;
+	}
+
+	/**
+	 * Writes the {@code user}, {@code announcement}, {@code comments_count} and {@code comment} tables.
+	 */
+	public void toCassandra(CqlSession session) throws InterruptedException {
+		PreparedStatement insertUser = session.prepare(
+				"INSERT INTO announcement_board.user (id, nickname, name, surname) VALUES (?, ?, ?, ?)");
+		PreparedStatement insertAnnouncement = session.prepare(
+				"INSERT INTO announcement_board.announcement (author_id, creation_time, content) VALUES (?, ?, ?)");
+		PreparedStatement incrementCommentsCount = session.prepare(
+				"UPDATE announcement_board.comments_count SET comments_count = comments_count + ? " +
+						"WHERE announcement_author_id = ? AND announcement_creation_time = ?");
+		PreparedStatement insertComment = session.prepare(
+				"INSERT INTO announcement_board.comment " +
+						"(announcement_author_id, announcement_creation_time, author_id, author_nickname, creation_time, content) " +
+						"VALUES (?, ?, ?, ?, ?, ?)");
+
+		BoundedWriter writer = new BoundedWriter(session);
+		for (User user : dataset.getUsers()) {
+			writer.write(insertUser.bind(user.getId(), user.getNickname(), user.getName(), user.getSurname()));
+		}
+		Iterator<Announcement> announcements = dataset.announcements().iterator();
+		while (announcements.hasNext()) {
+			Announcement announcement = announcements.next();
+			writer.write(insertAnnouncement.bind(announcement.getAuthorId(), announcement.getCreationTime(), announcement.getContent()));
+			if (announcement.getCommentsCount() > 0) {
+				writer.write(incrementCommentsCount.bind(announcement.getCommentsCount(), announcement.getAuthorId(), announcement.getCreationTime()));
+			}
+			for (Comment comment : dataset.comments(announcement)) {
+				writer.write(insertComment.bind(comment.getAnnouncementAuthorId(), comment.getAnnouncementCreationTime(), comment.getAuthorId(),
+												comment.getAuthorNickname(), comment.getCreationTime(), comment.getContent()));
+			}
+		}
+		writer.awaitAll();
+	}
+
+	public void toCache(AnnouncementCache cache, double cachedFraction) {
+		Random random = new Random(dataset.getSpec().getSeed());
+		List<Announcement> chunk = new ArrayList<>(CACHE_CHUNK_SIZE);
+		Iterator<Announcement> announcements = dataset.announcements().iterator();
+		while (announcements.hasNext()) {
+			Announcement announcement = announcements.next();
+			if (random.nextDouble() < cachedFraction) {
+				chunk.add(announcement);
+			}
+			if (chunk.size() == CACHE_CHUNK_SIZE) {
+				cache.saveAll(chunk);
+				chunk = new ArrayList<>(CACHE_CHUNK_SIZE);
+			}
+		}
+		cache.saveAll(chunk);
+	}
+
+	public void toInMemory(InMemoryAnnouncementRepository repository, InMemoryUserService userService) {
+		dataset.getUsers().forEach(userService::save);
+		dataset.announcements().forEach(repository::save);
+	}
+
+	private static class BoundedWriter {
+
+		private final CqlSession session;
+		private final Semaphore inFlight = new Semaphore(MAX_IN_FLIGHT_WRITES);
+		private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+		BoundedWriter(CqlSession session) {
+			this.session = session;
+		}
+
+		void write(Statement<?> statement) throws InterruptedException {
+			inFlight.acquire();
+			session.executeAsync(statement)
+				   .whenComplete((result, error) -> {
+					   if (error != null) {
+						   failure.compareAndSet(null, error);
+					   }
+					   inFlight.release();
+				   });
+		}
+
+		void awaitAll() throws InterruptedException {
+			inFlight.acquire(MAX_IN_FLIGHT_WRITES);
+			inFlight.release(MAX_IN_FLIGHT_WRITES);
+			if (failure.get() != null) {
+				throw new IllegalStateException("Could not load the dataset", failure.get());
+			}
+		}
+	}
+}
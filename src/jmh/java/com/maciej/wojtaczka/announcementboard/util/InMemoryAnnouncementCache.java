@@ -0,0 +1,70 @@
+package com.maciej.wojtaczka.announcementboard.util;
+
+import com.maciej.wojtaczka.announcementboard.domain.AnnouncementCache;
+import com.maciej.wojtaczka.announcementboard.domain.CommentsPageLookup;
+import com.maciej.wojtaczka.announcementboard.domain.model.Announcement;
+import com.maciej.wojtaczka.announcementboard.domain.model.Comment;
+import com.maciej.wojtaczka.announcementboard.domain.query.AnnouncementQuery;
+import com.maciej.wojtaczka.announcementboard.domain.query.Page;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.util.stream.Collectors.toList;
+
+public class InMemoryAnnouncementCache implements AnnouncementCache {
+
+	private final Map<AnnouncementQuery, Announcement> entries = new ConcurrentHashMap<>();
+	private final Map<AnnouncementQuery, Page<Comment>> firstCommentsPages = new ConcurrentHashMap<>();
+	private final Map<AnnouncementQuery, Long> firstCommentsPageVersions = new ConcurrentHashMap<>();
+	private volatile boolean frozen;
+
+	/**
+	 * Makes {@link #saveAll(List)} a no-op so that the hit ratio stays as it was set up, no matter how many times it is queried.
+	 */
+	public void freeze() {
+		frozen = true;
+	}
+
+	@Override
+	public void saveAll(List<Announcement> announcements) {
+		if (!frozen) {
+			announcements.forEach(announcement -> entries.put(new AnnouncementQuery(announcement.getAuthorId(), announcement.getCreationTime()),
+															  announcement));
+		}
+	}
+
+	@Override
+	public List<Announcement> get(List<AnnouncementQuery> queries) {
+		return queries.stream()
+					  .map(entries::get)
+					  .filter(Objects::nonNull)
+					  .collect(toList());
+	}
+
+	@Override
+	public Optional<Announcement> getOne(AnnouncementQuery query) {
+		return Optional.ofNullable(entries.get(query));
+	}
+
+	@Override
+	public void saveFirstCommentsPage(AnnouncementQuery announcement, Page<Comment> firstPage, long version) {
+		if (!frozen && firstCommentsPageVersions.getOrDefault(announcement, 0L) == version) {
+			firstCommentsPages.put(announcement, firstPage);
+		}
+	}
+
+	@Override
+	public CommentsPageLookup getFirstCommentsPage(AnnouncementQuery announcement) {
+		return new CommentsPageLookup(firstCommentsPages.get(announcement), firstCommentsPageVersions.getOrDefault(announcement, 0L));
+	}
+
+	@Override
+	public void evictLastFirstCommentsPage(AnnouncementQuery announcement) {
+		firstCommentsPageVersions.merge(announcement, 1L, Long::sum);
+		firstCommentsPages.computeIfPresent(announcement, (key, firstPage) -> firstPage.getNextCursor() == null ? null : firstPage);
+	}
+}
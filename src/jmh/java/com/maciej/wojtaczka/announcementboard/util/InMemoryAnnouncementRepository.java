@@ -0,0 +1,112 @@
+package com.maciej.wojtaczka.announcementboard.util;
+
+import com.maciej.wojtaczka.announcementboard.domain.AnnouncementRepository;
+import com.maciej.wojtaczka.announcementboard.domain.model.Announcement;
+import com.maciej.wojtaczka.announcementboard.domain.model.Comment;
+import com.maciej.wojtaczka.announcementboard.domain.query.AnnouncementQuery;
+import com.maciej.wojtaczka.announcementboard.domain.query.CommentCursor;
+import com.maciej.wojtaczka.announcementboard.domain.query.Page;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+public class InMemoryAnnouncementRepository implements AnnouncementRepository {
+
+	private final Map<UUID, ConcurrentNavigableMap<Instant, Announcement>> announcements = new ConcurrentHashMap<>();
+	private final Map<String, AtomicLong> commentsCounts = new ConcurrentHashMap<>();
+
+	@Override
+	public Announcement save(Announcement announcement) {
+		announcements.computeIfAbsent(announcement.getAuthorId(), id -> new ConcurrentSkipListMap<>())
+					 .put(announcement.getCreationTime(), copyOf(announcement, announcement.getCommentsCount()));
+		commentsCounts.put(key(announcement.getAuthorId(), announcement.getCreationTime()), new AtomicLong(announcement.getCommentsCount()));
+
+		return announcement;
+	}
+
+	@Override
+	public List<Announcement> saveAll(List<Announcement> announcements) {
+		announcements.forEach(this::save);
+
+		return announcements;
+	}
+
+	@Override
+	public void saveAnnouncementComment(Comment comment) {
+		commentsCounts.computeIfAbsent(key(comment.getAnnouncementAuthorId(), comment.getAnnouncementCreationTime()), k -> new AtomicLong())
+					  .incrementAndGet();
+	}
+
+	@Override
+	public List<Announcement> fetchAll(Map<UUID, List<Instant>> authorIdToCreationTimes) {
+		List<Announcement> found = new ArrayList<>();
+		authorIdToCreationTimes.forEach((authorId, creationTimes) -> creationTimes.forEach(
+				creationTime -> fetchOne(authorId, creationTime).ifPresent(found::add)));
+
+		return List.copyOf(found);
+	}
+
+	@Override
+	public Optional<Announcement> fetchOne(UUID authorId, Instant creationTime) {
+		return Optional.ofNullable(announcements.get(authorId))
+					   .map(byTime -> byTime.get(creationTime))
+					   .map(announcement -> copyOf(announcement, commentsCounts.get(key(authorId, creationTime)).get()));
+	}
+
+	/**
+	 * The cursor is the creation time, in epoch millis, of the last announcement of the previous page.
+	 */
+	@Override
+	public Page<Announcement> fetchTimeline(UUID authorId, int pageSize, String cursor) {
+		ConcurrentNavigableMap<Instant, Announcement> byTime = announcements.getOrDefault(authorId, new ConcurrentSkipListMap<>());
+		ConcurrentNavigableMap<Instant, Announcement> older = cursor == null
+				? byTime.descendingMap()
+				: byTime.headMap(Instant.ofEpochMilli(Long.parseLong(cursor))).descendingMap();
+		List<Announcement> page = older.values().stream()
+									   .limit(pageSize)
+									   .map(announcement -> fetchOne(authorId, announcement.getCreationTime()).orElseThrow())
+									   .collect(Collectors.toList());
+		String nextCursor = page.size() < pageSize ? null : String.valueOf(page.get(page.size() - 1).getCreationTime().toEpochMilli());
+		return new Page<>(page, nextCursor);
+	}
+
+	/**
+	 * Only comments counts are kept, so there are never any comments to list.
+	 */
+	@Override
+	public Page<Comment> fetchComments(AnnouncementQuery announcement, int pageSize, CommentCursor after) {
+		return new Page<>(List.of(), null);
+	}
+
+	@Override
+	public Page<Comment> fetchUserComments(UUID userId, int pageSize, String cursor) {
+		return new Page<>(List.of(), null);
+	}
+
+	public void deleteAll(UUID authorId) {
+		Optional.ofNullable(announcements.remove(authorId))
+				.ifPresent(removed -> removed.keySet().forEach(creationTime -> commentsCounts.remove(key(authorId, creationTime))));
+	}
+
+	private static Announcement copyOf(Announcement announcement, long commentsCount) {
+		return Announcement.builder()
+						   .authorId(announcement.getAuthorId())
+						   .creationTime(announcement.getCreationTime())
+						   .content(announcement.getContent())
+						   .commentsCount(commentsCount)
+						   .build();
+	}
+
+	private static String key(UUID authorId, Instant creationTime) {
+		return authorId.toString() + ":" + creationTime.toEpochMilli();
+	}
+}
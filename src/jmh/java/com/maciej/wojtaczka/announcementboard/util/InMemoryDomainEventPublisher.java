@@ -0,0 +1,30 @@
+package com.maciej.wojtaczka.announcementboard.util;
+
+import com.maciej.wojtaczka.announcementboard.domain.DomainEvent;
+import com.maciej.wojtaczka.announcementboard.domain.DomainEventPublisher;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+public class InMemoryDomainEventPublisher implements DomainEventPublisher {
+
+	private final Map<String, LongAdder> publishedPerDestination = new ConcurrentHashMap<>();
+
+	@Override
+	public void publish(DomainEvent<?> domainEvent) {
+		publishedPerDestination.computeIfAbsent(domainEvent.getDestination(), destination -> new LongAdder())
+							   .increment();
+	}
+
+	@Override
+	public void publishAll(List<DomainEvent<?>> domainEvents) {
+		domainEvents.forEach(this::publish);
+	}
+
+	public long publishedTo(String destination) {
+		LongAdder published = publishedPerDestination.get(destination);
+		return published == null ? 0 : published.sum();
+	}
+}
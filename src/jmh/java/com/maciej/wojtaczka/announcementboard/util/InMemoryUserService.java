@@ -0,0 +1,40 @@
+package com.maciej.wojtaczka.announcementboard.util;
+
+import com.maciej.wojtaczka.announcementboard.domain.UserService;
+import com.maciej.wojtaczka.announcementboard.domain.model.User;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class InMemoryUserService implements UserService {
+
+	private final Map<UUID, User> users = new ConcurrentHashMap<>();
+
+	public User save(User user) {
+		users.put(user.getId(), user);
+		return user;
+	}
+
+	@Override
+	public Optional<User> fetchUser(UUID userId) {
+		return Optional.ofNullable(users.get(userId))
+					   .map(user -> User.builder()
+										.id(user.getId())
+										.nickname(user.getNickname())
+										.name(user.getName())
+										.surname(user.getSurname())
+										.build());
+	}
+
+	@Override
+	public Map<UUID, User> fetchUsers(Set<UUID> userIds) {
+		Map<UUID, User> found = new HashMap<>();
+		userIds.forEach(userId -> fetchUser(userId).ifPresent(user -> found.put(userId, user)));
+
+		return found;
+	}
+}
@@ -0,0 +1,184 @@
+package com.maciej.wojtaczka.announcementboard.util;
+
+import com.maciej.wojtaczka.announcementboard.domain.model.Announcement;
+import com.maciej.wojtaczka.announcementboard.domain.model.Comment;
+import com.maciej.wojtaczka.announcementboard.domain.model.User;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Value;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Announcement board content shaped like production: a few prolific and heavily queried authors, a long tail of old
+ * announcements and a handful of viral announcements with huge comment counts.
+ * Authors are ordered by popularity, so the author at rank 0 has the widest partition and is the most often queried.
+ */
+@Getter
+public class SkewedDataset {
+
+	public static final Instant NOW = Instant.parse("2021-10-01T00:00:00Z");
+
+	private final Spec spec;
+	private final List<User> users;
+	private final List<List<Announcement>> announcementsByAuthorRank;
+	private final List<Announcement> viralAnnouncements;
+
+	private SkewedDataset(Spec spec,
+						  List<User> users,
+						  List<List<Announcement>> announcementsByAuthorRank,
+						  List<Announcement> viralAnnouncements) {
+		this.spec = spec;
+		this.users = users;
+		this.announcementsByAuthorRank = announcementsByAuthorRank;
+		this.viralAnnouncements = viralAnnouncements;
+	}
+
+	public static SkewedDataset generate(Spec spec) {
+		Random random = new Random(spec.getSeed());
+
+		List<User> users = new ArrayList<>(spec.getAuthors());
+		for (int rank = 0; rank < spec.getAuthors(); rank++) {
+			users.add(User.builder()
+						  .id(new UUID(random.nextLong(), random.nextLong()))
+						  .nickname("user" + rank)
+						  .name("Name" + rank)
+						  .surname("Surname" + rank)
+						  .build());
+		}
+
+		List<List<Announcement>> announcementsByAuthorRank = new ArrayList<>(spec.getAuthors());
+		for (int rank = 0; rank < spec.getAuthors(); rank++) {
+			announcementsByAuthorRank.add(generateAnnouncements(spec, users.get(rank).getId(), partitionDepth(spec, rank), random));
+		}
+
+		List<Announcement> viralAnnouncements = pickViral(spec, announcementsByAuthorRank, random);
+
+		return new SkewedDataset(spec, List.copyOf(users), announcementsByAuthorRank, List.copyOf(viralAnnouncements));
+	}
+
+	public Stream<Announcement> announcements() {
+		return announcementsByAuthorRank.stream().flatMap(List::stream);
+	}
+
+	public List<Announcement> announcementsOf(int authorRank) {
+		return announcementsByAuthorRank.get(authorRank);
+	}
+
+	/**
+	 * Comments matching {@link Announcement#getCommentsCount()}, generated the same way on every call.
+	 */
+	public List<Comment> comments(Announcement announcement) {
+		Random random = new Random(spec.getSeed() ^ announcement.getAuthorId().getLeastSignificantBits() ^ announcement.getCreationTime().toEpochMilli());
+		ZipfSampler commenters = new ZipfSampler(users.size(), spec.getAuthorSkew());
+
+		List<Comment> comments = new ArrayList<>((int) announcement.getCommentsCount());
+		for (int i = 0; i < announcement.getCommentsCount(); i++) {
+			User commenter = users.get(commenters.next(random));
+			comments.add(Comment.builder()
+								.announcementAuthorId(announcement.getAuthorId())
+								.announcementCreationTime(announcement.getCreationTime())
+								.authorId(commenter.getId())
+								.authorNickname(commenter.getNickname())
+								.content("Comment " + i)
+								.creationTime(announcement.getCreationTime().plusMillis(i + 1))
+								.build());
+		}
+		return comments;
+	}
+
+	public SkewedWorkload workload(long seed) {
+		return new SkewedWorkload(this, seed);
+	}
+
+	private static int partitionDepth(Spec spec, int authorRank) {
+		int depth = (int) Math.round(spec.getMaxAnnouncementsPerAuthor() / Math.pow(authorRank + 1, spec.getAuthorSkew()));
+		return Math.max(spec.getMinAnnouncementsPerAuthor(), Math.min(depth, spec.getMaxAnnouncementsPerAuthor()));
+	}
+
+	private static List<Announcement> generateAnnouncements(Spec spec, UUID authorId, int depth, Random random) {
+		long historyMillis = Duration.ofDays(spec.getHistoryDays()).toMillis();
+
+		Set<Instant> creationTimes = new TreeSet<>(Comparator.reverseOrder());
+		while (creationTimes.size() < depth) {
+			long ageMillis = (long) (Math.pow(random.nextDouble(), spec.getOldTailExponent()) * historyMillis);
+			creationTimes.add(NOW.minusMillis(ageMillis));
+		}
+
+		List<Announcement> announcements = new ArrayList<>(depth);
+		for (Instant creationTime : creationTimes) {
+			long commentsCount = (long) (Math.pow(random.nextDouble(), 4) * (spec.getMaxRegularCommentsCount() + 1));
+			announcements.add(Announcement.builder()
+										  .authorId(authorId)
+										  .creationTime(creationTime)
+										  .content("Announcement of " + authorId + " from " + creationTime)
+										  .commentsCount(commentsCount)
+										  .build());
+		}
+		return announcements;
+	}
+
+	private static List<Announcement> pickViral(Spec spec, List<List<Announcement>> announcementsByAuthorRank, Random random) {
+		List<int[]> candidates = new ArrayList<>();
+		for (int rank = 0; rank < Math.min(10, announcementsByAuthorRank.size()); rank++) {
+			for (int index = 0; index < Math.min(5, announcementsByAuthorRank.get(rank).size()); index++) {
+				candidates.add(new int[] { rank, index });
+			}
+		}
+		Collections.shuffle(candidates, random);
+
+		List<Announcement> viral = new ArrayList<>(spec.getViralAnnouncements());
+		for (int[] rankAndIndex : candidates.subList(0, Math.min(spec.getViralAnnouncements(), candidates.size()))) {
+			List<Announcement> newestFirst = announcementsByAuthorRank.get(rankAndIndex[0]);
+			Announcement regular = newestFirst.get(rankAndIndex[1]);
+			Announcement viralAnnouncement = Announcement.builder()
+														 .authorId(regular.getAuthorId())
+														 .creationTime(regular.getCreationTime())
+														 .content(regular.getContent())
+														 .commentsCount(spec.getViralCommentsCount())
+														 .build();
+			newestFirst.set(rankAndIndex[1], viralAnnouncement);
+			viral.add(viralAnnouncement);
+		}
+		return viral;
+	}
+
+	@Value
+	@Builder
+	public static class Spec {
+		@Builder.Default
+		long seed = 42;
+		@Builder.Default
+		int authors = 1_000;
+		@Builder.Default
+		double authorSkew = 1.1;
+		@Builder.Default
+		int minAnnouncementsPerAuthor = 1;
+		@Builder.Default
+		int maxAnnouncementsPerAuthor = 1_000;
+		@Builder.Default
+		int historyDays = 3 * 365;
+		/**
+		 * Announcement age is drawn as {@code historyDays * u^oldTailExponent}; the higher it is, the more announcements are recent
+		 * and the longer the tail of old ones.
+		 */
+		@Builder.Default
+		double oldTailExponent = 3;
+		@Builder.Default
+		int maxRegularCommentsCount = 20;
+		@Builder.Default
+		int viralAnnouncements = 5;
+		@Builder.Default
+		int viralCommentsCount = 10_000;
+	}
+}
@@ -0,0 +1,114 @@
+package com.maciej.wojtaczka.announcementboard.util;
+
+import com.maciej.wojtaczka.announcementboard.domain.model.Announcement;
+import com.maciej.wojtaczka.announcementboard.domain.model.User;
+import com.maciej.wojtaczka.announcementboard.domain.query.AnnouncementQuery;
+import lombok.Value;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.mapping;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Requests matching a {@link SkewedDataset}: popular authors are queried most often, recent announcements more often than
+ * old ones and viral announcements attract most of the comments.
+ */
+public class SkewedWorkload {
+
+	private final SkewedDataset dataset;
+	private final Random random;
+	private final ZipfSampler authors;
+	private final List<Announcement> commentable;
+	private final double[] cumulativeCommentWeights;
+
+	SkewedWorkload(SkewedDataset dataset, long seed) {
+		this.dataset = dataset;
+		this.random = new Random(seed);
+		this.authors = new ZipfSampler(dataset.getUsers().size(), dataset.getSpec().getAuthorSkew());
+		this.commentable = new ArrayList<>();
+		dataset.announcements().forEach(commentable::add);
+		this.cumulativeCommentWeights = new double[commentable.size()];
+		double sum = 0;
+		for (int i = 0; i < commentable.size(); i++) {
+			sum += commentable.get(i).getCommentsCount() + 1;
+			cumulativeCommentWeights[i] = sum;
+		}
+	}
+
+	/**
+	 * A batch of distinct queries spread over {@code authorFanOut} distinct authors. The batch is smaller than requested when
+	 * the drawn authors have fewer announcements than needed.
+	 */
+	public List<AnnouncementQuery> nextQueryBatch(int batchSize, int authorFanOut) {
+		int fanOut = Math.min(authorFanOut, dataset.getUsers().size());
+		Set<Integer> authorRanks = new LinkedHashSet<>();
+		while (authorRanks.size() < fanOut) {
+			authorRanks.add(authors.next(random));
+		}
+
+		List<AnnouncementQuery> batch = new ArrayList<>(batchSize);
+		int remainingAuthors = fanOut;
+		for (int authorRank : authorRanks) {
+			int queriesForAuthor = (batchSize - batch.size() + remainingAuthors - 1) / remainingAuthors;
+			for (Announcement announcement : pickRecent(dataset.announcementsOf(authorRank), queriesForAuthor)) {
+				batch.add(new AnnouncementQuery(announcement.getAuthorId(), announcement.getCreationTime()));
+			}
+			remainingAuthors--;
+		}
+		return batch;
+	}
+
+	public CommentRequest nextCommentRequest() {
+		int index = Arrays.binarySearch(cumulativeCommentWeights, random.nextDouble() * cumulativeCommentWeights[cumulativeCommentWeights.length - 1]);
+		Announcement commented = commentable.get(Math.min(index >= 0 ? index : -index - 1, commentable.size() - 1));
+		User commenter = dataset.getUsers().get(authors.next(random));
+
+		return new CommentRequest(commenter.getId(), "Comment from " + commenter.getNickname(), commented.getAuthorId(), commented.getCreationTime());
+	}
+
+	public User nextAuthor() {
+		return dataset.getUsers().get(authors.next(random));
+	}
+
+	public static Map<UUID, List<Instant>> groupByAuthor(List<AnnouncementQuery> batch) {
+		return batch.stream()
+					.collect(groupingBy(AnnouncementQuery::getAuthorId,
+										mapping(AnnouncementQuery::getCreationTime, toList())));
+	}
+
+	private List<Announcement> pickRecent(List<Announcement> newestFirst, int count) {
+		if (count >= newestFirst.size()) {
+			return newestFirst;
+		}
+		if (count > newestFirst.size() / 2) {
+			return newestFirst.subList(0, count);
+		}
+		ZipfSampler recency = new ZipfSampler(newestFirst.size(), 1.0);
+		Set<Integer> picked = new LinkedHashSet<>();
+		while (picked.size() < count) {
+			picked.add(recency.next(random));
+		}
+
+		List<Announcement> announcements = new ArrayList<>(count);
+		picked.forEach(index -> announcements.add(newestFirst.get(index)));
+		return announcements;
+	}
+
+	@Value
+	public static class CommentRequest {
+		UUID commenterId;
+		String content;
+		UUID announcementAuthorId;
+		Instant announcementCreationTime;
+	}
+}
@@ -0,0 +1,41 @@
+package com.maciej.wojtaczka.announcementboard.util;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Draws ranks from {@code [0, n)} where rank {@code k} has probability proportional to {@code 1 / (k + 1)^exponent}.
+ */
+public class ZipfSampler {
+
+	private final double[] cumulativeProbabilities;
+
+	public ZipfSampler(int n, double exponent) {
+		if (n < 1) {
+			throw new IllegalArgumentException("Zipf distribution needs at least one element");
+		}
+		cumulativeProbabilities = new double[n];
+		double sum = 0;
+		for (int rank = 0; rank < n; rank++) {
+			sum += 1 / Math.pow(rank + 1, exponent);
+			cumulativeProbabilities[rank] = sum;
+		}
+		for (int rank = 0; rank < n; rank++) {
+			cumulativeProbabilities[rank] /= sum;
+		}
+	}
+
+	public int next(Random random) {
+		int index = Arrays.binarySearch(cumulativeProbabilities, random.nextDouble());
+		int rank = index >= 0 ? index : -index - 1;
+		return Math.min(rank, cumulativeProbabilities.length - 1);
+	}
+
+	public double probability(int rank) {
+		return rank == 0 ? cumulativeProbabilities[0] : cumulativeProbabilities[rank] - cumulativeProbabilities[rank - 1];
+	}
+
+	public int size() {
+		return cumulativeProbabilities.length;
+	}
+}
@@ -1,11 +1,20 @@
 package com.maciej.wojtaczka.announcementboard.cache;
 
 import com.maciej.wojtaczka.announcementboard.cache.entry.AnnouncementEntry;
+import com.maciej.wojtaczka.announcementboard.cache.entry.CommentsPageEntry;
+import com.maciej.wojtaczka.announcementboard.diagnostics.SlowOperationLog;
 import com.maciej.wojtaczka.announcementboard.domain.AnnouncementCache;
+import com.maciej.wojtaczka.announcementboard.domain.CommentsPageLookup;
 import com.maciej.wojtaczka.announcementboard.domain.model.Announcement;
+import com.maciej.wojtaczka.announcementboard.domain.model.Comment;
 import com.maciej.wojtaczka.announcementboard.domain.query.AnnouncementQuery;
+import com.maciej.wojtaczka.announcementboard.domain.query.Page;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.StreamSupport;
@@ -16,10 +25,27 @@ import static java.util.stream.Collectors.toList;
 @Component
 public class AnnouncementCacheAdapter implements AnnouncementCache {
 
+	private static final int MAX_LOGGED_KEYS = 10;
+
 	private final AnnouncementRedisCache repository;
+	private final CommentsPageRedisCache commentsPages;
+	private final Duration firstCommentsPageTimeToLive;
+
+	private final Counter hits;
+	private final Counter misses;
+	private final SlowOperationLog slowOperations;
 
-	public AnnouncementCacheAdapter(AnnouncementRedisCache repository) {
+	public AnnouncementCacheAdapter(AnnouncementRedisCache repository,
+									CommentsPageRedisCache commentsPages,
+									@Value("${announcement-board.comments-cache.first-page-time-to-live:60s}") Duration firstCommentsPageTimeToLive,
+									MeterRegistry meterRegistry,
+									SlowOperationLog slowOperations) {
 		this.repository = repository;
+		this.commentsPages = commentsPages;
+		this.firstCommentsPageTimeToLive = firstCommentsPageTimeToLive;
+		this.slowOperations = slowOperations;
+		this.hits = lookupCounter("hit", meterRegistry);
+		this.misses = lookupCounter("miss", meterRegistry);
 	}
 
 	@Override
@@ -28,7 +54,11 @@ public class AnnouncementCacheAdapter implements AnnouncementCache {
 		List<AnnouncementEntry> entries = announcements.stream()
 													   .map(AnnouncementEntry::from)
 													   .collect(toList());
-		repository.saveAll(entries);
+		RedisRoundTripEvent event = new RedisRoundTripEvent();
+		event.begin();
+		slowOperations.time("redis saveAll", () -> keys(entries.stream().map(AnnouncementEntry::getId).collect(toList())),
+							() -> repository.saveAll(entries), saved -> entries.size());
+		commit(event, "saveAll", entries.size(), 0);
 	}
 
 	@Override
@@ -38,9 +68,18 @@ public class AnnouncementCacheAdapter implements AnnouncementCache {
 								  .map(q -> createId(q.getAuthorId(), q.getCreationTime()))
 								  .collect(toList());
 
-		return StreamSupport.stream(repository.findAllById(ids).spliterator(), false)
-							.map(AnnouncementEntry::toModel)
-							.collect(toList());
+		RedisRoundTripEvent event = new RedisRoundTripEvent();
+		event.begin();
+		List<Announcement> found = slowOperations.time("redis findAllById", () -> keys(ids),
+													   () -> StreamSupport.stream(repository.findAllById(ids).spliterator(), false)
+																		  .map(AnnouncementEntry::toModel)
+																		  .collect(toList()),
+													   List::size);
+		commit(event, "findAllById", ids.size(), found.size());
+		hits.increment(found.size());
+		misses.increment(ids.size() - found.size());
+
+		return found;
 	}
 
 	@Override
@@ -48,8 +87,86 @@ public class AnnouncementCacheAdapter implements AnnouncementCache {
 
 		String id = createId(query.getAuthorId(), query.getCreationTime());
 
-		return repository.findById(id)
-						 .map(AnnouncementEntry::toModel);
+		RedisRoundTripEvent event = new RedisRoundTripEvent();
+		event.begin();
+		Optional<Announcement> found = slowOperations.time("redis findById", () -> id,
+														   () -> repository.findById(id)
+																		   .map(AnnouncementEntry::toModel),
+														   result -> result.isPresent() ? 1 : 0);
+		commit(event, "findById", 1, found.isPresent() ? 1 : 0);
+		if (found.isPresent()) {
+			hits.increment();
+		} else {
+			misses.increment();
+		}
+
+		return found;
 	}
 
+	@Override
+	public void saveFirstCommentsPage(AnnouncementQuery announcement, Page<Comment> firstPage, long version) {
+
+		CommentsPageEntry entry = CommentsPageEntry.from(announcement, firstPage);
+
+		RedisRoundTripEvent event = new RedisRoundTripEvent();
+		event.begin();
+		slowOperations.time("redis save comments page", entry::getId,
+							() -> commentsPages.save(entry, version, firstCommentsPageTimeToLive),
+							saved -> saved ? 1 : 0);
+		commit(event, "saveCommentsPage", 1, 0);
+	}
+
+	@Override
+	public CommentsPageLookup getFirstCommentsPage(AnnouncementQuery announcement) {
+
+		String id = createId(announcement.getAuthorId(), announcement.getCreationTime());
+
+		RedisRoundTripEvent event = new RedisRoundTripEvent();
+		event.begin();
+		CommentsPageRedisCache.Lookup found = slowOperations.time("redis find comments page", () -> id,
+																  () -> commentsPages.findById(id),
+																  result -> result.getPage().isPresent() ? 1 : 0);
+		commit(event, "findCommentsPage", 1, found.getPage().isPresent() ? 1 : 0);
+
+		return found.getPage()
+					.map(entry -> CommentsPageLookup.hit(entry.toModel(announcement), found.getVersion()))
+					.orElseGet(() -> CommentsPageLookup.miss(found.getVersion()));
+	}
+
+	@Override
+	public void evictLastFirstCommentsPage(AnnouncementQuery announcement) {
+
+		String id = createId(announcement.getAuthorId(), announcement.getCreationTime());
+
+		RedisRoundTripEvent event = new RedisRoundTripEvent();
+		event.begin();
+		slowOperations.time("redis delete last comments page", () -> id, () -> {
+			commentsPages.deleteLastPageById(id, firstCommentsPageTimeToLive);
+			return null;
+		}, deleted -> 1);
+		commit(event, "deleteLastCommentsPage", 1, 0);
+	}
+
+	private static String keys(List<String> ids) {
+		int shown = Math.min(ids.size(), MAX_LOGGED_KEYS);
+		String keys = String.join(", ", ids.subList(0, shown));
+		return ids.size() > shown ? keys + " and " + (ids.size() - shown) + " more" : keys;
+	}
+
+	private static void commit(RedisRoundTripEvent event, String operation, int keys, int hits) {
+		event.end();
+		if (event.shouldCommit()) {
+			event.operation = operation;
+			event.keys = keys;
+			event.hits = hits;
+			event.commit();
+		}
+	}
+
+	private static Counter lookupCounter(String result, MeterRegistry meterRegistry) {
+		return Counter.builder("announcement.cache.lookups")
+					  .description("Announcements looked up in the cache")
+					  .tag("result", result)
+					  .register(meterRegistry);
+	}
 }
@@ -0,0 +1,98 @@
+package com.maciej.wojtaczka.announcementboard.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.maciej.wojtaczka.announcementboard.cache.entry.CommentsPageEntry;
+import lombok.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * First comments pages as plain string keys expiring on their own, so that nothing indexes them beyond their time to
+ * live. A page that is the last one as well is kept under its own key, which lets a new comment drop it without reading it.
+ * A new comment also bumps the version of the announcement's comments, and a page is saved only if the version is still
+ * the one read together with the miss, so that a page fetched before the comment does not replace the dropped one.
+ */
+@Repository
+public class CommentsPageRedisCache {
+
+	private static final String KEY_PREFIX = "comments-first-page:";
+	private static final String LAST_PAGE_KEY_PREFIX = KEY_PREFIX + "last:";
+	private static final String VERSION_KEY_PREFIX = KEY_PREFIX + "version:";
+
+	private static final RedisScript<Long> SAVE_IF_VERSION_UNCHANGED = RedisScript.of(
+			"if (redis.call('GET', KEYS[1]) or '0') ~= ARGV[1] then return 0 end "
+			+ "redis.call('SET', KEYS[2], ARGV[2], 'PX', ARGV[3]) "
+			+ "return 1", Long.class);
+	private static final RedisScript<Long> DELETE_LAST_PAGE_AND_BUMP_VERSION = RedisScript.of(
+			"redis.call('INCR', KEYS[1]) "
+			+ "redis.call('PEXPIRE', KEYS[1], ARGV[1]) "
+			+ "return redis.call('DEL', KEYS[2])", Long.class);
+
+	private final StringRedisTemplate redisTemplate;
+	private final ObjectMapper objectMapper;
+
+	public CommentsPageRedisCache(StringRedisTemplate redisTemplate, ObjectMapper objectMapper) {
+		this.redisTemplate = redisTemplate;
+		this.objectMapper = objectMapper;
+	}
+
+	/**
+	 * @return whether the page was saved, which it is not when a comment was placed since {@code version} was read
+	 */
+	public boolean save(CommentsPageEntry entry, long version, Duration timeToLive) {
+		String key = entry.getNextCursor() == null ? LAST_PAGE_KEY_PREFIX + entry.getId() : KEY_PREFIX + entry.getId();
+		try {
+			Long saved = redisTemplate.execute(SAVE_IF_VERSION_UNCHANGED, List.of(VERSION_KEY_PREFIX + entry.getId(), key),
+											   Long.toString(version), objectMapper.writeValueAsString(entry),
+											   Long.toString(timeToLive.toMillis()));
+			return saved != null && saved == 1;
+		} catch (JsonProcessingException e) {
+			throw new RuntimeException("Exception during json marshaling", e);
+		}
+	}
+
+	public Lookup findById(String id) {
+		List<String> values = redisTemplate.opsForValue()
+										   .multiGet(List.of(KEY_PREFIX + id, LAST_PAGE_KEY_PREFIX + id, VERSION_KEY_PREFIX + id));
+		if (values == null) {
+			return new Lookup(null, 0);
+		}
+		String page = values.get(0) != null ? values.get(0) : values.get(1);
+		long version = values.get(2) == null ? 0 : Long.parseLong(values.get(2));
+		return new Lookup(page == null ? null : read(page), version);
+	}
+
+	/**
+	 * The version has to outlive any fetch that read it before the comment, {@code versionTimeToLive} is counted from the
+	 * latest comment.
+	 */
+	public void deleteLastPageById(String id, Duration versionTimeToLive) {
+		redisTemplate.execute(DELETE_LAST_PAGE_AND_BUMP_VERSION, List.of(VERSION_KEY_PREFIX + id, LAST_PAGE_KEY_PREFIX + id),
+							  Long.toString(versionTimeToLive.toMillis()));
+	}
+
+	private CommentsPageEntry read(String json) {
+		try {
+			return objectMapper.readValue(json, CommentsPageEntry.class);
+		} catch (JsonProcessingException e) {
+			throw new RuntimeException("Exception during json unmarshaling", e);
+		}
+	}
+
+	@Value
+	public static class Lookup {
+
+		CommentsPageEntry page;
+		long version;
+
+		public Optional<CommentsPageEntry> getPage() {
+			return Optional.ofNullable(page);
+		}
+	}
+}
@@ -0,0 +1,22 @@
+package com.maciej.wojtaczka.announcementboard.cache;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.maciej.wojtaczka.announcementboard.RedisRoundTrip")
+@Label("Redis Round-Trip")
+@Description("A call to Redis made by AnnouncementCacheAdapter")
+@Category({ "Announcement Board", "Redis" })
+class RedisRoundTripEvent extends jdk.jfr.Event {
+
+	@Label("Operation")
+	String operation;
+
+	@Label("Keys")
+	int keys;
+
+	@Label("Hits")
+	int hits;
+}
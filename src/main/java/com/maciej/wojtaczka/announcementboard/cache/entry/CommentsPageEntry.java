@@ -0,0 +1,71 @@
+package com.maciej.wojtaczka.announcementboard.cache.entry;
+
+import com.maciej.wojtaczka.announcementboard.domain.model.Comment;
+import com.maciej.wojtaczka.announcementboard.domain.query.AnnouncementQuery;
+import com.maciej.wojtaczka.announcementboard.domain.query.Page;
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * First page of comments of an announcement.
+ */
+@Builder
+@Value
+public class CommentsPageEntry {
+
+	String id;
+	List<CommentEntry> comments;
+	String nextCursor;
+
+	public static CommentsPageEntry from(AnnouncementQuery announcement, Page<Comment> page) {
+		return CommentsPageEntry.builder()
+								.id(AnnouncementEntry.createId(announcement.getAuthorId(), announcement.getCreationTime()))
+								.comments(page.getItems().stream()
+											  .map(CommentEntry::from)
+											  .collect(toList()))
+								.nextCursor(page.getNextCursor())
+								.build();
+	}
+
+	public Page<Comment> toModel(AnnouncementQuery announcement) {
+		List<Comment> items = comments == null ? List.of() : comments.stream()
+																	 .map(comment -> comment.toModel(announcement))
+																	 .collect(toList());
+		return new Page<>(items, nextCursor);
+	}
+
+	@Builder
+	@Value
+	public static class CommentEntry {
+		UUID authorId;
+		String authorNickname;
+		String content;
+		Instant creationTime;
+
+		static CommentEntry from(Comment comment) {
+			return CommentEntry.builder()
+							   .authorId(comment.getAuthorId())
+							   .authorNickname(comment.getAuthorNickname())
+							   .content(comment.getContent())
+							   .creationTime(comment.getCreationTime())
+							   .build();
+		}
+
+		Comment toModel(AnnouncementQuery announcement) {
+			return Comment.builder()
+						  .announcementAuthorId(announcement.getAuthorId())
+						  .announcementCreationTime(announcement.getCreationTime())
+						  .authorId(authorId)
+						  .authorNickname(authorNickname)
+						  .content(content)
+						  .creationTime(creationTime)
+						  .build();
+		}
+	}
+}
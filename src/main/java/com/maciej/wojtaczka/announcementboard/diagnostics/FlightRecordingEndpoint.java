@@ -0,0 +1,126 @@
+package com.maciej.wojtaczka.announcementboard.diagnostics;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Starts and stops a JDK Flight Recorder recording of the announcement board events together with the JVM ones
+ * (GC, locks, I/O). A recording is always bounded in time and size; when it stops it is written to
+ * {@code announcement-board.jfr.directory}. Not exposed over HTTP by default, it is unauthenticated.
+ * <pre>
+ * ACTUATOR_EXPOSURE=health,metrics,flightrecording
+ * curl -X POST localhost:8080/actuator/flightrecording -H 'Content-Type: application/json' -d '{"durationSeconds": 120}'
+ * curl -X DELETE localhost:8080/actuator/flightrecording
+ * </pre>
+ */
+@Slf4j
+@Component
+@Endpoint(id = "flightrecording")
+public class FlightRecordingEndpoint {
+
+	private static final String SETTINGS = "profile";
+	private static final Duration MAX_DURATION = Duration.ofHours(1);
+	private static final long MAX_SIZE_MEGABYTES = 512;
+
+	private final Path directory;
+	private final Duration defaultDuration;
+	private final long defaultMaxSizeMegabytes;
+
+	private Recording recording;
+
+	public FlightRecordingEndpoint(@Value("${announcement-board.jfr.directory:.}") String directory,
+								   @Value("${announcement-board.jfr.default-duration:5m}") Duration defaultDuration,
+								   @Value("${announcement-board.jfr.default-max-size-megabytes:100}") long defaultMaxSizeMegabytes) {
+		this.directory = Path.of(directory);
+		this.defaultDuration = defaultDuration;
+		this.defaultMaxSizeMegabytes = defaultMaxSizeMegabytes;
+	}
+
+	@ReadOperation
+	public synchronized Map<String, Object> status() {
+		return describe(recording);
+	}
+
+	@WriteOperation
+	public synchronized Map<String, Object> start(@Nullable Long durationSeconds, @Nullable Long maxSizeMegabytes) throws IOException, ParseException {
+		if (recording != null && recording.getState() == RecordingState.RUNNING) {
+			throw new IllegalStateException("Recording " + recording.getName() + " is already running");
+		}
+		Duration duration = durationSeconds != null ? Duration.ofSeconds(durationSeconds) : defaultDuration;
+		long maxSize = maxSizeMegabytes != null ? maxSizeMegabytes : defaultMaxSizeMegabytes;
+		if (duration.compareTo(MAX_DURATION) > 0 || duration.isNegative() || duration.isZero()) {
+			throw new IllegalArgumentException("Recording duration must be between 1 second and " + MAX_DURATION);
+		}
+		if (maxSize <= 0 || maxSize > MAX_SIZE_MEGABYTES) {
+			throw new IllegalArgumentException("Recording size must be between 1 and " + MAX_SIZE_MEGABYTES + " MB");
+		}
+
+		Files.createDirectories(directory);
+		String name = "announcement-board-" + Instant.now().toEpochMilli();
+		Recording newRecording = new Recording(Configuration.getConfiguration(SETTINGS));
+		newRecording.setName(name);
+		newRecording.setToDisk(true);
+		newRecording.setDuration(duration);
+		newRecording.setMaxSize(maxSize * 1024 * 1024);
+		newRecording.setDestination(directory.resolve(name + ".jfr"));
+		newRecording.start();
+
+		if (recording != null) {
+			recording.close();
+		}
+		recording = newRecording;
+		log.info("Started flight recording {} for {}", name, duration);
+		return describe(recording);
+	}
+
+	@DeleteOperation
+	public synchronized Map<String, Object> stop() {
+		if (recording == null || recording.getState() != RecordingState.RUNNING) {
+			return describe(recording);
+		}
+		recording.stop();
+		log.info("Stopped flight recording {}, written to {}", recording.getName(), recording.getDestination());
+		return describe(recording);
+	}
+
+	@PreDestroy
+	public synchronized void close() {
+		if (recording != null) {
+			recording.close();
+		}
+	}
+
+	private static Map<String, Object> describe(Recording recording) {
+		Map<String, Object> status = new LinkedHashMap<>();
+		if (recording == null) {
+			status.put("state", "NONE");
+			return status;
+		}
+		status.put("name", recording.getName());
+		status.put("state", recording.getState());
+		status.put("startTime", recording.getStartTime());
+		status.put("duration", recording.getDuration());
+		status.put("maxSizeBytes", recording.getMaxSize());
+		status.put("destination", String.valueOf(recording.getDestination()));
+		return status;
+	}
+}
@@ -0,0 +1,47 @@
+package com.maciej.wojtaczka.announcementboard.diagnostics;
+
+import com.maciej.wojtaczka.announcementboard.domain.hotkeys.HotKeys;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * The most queried and commented authors and announcements, heaviest first, with estimated request counts. Not exposed
+ * over HTTP by default, it is unauthenticated.
+ */
+@Component
+@Endpoint(id = "hotkeys")
+public class HotKeysEndpoint {
+
+	private final HotKeys hotKeys;
+
+	public HotKeysEndpoint(HotKeys hotKeys) {
+		this.hotKeys = hotKeys;
+	}
+
+	@ReadOperation
+	public Map<String, List<Map<String, Object>>> hotKeys() {
+		Map<String, List<Map<String, Object>>> hotKeys = new LinkedHashMap<>();
+		hotKeys.put("authors", this.hotKeys.topAuthors().stream()
+										   .map(entry -> entry(Map.of("authorId", entry.getKey().toString()), entry.getCount()))
+										   .collect(toList()));
+		hotKeys.put("announcements", this.hotKeys.topAnnouncements().stream()
+												 .map(entry -> entry(Map.of("authorId", entry.getKey().getAuthorId().toString(),
+																			"creationTime", entry.getKey().getCreationTime().toString()),
+																	 entry.getCount()))
+												 .collect(toList()));
+		return hotKeys;
+	}
+
+	private static Map<String, Object> entry(Map<String, String> key, long count) {
+		Map<String, Object> entry = new LinkedHashMap<>(key);
+		entry.put("count", count);
+		return entry;
+	}
+}
@@ -0,0 +1,89 @@
+package com.maciej.wojtaczka.announcementboard.diagnostics;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * Logs Cassandra and Redis calls that took longer than {@code announcement-board.slow-operations.threshold}, together with
+ * the statement or key, the number of rows and the elapsed time. Faster calls are logged only for a
+ * {@code announcement-board.slow-operations.sample-rate} fraction of them, so that there is a baseline to compare with
+ * while the log volume stays bounded.
+ * The statement text is built only for calls that are logged.
+ */
+@Slf4j
+@Component
+public class SlowOperationLog {
+
+	public static final ToIntFunction<Object> SINGLE_ROW = result -> result == null ? 0 : 1;
+
+	private final long thresholdNanos;
+	private final double sampleRate;
+
+	public SlowOperationLog(@Value("${announcement-board.slow-operations.threshold:100ms}") Duration threshold,
+							@Value("${announcement-board.slow-operations.sample-rate:0.001}") double sampleRate) {
+		this.thresholdNanos = threshold.toNanos();
+		this.sampleRate = sampleRate;
+	}
+
+	public <T> T time(String operation, Supplier<String> statement, Supplier<T> call, ToIntFunction<? super T> rowCount) {
+		long startNanos = System.nanoTime();
+		T result;
+		try {
+			result = call.get();
+		} catch (RuntimeException e) {
+			long elapsedNanos = System.nanoTime() - startNanos;
+			if (shouldLog(elapsedNanos)) {
+				report(operation, statement, elapsedNanos, -1);
+			}
+			throw e;
+		}
+		long elapsedNanos = System.nanoTime() - startNanos;
+		if (shouldLog(elapsedNanos)) {
+			report(operation, statement, elapsedNanos, rowCount.applyAsInt(result));
+		}
+		return result;
+	}
+
+	public void time(String operation, Supplier<String> statement, Runnable call) {
+		time(operation, statement, () -> {
+			call.run();
+			return null;
+		}, result -> 1);
+	}
+
+	public <T> CompletableFuture<T> timeAsync(String operation,
+											  Supplier<String> statement,
+											  Supplier<CompletableFuture<T>> call,
+											  ToIntFunction<? super T> rowCount) {
+		long startNanos = System.nanoTime();
+		return call.get()
+				   .whenComplete((result, error) -> {
+					   long elapsedNanos = System.nanoTime() - startNanos;
+					   if (shouldLog(elapsedNanos)) {
+						   report(operation, statement, elapsedNanos, error != null ? -1 : rowCount.applyAsInt(result));
+					   }
+				   });
+	}
+
+	private boolean shouldLog(long elapsedNanos) {
+		return elapsedNanos >= thresholdNanos || (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate);
+	}
+
+	private void report(String operation, Supplier<String> statement, long elapsedNanos, int rows) {
+		long elapsedMicros = TimeUnit.NANOSECONDS.toMicros(elapsedNanos);
+		String outcome = rows < 0 ? "failed" : rows + " rows";
+		if (elapsedNanos >= thresholdNanos) {
+			log.warn("Slow {}: {} us, {}, {}", operation, elapsedMicros, outcome, statement.get());
+		} else {
+			log.info("Sampled {}: {} us, {}, {}", operation, elapsedMicros, outcome, statement.get());
+		}
+	}
+}
@@ -1,18 +1,34 @@
 package com.maciej.wojtaczka.announcementboard.domain;
 
+import com.maciej.wojtaczka.announcementboard.domain.dto.AnnouncementDraft;
 import com.maciej.wojtaczka.announcementboard.domain.exception.AnnouncementException;
 import com.maciej.wojtaczka.announcementboard.domain.exception.UserException;
+import com.maciej.wojtaczka.announcementboard.domain.hotkeys.HotKeys;
 import com.maciej.wojtaczka.announcementboard.domain.model.Announcement;
 import com.maciej.wojtaczka.announcementboard.domain.model.Comment;
 import com.maciej.wojtaczka.announcementboard.domain.model.User;
 import com.maciej.wojtaczka.announcementboard.domain.query.AnnouncementQuery;
+import com.maciej.wojtaczka.announcementboard.domain.query.CommentCursor;
+import com.maciej.wojtaczka.announcementboard.domain.query.Page;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Scope;
 import org.springframework.stereotype.Service;
 
+import java.time.Clock;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -23,19 +39,39 @@ import static java.util.stream.Collectors.toList;
 @Service
 public class AnnouncementBoardService {
 
+	static final int MAX_PAGE_SIZE = 100;
+	static final int MAX_BULK_SIZE = 1000;
+
 	private final UserService userService;
 	private final DomainEventPublisher domainEventPublisher;
 	private final AnnouncementRepository repository;
 	private final AnnouncementCache cache;
 
+	private final Timer fetchTimer;
+	private final DistributionSummary fetchBatchSize;
+	private final Tracer tracer;
+	private final HotKeys hotKeys;
+	private final CreationTimeAllocator creationTimes = new CreationTimeAllocator(Clock.systemUTC());
+
 	public AnnouncementBoardService(UserService userService,
 									DomainEventPublisher domainEventPublisher,
 									AnnouncementRepository repository,
-									AnnouncementCache cache) {
+									AnnouncementCache cache,
+									MeterRegistry meterRegistry,
+									Tracer tracer,
+									HotKeys hotKeys) {
 		this.userService = userService;
 		this.domainEventPublisher = domainEventPublisher;
 		this.repository = repository;
 		this.cache = cache;
+		this.fetchTimer = Timer.builder("announcement.fetch")
+							   .description("Time to answer a batch of announcement queries")
+							   .register(meterRegistry);
+		this.fetchBatchSize = DistributionSummary.builder("announcement.fetch.batch.size")
+												 .description("Number of announcement queries in a fetch batch")
+												 .register(meterRegistry);
+		this.tracer = tracer;
+		this.hotKeys = hotKeys;
 	}
 
 	public Announcement publishAnnouncement(UUID authorId, String content) {
@@ -43,7 +79,7 @@ public class AnnouncementBoardService {
 		User announcer = userService.fetchUser(authorId)
 									.orElseThrow(() -> UserException.notFound(authorId));
 
-		Announcement announcement = announcer.publishAnnouncement(content);
+		Announcement announcement = announcer.publishAnnouncement(content, creationTimes.allocate(authorId, 1));
 
 		Announcement savedAnnouncement = repository.save(announcement);
 
@@ -53,22 +89,74 @@ public class AnnouncementBoardService {
 		return savedAnnouncement;
 	}
 
+	/**
+	 * Publishes the drafts, answering in their order with the announcement of each draft, or nothing for a draft that could
+	 * not be saved. Nothing is saved unless all the authors exist, and events are published only for the saved announcements.
+	 */
+	public List<Optional<Announcement>> publishAnnouncements(List<AnnouncementDraft> drafts) {
+
+		if (drafts.size() > MAX_BULK_SIZE) {
+			throw AnnouncementException.tooManyToPublish(drafts.size(), MAX_BULK_SIZE);
+		}
+
+		Map<UUID, List<Integer>> draftsByAuthor = new LinkedHashMap<>();
+		for (int i = 0; i < drafts.size(); i++) {
+			draftsByAuthor.computeIfAbsent(drafts.get(i).getAuthorId(), authorId -> new ArrayList<>()).add(i);
+		}
+
+		Map<UUID, User> announcers = inSpan("fetch announcers", () -> userService.fetchUsers(draftsByAuthor.keySet()));
+		draftsByAuthor.keySet().stream()
+					  .filter(authorId -> !announcers.containsKey(authorId))
+					  .findFirst()
+					  .ifPresent(authorId -> {
+						  throw UserException.notFound(authorId);
+					  });
+
+		Announcement[] announcements = new Announcement[drafts.size()];
+		List<DomainEvent<?>> events = new ArrayList<>(drafts.size());
+		draftsByAuthor.forEach((authorId, draftIndexes) -> {
+			User announcer = announcers.get(authorId);
+			List<String> contents = draftIndexes.stream()
+												.map(i -> drafts.get(i).getContent())
+												.collect(toList());
+			List<Announcement> published = announcer.publishAnnouncements(contents, creationTimes.allocate(authorId, contents.size()));
+			for (int i = 0; i < draftIndexes.size(); i++) {
+				announcements[draftIndexes.get(i)] = published.get(i);
+			}
+			events.addAll(announcer.getDomainEvents());
+		});
+
+		Set<Announcement> saved = Set.copyOf(inSpan("save announcements", () -> repository.saveAll(List.of(announcements))));
+
+		List<DomainEvent<?>> savedEvents = events.stream()
+												 .filter(event -> saved.contains(event.getPayload()))
+												 .collect(toList());
+		inSpan("publish events", () -> domainEventPublisher.publishAll(savedEvents));
+
+		return Stream.of(announcements)
+					 .map(announcement -> Optional.of(announcement).filter(saved::contains))
+					 .collect(toList());
+	}
+
 	public void placeComment(UUID commentAuthorId,
 							 String commentContent,
 							 UUID announcementAuthorId,
 							 Instant announcementCreationTime) {
 
-		User commenter = userService.fetchUser(commentAuthorId)
-									.orElseThrow(() -> UserException.notFound(commentAuthorId));
+		hotKeys.recordComment(new AnnouncementQuery(announcementAuthorId, announcementCreationTime));
+
+		User commenter = inSpan("fetch commenter", () -> userService.fetchUser(commentAuthorId))
+				.orElseThrow(() -> UserException.notFound(commentAuthorId));
 
-		Announcement announcement = repository.fetchOne(announcementAuthorId, announcementCreationTime)
-											  .orElseThrow(() -> AnnouncementException.notFound(announcementAuthorId, announcementCreationTime));
+		Announcement announcement = inSpan("fetch announcement", () -> repository.fetchOne(announcementAuthorId, announcementCreationTime))
+				.orElseThrow(() -> AnnouncementException.notFound(announcementAuthorId, announcementCreationTime));
 
 		Comment comment = commenter.commentAnnouncement(commentContent, announcement);
 
-		cache.getOne(new AnnouncementQuery(announcementAuthorId, announcementCreationTime))
-			 .ifPresent(old -> cache.saveAll(List.of(announcement)));
-		repository.saveAnnouncementComment(comment);
+		inSpan("cache update", () -> cache.getOne(new AnnouncementQuery(announcementAuthorId, announcementCreationTime))
+										  .ifPresent(old -> cache.saveAll(List.of(announcement))));
+		inSpan("save comment", () -> repository.saveAnnouncementComment(comment));
+		inSpan("comments cache update", () -> cache.evictLastFirstCommentsPage(new AnnouncementQuery(announcementAuthorId, announcementCreationTime)));
 
 		commenter.getDomainEvents()
 				 .forEach(domainEventPublisher::publish);
@@ -76,7 +164,79 @@ public class AnnouncementBoardService {
 
 	public List<AnnouncementQuery.Result> fetchAll(List<AnnouncementQuery> queries) {
 
-		Map<AnnouncementQuery, Announcement> cached = cacheLookup(queries);
+		fetchBatchSize.record(queries.size());
+		hotKeys.recordFetch(queries);
+		Span span = tracer.spanBuilder("fetch announcements")
+						  .setAttribute("announcement.query.count", queries.size())
+						  .startSpan();
+		FetchAnnouncementsEvent event = new FetchAnnouncementsEvent();
+		event.begin();
+		try (Scope ignored = span.makeCurrent()) {
+			return fetchTimer.record(() -> doFetchAll(queries, span, event));
+		} finally {
+			span.end();
+			event.end();
+			if (event.shouldCommit()) {
+				event.queryCount = queries.size();
+				event.commit();
+			}
+		}
+	}
+
+	public Page<Announcement> fetchTimeline(UUID authorId, int pageSize, String cursor) {
+		int boundedPageSize = boundPageSize(pageSize);
+		return inSpan("fetch timeline", () -> repository.fetchTimeline(authorId, boundedPageSize, cursor));
+	}
+
+	public Page<Comment> fetchUserComments(UUID userId, int pageSize, String cursor) {
+		int boundedPageSize = boundPageSize(pageSize);
+		return inSpan("fetch user comments", () -> repository.fetchUserComments(userId, boundedPageSize, cursor));
+	}
+
+	/**
+	 * The first page of a hot announcement is served from the cache, which holds {@value #MAX_PAGE_SIZE} comments so that
+	 * it can answer any page size. A new comment drops the cached page only if it is the last one as well, since comments
+	 * are ordered by creation time and the new one comes after any page followed by others. A page fetched on a miss is
+	 * written back only if no comment was placed since the miss, otherwise it could hide that comment until it expires.
+	 */
+	public Page<Comment> fetchComments(UUID announcementAuthorId, Instant announcementCreationTime, int pageSize, String cursor) {
+		AnnouncementQuery announcement = new AnnouncementQuery(announcementAuthorId, announcementCreationTime);
+		hotKeys.recordFetch(List.of(announcement));
+		int boundedPageSize = boundPageSize(pageSize);
+		if (cursor != null) {
+			CommentCursor after = CommentCursor.decode(cursor);
+			return inSpan("fetch comments", () -> repository.fetchComments(announcement, boundedPageSize, after));
+		}
+		if (!hotKeys.isHot(announcement)) {
+			return inSpan("fetch comments", () -> repository.fetchComments(announcement, boundedPageSize, null));
+		}
+
+		CommentsPageLookup cached = inSpan("comments cache lookup", () -> cache.getFirstCommentsPage(announcement));
+		Page<Comment> firstPage = cached.getPage().orElseGet(() -> {
+			Page<Comment> fetched = inSpan("fetch comments", () -> repository.fetchComments(announcement, MAX_PAGE_SIZE, null));
+			inSpan("comments cache write-back", () -> cache.saveFirstCommentsPage(announcement, fetched, cached.getVersion()));
+			return fetched;
+		});
+		return leading(firstPage, boundedPageSize);
+	}
+
+	private static Page<Comment> leading(Page<Comment> page, int pageSize) {
+		if (page.getItems().size() <= pageSize) {
+			return page;
+		}
+		List<Comment> leading = List.copyOf(page.getItems().subList(0, pageSize));
+		return new Page<>(leading, CommentCursor.after(leading.get(pageSize - 1)).encode());
+	}
+
+	private static int boundPageSize(int pageSize) {
+		return Math.max(1, Math.min(pageSize, MAX_PAGE_SIZE));
+	}
+
+	private List<AnnouncementQuery.Result> doFetchAll(List<AnnouncementQuery> queries, Span span, FetchAnnouncementsEvent event) {
+
+		Map<AnnouncementQuery, Announcement> cached = inSpan("cache lookup", () -> cacheLookup(queries));
+		span.setAttribute("announcement.cache.hits", cached.size());
+		event.cacheHits = cached.size();
 
 		List<AnnouncementQuery> queriesForDb = queries.stream()
 													  .filter(q -> !cached.containsKey(q))
@@ -87,16 +247,36 @@ public class AnnouncementBoardService {
 							.collect(groupingBy(AnnouncementQuery::getAuthorId,
 												mapping(AnnouncementQuery::getCreationTime, toList())));
 
+		span.setAttribute("announcement.db.author.count", authorIdToCreationTimes.size());
+		event.dbAuthorCount = authorIdToCreationTimes.size();
+
 		List<Announcement> fromRepo = repository.fetchAll(authorIdToCreationTimes);
-		cache.saveAll(fromRepo);
+		event.announcementCount = cached.size() + fromRepo.size();
+		inSpan("cache write-back", () -> cache.saveAll(fromRepo));
 
-		return Stream.concat(
+		return inSpan("combine", () -> Stream.concat(
 				cached.values().stream(), fromRepo.stream())
-					 .distinct()
-					 .collect(groupingBy(Announcement::getAuthorId))
-					 .entrySet().stream()
-					 .map(AnnouncementQuery.Result::of)
-					 .collect(toList());
+											 .distinct()
+											 .collect(groupingBy(Announcement::getAuthorId))
+											 .entrySet().stream()
+											 .map(AnnouncementQuery.Result::of)
+											 .collect(toList()));
+	}
+
+	private <T> T inSpan(String name, Supplier<T> stage) {
+		Span span = tracer.spanBuilder(name).startSpan();
+		try (Scope ignored = span.makeCurrent()) {
+			return stage.get();
+		} finally {
+			span.end();
+		}
+	}
+
+	private void inSpan(String name, Runnable stage) {
+		inSpan(name, () -> {
+			stage.run();
+			return null;
+		});
 	}
 
 	private Map<AnnouncementQuery, Announcement> cacheLookup(List<AnnouncementQuery> queries) {
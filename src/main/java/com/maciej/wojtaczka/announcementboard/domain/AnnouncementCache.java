@@ -1,7 +1,9 @@
 package com.maciej.wojtaczka.announcementboard.domain;
 
 import com.maciej.wojtaczka.announcementboard.domain.model.Announcement;
+import com.maciej.wojtaczka.announcementboard.domain.model.Comment;
 import com.maciej.wojtaczka.announcementboard.domain.query.AnnouncementQuery;
+import com.maciej.wojtaczka.announcementboard.domain.query.Page;
 
 import java.util.List;
 import java.util.Optional;
@@ -13,4 +15,17 @@ public interface AnnouncementCache {
 	List<Announcement> get(List<AnnouncementQuery> queries);
 
 	Optional<Announcement> getOne(AnnouncementQuery query);
+
+	/**
+	 * Saves the page unless the version of the announcement's comments moved on from the one it was looked up with.
+	 */
+	void saveFirstCommentsPage(AnnouncementQuery announcement, Page<Comment> firstPage, long version);
+
+	CommentsPageLookup getFirstCommentsPage(AnnouncementQuery announcement);
+
+	/**
+	 * Drops the cached first page only if it is the last page as well, without reading it, and moves the version of the
+	 * announcement's comments on, so that pages fetched before are not written back.
+	 */
+	void evictLastFirstCommentsPage(AnnouncementQuery announcement);
 }
@@ -2,6 +2,9 @@ package com.maciej.wojtaczka.announcementboard.domain;
 
 import com.maciej.wojtaczka.announcementboard.domain.model.Announcement;
 import com.maciej.wojtaczka.announcementboard.domain.model.Comment;
+import com.maciej.wojtaczka.announcementboard.domain.query.AnnouncementQuery;
+import com.maciej.wojtaczka.announcementboard.domain.query.CommentCursor;
+import com.maciej.wojtaczka.announcementboard.domain.query.Page;
 
 import java.time.Instant;
 import java.util.List;
@@ -13,9 +16,32 @@ public interface AnnouncementRepository {
 
 	Announcement save(Announcement announcement);
 
+	/**
+	 * Saves the announcements together, as few writes as there are partitions they go to, and returns those that were
+	 * saved. Fails only if none was.
+	 */
+	List<Announcement> saveAll(List<Announcement> announcements);
+
 	void saveAnnouncementComment(Comment comment);
 
 	List<Announcement> fetchAll(Map<UUID, List<Instant>> authorIdToCreationTimes);
 
 	Optional<Announcement> fetchOne(UUID authorId, Instant creationTime);
+
+	/**
+	 * Announcements of the author, newest first, starting where the page behind {@code cursor} ended or at the newest one
+	 * when it is {@code null}.
+	 */
+	Page<Announcement> fetchTimeline(UUID authorId, int pageSize, String cursor);
+
+	/**
+	 * Comments of the announcement, oldest first, starting after {@code after} or at the oldest one when it is {@code null}.
+	 */
+	Page<Comment> fetchComments(AnnouncementQuery announcement, int pageSize, CommentCursor after);
+
+	/**
+	 * Comments the user wrote on any announcement, newest first, starting where the page behind {@code cursor} ended or at
+	 * the newest one when it is {@code null}.
+	 */
+	Page<Comment> fetchUserComments(UUID userId, int pageSize, String cursor);
 }
@@ -0,0 +1,30 @@
+package com.maciej.wojtaczka.announcementboard.domain;
+
+import com.maciej.wojtaczka.announcementboard.domain.model.Comment;
+import com.maciej.wojtaczka.announcementboard.domain.query.Page;
+import lombok.Value;
+
+import java.util.Optional;
+
+/**
+ * The cached first comments page of an announcement, if any, and the version of its comments when it was looked up. A page
+ * fetched on a miss is written back with that version, so that it is dropped if a comment was placed in the meantime.
+ */
+@Value
+public class CommentsPageLookup {
+
+	Page<Comment> page;
+	long version;
+
+	public static CommentsPageLookup hit(Page<Comment> page, long version) {
+		return new CommentsPageLookup(page, version);
+	}
+
+	public static CommentsPageLookup miss(long version) {
+		return new CommentsPageLookup(null, version);
+	}
+
+	public Optional<Page<Comment>> getPage() {
+		return Optional.ofNullable(page);
+	}
+}
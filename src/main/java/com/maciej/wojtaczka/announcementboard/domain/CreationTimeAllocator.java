@@ -0,0 +1,41 @@
+package com.maciej.wojtaczka.announcementboard.domain;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hands out creation times of an author's announcements that no other announcement of the author got from this instance,
+ * since storage keeps them to the millisecond and an announcement created at a taken time would overwrite the other one.
+ * Times start at the current millisecond, or right after the last one handed out to the author if that is later. Only the
+ * authors whose last time is not yet in the past are remembered.
+ */
+class CreationTimeAllocator {
+
+	private static final int CLEANUP_THRESHOLD = 10_000;
+
+	private final Clock clock;
+	private final Map<UUID, Instant> lastAllocated = new ConcurrentHashMap<>();
+
+	CreationTimeAllocator(Clock clock) {
+		this.clock = clock;
+	}
+
+	/**
+	 * The first of {@code count} consecutive milliseconds reserved for the author.
+	 */
+	Instant allocate(UUID authorId, int count) {
+		Instant now = clock.instant().truncatedTo(ChronoUnit.MILLIS);
+		if (lastAllocated.size() > CLEANUP_THRESHOLD) {
+			lastAllocated.values().removeIf(last -> last.isBefore(now));
+		}
+		Instant last = lastAllocated.compute(authorId, (id, previous) -> {
+			Instant first = previous == null || previous.isBefore(now) ? now : previous.plusMillis(1);
+			return first.plusMillis(count - 1);
+		});
+		return last.minusMillis(count - 1);
+	}
+}
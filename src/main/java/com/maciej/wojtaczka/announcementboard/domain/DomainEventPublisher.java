@@ -1,6 +1,13 @@
 package com.maciej.wojtaczka.announcementboard.domain;
 
+import java.util.List;
+
 public interface DomainEventPublisher {
 
 	void publish(DomainEvent<?> domainEvent);
+
+	/**
+	 * Sends the events together instead of one by one.
+	 */
+	void publishAll(List<DomainEvent<?>> domainEvents);
 }
@@ -0,0 +1,25 @@
+package com.maciej.wojtaczka.announcementboard.domain;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.maciej.wojtaczka.announcementboard.FetchAnnouncements")
+@Label("Fetch Announcements")
+@Description("A batch of announcement queries answered by AnnouncementBoardService")
+@Category({ "Announcement Board", "Domain" })
+class FetchAnnouncementsEvent extends jdk.jfr.Event {
+
+	@Label("Queries")
+	int queryCount;
+
+	@Label("Cache Hits")
+	int cacheHits;
+
+	@Label("Authors Fetched From Database")
+	int dbAuthorCount;
+
+	@Label("Announcements Returned")
+	int announcementCount;
+}
@@ -2,10 +2,17 @@ package com.maciej.wojtaczka.announcementboard.domain;
 
 import com.maciej.wojtaczka.announcementboard.domain.model.User;
 
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 public interface UserService {
 
 	Optional<User> fetchUser(UUID userId); 
+
+	/**
+	 * The users that exist, by id, looked up at once.
+	 */
+	Map<UUID, User> fetchUsers(Set<UUID> userIds);
 }
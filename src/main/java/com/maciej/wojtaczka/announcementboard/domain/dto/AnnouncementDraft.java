@@ -0,0 +1,12 @@
+package com.maciej.wojtaczka.announcementboard.domain.dto;
+
+import lombok.Value;
+
+import java.util.UUID;
+
+@Value
+public class AnnouncementDraft {
+
+	UUID authorId;
+	String content;
+}
@@ -12,4 +12,12 @@ public class AnnouncementException extends RuntimeException {
 	public static AnnouncementException notFound(UUID userId, Instant instant) {
 		return new AnnouncementException(String.format("Announcement from user with id: %s created at %s not found", userId, instant));
 	}
+
+	public static AnnouncementException tooManyToPublish(int count, int max) {
+		return new AnnouncementException(String.format("Cannot publish %d announcements at once, at most %d are allowed", count, max));
+	}
+
+	public static AnnouncementException invalidCursor(String cursor) {
+		return new AnnouncementException(String.format("Invalid page cursor: %s", cursor));
+	}
 }
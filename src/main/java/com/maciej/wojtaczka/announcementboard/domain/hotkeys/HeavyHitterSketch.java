@@ -0,0 +1,125 @@
+package com.maciej.wojtaczka.announcementboard.domain.hotkeys;
+
+import lombok.Value;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
+
+/**
+ * Count-Min sketch with a top-K candidate set, safe for concurrent updates without locks.
+ * Counts never underestimate and overestimate by at most {@code 2 * total / width} with probability
+ * {@code 1 - 0.5^depth}. Keys enter the candidate set once their estimate reaches the smallest count that was kept
+ * when the set was last pruned; the set grows to twice the capacity before one of the updating threads prunes it.
+ */
+public class HeavyHitterSketch<K> {
+
+	private static final long[] SEEDS = { 0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L, 0xD6E8FEB86659FD93L,
+										  0xFF51AFD7ED558CCDL, 0xC4CEB9FE1A85EC53L, 0x27D4EB2F165667C5L, 0x94D049BB133111EBL };
+
+	private final int depth;
+	private final int widthMask;
+	private final int capacity;
+	private final AtomicLongArray counts;
+	private final Map<K, Long> candidates = new ConcurrentHashMap<>();
+	private final AtomicBoolean pruning = new AtomicBoolean();
+	private volatile long admissionThreshold;
+
+	/**
+	 * @param width rounded up to a power of two
+	 * @param depth at most 8
+	 * @param capacity number of heaviest keys reported by {@link #top()}
+	 */
+	public HeavyHitterSketch(int width, int depth, int capacity) {
+		if (depth < 1 || depth > SEEDS.length) {
+			throw new IllegalArgumentException("Depth must be between 1 and " + SEEDS.length);
+		}
+		int roundedWidth = Integer.highestOneBit(Math.max(1, width - 1)) << 1;
+		this.depth = depth;
+		this.widthMask = roundedWidth - 1;
+		this.capacity = capacity;
+		this.counts = new AtomicLongArray(roundedWidth * depth);
+	}
+
+	public long add(K key, long increment) {
+		long hash = key.hashCode();
+		long estimate = Long.MAX_VALUE;
+		for (int row = 0; row < depth; row++) {
+			estimate = Math.min(estimate, counts.addAndGet(cell(hash, row), increment));
+		}
+		if (estimate >= admissionThreshold) {
+			candidates.put(key, estimate);
+			if (candidates.size() > 2 * capacity) {
+				prune();
+			}
+		}
+		return estimate;
+	}
+
+	public long estimate(K key) {
+		long hash = key.hashCode();
+		long estimate = Long.MAX_VALUE;
+		for (int row = 0; row < depth; row++) {
+			estimate = Math.min(estimate, counts.get(cell(hash, row)));
+		}
+		return estimate;
+	}
+
+	/**
+	 * The heaviest keys, heaviest first, with their current estimates.
+	 */
+	public List<Entry<K>> top() {
+		return candidates.keySet().stream()
+						 .map(key -> new Entry<>(key, estimate(key)))
+						 .sorted(Comparator.comparingLong(Entry<K>::getCount).reversed())
+						 .limit(capacity)
+						 .collect(toList());
+	}
+
+	/**
+	 * Halves every count, so that keys which stopped being queried fall out of the top over time.
+	 */
+	public void decay() {
+		for (int i = 0; i < counts.length(); i++) {
+			long count = counts.get(i);
+			counts.addAndGet(i, -(count - count / 2));
+		}
+		admissionThreshold /= 2;
+		candidates.replaceAll((key, count) -> count / 2);
+	}
+
+	private void prune() {
+		if (!pruning.compareAndSet(false, true)) {
+			return;
+		}
+		try {
+			List<Entry<K>> heaviest = top();
+			candidates.keySet().retainAll(heaviest.stream().map(Entry::getKey).collect(toSet()));
+			if (heaviest.size() == capacity) {
+				admissionThreshold = heaviest.get(capacity - 1).getCount();
+			}
+		} finally {
+			pruning.set(false);
+		}
+	}
+
+	private int cell(long hash, int row) {
+		long mixed = hash + SEEDS[row];
+		mixed = (mixed ^ (mixed >>> 30)) * 0xBF58476D1CE4E5B9L;
+		mixed = (mixed ^ (mixed >>> 27)) * 0x94D049BB133111EBL;
+		mixed ^= mixed >>> 31;
+		return row * (widthMask + 1) + (int) (mixed & widthMask);
+	}
+
+	@Value
+	public static class Entry<K> {
+		K key;
+		long count;
+	}
+}
@@ -0,0 +1,73 @@
+package com.maciej.wojtaczka.announcementboard.domain.hotkeys;
+
+import com.maciej.wojtaczka.announcementboard.domain.query.AnnouncementQuery;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Most queried and commented authors and announcements. Counts are halved every {@code decayInterval}, so the top
+ * follows the current load instead of the whole uptime.
+ */
+@Component
+public class HotKeys {
+
+	private final HeavyHitterSketch<UUID> authors;
+	private final HeavyHitterSketch<AnnouncementQuery> announcements;
+	private final long hotAnnouncementThreshold;
+	private final long decayIntervalNanos;
+	private final AtomicLong nextDecayNanos;
+
+	public HotKeys(@Value("${announcement-board.hot-keys.top:200}") int top,
+				   @Value("${announcement-board.hot-keys.width:4096}") int width,
+				   @Value("${announcement-board.hot-keys.depth:4}") int depth,
+				   @Value("${announcement-board.hot-keys.decay-interval:5m}") Duration decayInterval,
+				   @Value("${announcement-board.hot-keys.hot-announcement-threshold:100}") long hotAnnouncementThreshold) {
+		this.authors = new HeavyHitterSketch<>(width, depth, top);
+		this.announcements = new HeavyHitterSketch<>(width, depth, top);
+		this.hotAnnouncementThreshold = hotAnnouncementThreshold;
+		this.decayIntervalNanos = decayInterval.toNanos();
+		this.nextDecayNanos = new AtomicLong(System.nanoTime() + decayIntervalNanos);
+	}
+
+	public void recordFetch(List<AnnouncementQuery> queries) {
+		decayIfDue();
+		for (AnnouncementQuery query : queries) {
+			authors.add(query.getAuthorId(), 1);
+			announcements.add(query, 1);
+		}
+	}
+
+	public void recordComment(AnnouncementQuery commented) {
+		decayIfDue();
+		authors.add(commented.getAuthorId(), 1);
+		announcements.add(commented, 1);
+	}
+
+	/**
+	 * Whether the announcement was queried or commented at least {@code hotAnnouncementThreshold} times, give or take decay.
+	 */
+	public boolean isHot(AnnouncementQuery announcement) {
+		return announcements.estimate(announcement) >= hotAnnouncementThreshold;
+	}
+
+	public List<HeavyHitterSketch.Entry<UUID>> topAuthors() {
+		return authors.top();
+	}
+
+	public List<HeavyHitterSketch.Entry<AnnouncementQuery>> topAnnouncements() {
+		return announcements.top();
+	}
+
+	private void decayIfDue() {
+		long due = nextDecayNanos.get();
+		if (System.nanoTime() - due >= 0 && nextDecayNanos.compareAndSet(due, due + decayIntervalNanos)) {
+			authors.decay();
+			announcements.decay();
+		}
+	}
+}
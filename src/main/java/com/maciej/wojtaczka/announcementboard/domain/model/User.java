@@ -7,6 +7,9 @@ import lombok.EqualsAndHashCode;
 import lombok.Value;
 
 import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
 import java.util.UUID;
 
@@ -22,11 +25,15 @@ public class User extends DomainModel {
 
 
 	public Announcement publishAnnouncement(String content) {
+		return publishAnnouncement(content, Instant.now());
+	}
+
+	public Announcement publishAnnouncement(String content, Instant creationTime) {
 
 		Announcement announcement = Announcement.builder()
 												.authorId(id)
 												.content(content)
-												.creationTime(Instant.now())
+												.creationTime(creationTime)
 												.build();
 
 		addEventToPublish(DomainEvents.announcementPublished(announcement));
@@ -34,6 +41,29 @@ public class User extends DomainModel {
 		return announcement;
 	}
 
+	/**
+	 * The announcements are created a millisecond apart from {@code firstCreationTime} on, in the order of their contents,
+	 * since storage keeps creation times to the millisecond and announcements of an author created at the same time would
+	 * overwrite each other.
+	 */
+	public List<Announcement> publishAnnouncements(List<String> contents, Instant firstCreationTime) {
+
+		Instant first = firstCreationTime.truncatedTo(ChronoUnit.MILLIS);
+		List<Announcement> announcements = new ArrayList<>(contents.size());
+		for (int i = 0; i < contents.size(); i++) {
+			Announcement announcement = Announcement.builder()
+													.authorId(id)
+													.content(contents.get(i))
+													.creationTime(first.plusMillis(i))
+													.build();
+
+			addEventToPublish(DomainEvents.announcementPublished(announcement));
+			announcements.add(announcement);
+		}
+
+		return announcements;
+	}
+
 	public Comment commentAnnouncement(String commentContent, Announcement announcement) {
 
 		Comment comment = Comment.builder()
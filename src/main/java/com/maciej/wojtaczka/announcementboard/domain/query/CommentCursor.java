@@ -0,0 +1,39 @@
+package com.maciej.wojtaczka.announcementboard.domain.query;
+
+import com.maciej.wojtaczka.announcementboard.domain.exception.AnnouncementException;
+import com.maciej.wojtaczka.announcementboard.domain.model.Comment;
+import lombok.Value;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Position after the last comment of a page: its creation time and author, which is how comments of an announcement are
+ * ordered. Encoded as URL-safe Base64, so clients treat it as opaque.
+ */
+@Value
+public class CommentCursor {
+
+	Instant creationTime;
+	UUID authorId;
+
+	public static CommentCursor after(Comment comment) {
+		return new CommentCursor(comment.getCreationTime(), comment.getAuthorId());
+	}
+
+	public static CommentCursor decode(String cursor) {
+		try {
+			String[] fields = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":");
+			return new CommentCursor(Instant.ofEpochMilli(Long.parseLong(fields[0])), UUID.fromString(fields[1]));
+		} catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+			throw AnnouncementException.invalidCursor(cursor);
+		}
+	}
+
+	public String encode() {
+		String position = creationTime.toEpochMilli() + ":" + authorId;
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+	}
+}
@@ -0,0 +1,15 @@
+package com.maciej.wojtaczka.announcementboard.domain.query;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * One page of a listing. {@code nextCursor} is passed back to get the following page and is {@code null} on the last one.
+ * A page may hold fewer items than requested while more pages follow.
+ */
+@Value
+public class Page<T> {
+	List<T> items;
+	String nextCursor;
+}
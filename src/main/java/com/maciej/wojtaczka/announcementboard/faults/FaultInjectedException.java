@@ -0,0 +1,18 @@
+package com.maciej.wojtaczka.announcementboard.faults;
+
+import java.time.Duration;
+
+public class FaultInjectedException extends RuntimeException {
+
+	public FaultInjectedException(String message) {
+		super(message);
+	}
+
+	public static FaultInjectedException timeout(String dependency, String operation, Duration timeout) {
+		return new FaultInjectedException(String.format("Injected timeout: %s.%s did not answer within %s", dependency, operation, timeout));
+	}
+
+	public static FaultInjectedException error(String dependency, String operation) {
+		return new FaultInjectedException(String.format("Injected error: %s.%s failed", dependency, operation));
+	}
+}
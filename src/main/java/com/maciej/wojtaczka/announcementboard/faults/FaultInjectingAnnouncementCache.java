@@ -0,0 +1,58 @@
+package com.maciej.wojtaczka.announcementboard.faults;
+
+import com.maciej.wojtaczka.announcementboard.domain.AnnouncementCache;
+import com.maciej.wojtaczka.announcementboard.domain.CommentsPageLookup;
+import com.maciej.wojtaczka.announcementboard.domain.model.Announcement;
+import com.maciej.wojtaczka.announcementboard.domain.model.Comment;
+import com.maciej.wojtaczka.announcementboard.domain.query.AnnouncementQuery;
+import com.maciej.wojtaczka.announcementboard.domain.query.Page;
+
+import java.util.List;
+import java.util.Optional;
+
+public class FaultInjectingAnnouncementCache implements AnnouncementCache {
+
+	private final AnnouncementCache delegate;
+	private final FaultInjector faults;
+
+	public FaultInjectingAnnouncementCache(AnnouncementCache delegate, FaultInjector faults) {
+		this.delegate = delegate;
+		this.faults = faults;
+	}
+
+	@Override
+	public void saveAll(List<Announcement> announcements) {
+		faults.inject("saveAll");
+		delegate.saveAll(announcements);
+	}
+
+	@Override
+	public List<Announcement> get(List<AnnouncementQuery> queries) {
+		faults.inject("get");
+		return delegate.get(queries);
+	}
+
+	@Override
+	public Optional<Announcement> getOne(AnnouncementQuery query) {
+		faults.inject("getOne");
+		return delegate.getOne(query);
+	}
+
+	@Override
+	public void saveFirstCommentsPage(AnnouncementQuery announcement, Page<Comment> firstPage, long version) {
+		faults.inject("saveFirstCommentsPage");
+		delegate.saveFirstCommentsPage(announcement, firstPage, version);
+	}
+
+	@Override
+	public CommentsPageLookup getFirstCommentsPage(AnnouncementQuery announcement) {
+		faults.inject("getFirstCommentsPage");
+		return delegate.getFirstCommentsPage(announcement);
+	}
+
+	@Override
+	public void evictLastFirstCommentsPage(AnnouncementQuery announcement) {
+		faults.inject("evictLastFirstCommentsPage");
+		delegate.evictLastFirstCommentsPage(announcement);
+	}
+}
@@ -0,0 +1,80 @@
+package com.maciej.wojtaczka.announcementboard.faults;
+
+import com.maciej.wojtaczka.announcementboard.domain.AnnouncementRepository;
+import com.maciej.wojtaczka.announcementboard.domain.model.Announcement;
+import com.maciej.wojtaczka.announcementboard.domain.model.Comment;
+import com.maciej.wojtaczka.announcementboard.domain.query.AnnouncementQuery;
+import com.maciej.wojtaczka.announcementboard.domain.query.CommentCursor;
+import com.maciej.wojtaczka.announcementboard.domain.query.Page;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+public class FaultInjectingAnnouncementRepository implements AnnouncementRepository {
+
+	private final AnnouncementRepository delegate;
+	private final FaultInjector faults;
+	private final Set<UUID> stalledAuthors;
+
+	public FaultInjectingAnnouncementRepository(AnnouncementRepository delegate, FaultInjector faults) {
+		this.delegate = delegate;
+		this.faults = faults;
+		this.stalledAuthors = faults.getSpec().getStalledAuthors();
+	}
+
+	@Override
+	public Announcement save(Announcement announcement) {
+		faults.inject("save", stalledAuthors.contains(announcement.getAuthorId()));
+		return delegate.save(announcement);
+	}
+
+	@Override
+	public List<Announcement> saveAll(List<Announcement> announcements) {
+		faults.inject("saveAll", announcements.stream().map(Announcement::getAuthorId).anyMatch(stalledAuthors::contains));
+		return delegate.saveAll(announcements);
+	}
+
+	@Override
+	public void saveAnnouncementComment(Comment comment) {
+		faults.inject("saveAnnouncementComment", stalledAuthors.contains(comment.getAnnouncementAuthorId()));
+		delegate.saveAnnouncementComment(comment);
+	}
+
+	/**
+	 * Stalled authors are left to {@link FaultInjectingAsyncCassandraTemplate}, which stalls their selects only, while the
+	 * other authors' selects are collected meanwhile.
+	 */
+	@Override
+	public List<Announcement> fetchAll(Map<UUID, List<Instant>> authorIdToCreationTimes) {
+		faults.inject("fetchAll");
+		return delegate.fetchAll(authorIdToCreationTimes);
+	}
+
+	@Override
+	public Optional<Announcement> fetchOne(UUID authorId, Instant creationTime) {
+		faults.inject("fetchOne", stalledAuthors.contains(authorId));
+		return delegate.fetchOne(authorId, creationTime);
+	}
+
+	@Override
+	public Page<Announcement> fetchTimeline(UUID authorId, int pageSize, String cursor) {
+		faults.inject("fetchTimeline", stalledAuthors.contains(authorId));
+		return delegate.fetchTimeline(authorId, pageSize, cursor);
+	}
+
+	@Override
+	public Page<Comment> fetchComments(AnnouncementQuery announcement, int pageSize, CommentCursor after) {
+		faults.inject("fetchComments", stalledAuthors.contains(announcement.getAuthorId()));
+		return delegate.fetchComments(announcement, pageSize, after);
+	}
+
+	@Override
+	public Page<Comment> fetchUserComments(UUID userId, int pageSize, String cursor) {
+		faults.inject("fetchUserComments", stalledAuthors.contains(userId));
+		return delegate.fetchUserComments(userId, pageSize, cursor);
+	}
+}
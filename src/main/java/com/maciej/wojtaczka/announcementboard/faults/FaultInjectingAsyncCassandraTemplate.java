@@ -0,0 +1,44 @@
+package com.maciej.wojtaczka.announcementboard.faults;
+
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.cql.BoundStatement;
+import com.datastax.oss.driver.api.core.cql.Statement;
+import com.datastax.oss.driver.api.core.type.DataTypes;
+import org.springframework.data.cassandra.core.AsyncCassandraTemplate;
+import org.springframework.util.concurrent.CompletableToListenableFutureAdapter;
+import org.springframework.util.concurrent.ListenableFuture;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Stalls the selects of the stalled authors' partitions one by one, so that a batch fetch keeps collecting the other
+ * partitions while one of them is late. The partition is told by the first bound value, the author id in every select the
+ * repository issues asynchronously.
+ */
+public class FaultInjectingAsyncCassandraTemplate extends AsyncCassandraTemplate {
+
+	private final FaultInjector faults;
+	private final Set<UUID> stalledAuthors;
+
+	public FaultInjectingAsyncCassandraTemplate(CqlSession session, FaultInjector faults) {
+		super(session);
+		this.faults = faults;
+		this.stalledAuthors = faults.getSpec().getStalledAuthors();
+	}
+
+	@Override
+	public <T> ListenableFuture<List<T>> select(Statement<?> statement, Class<T> entityClass) {
+		return new CompletableToListenableFutureAdapter<>(
+				faults.stallAsync("select", isStalled(statement), super.select(statement, entityClass).completable()));
+	}
+
+	private boolean isStalled(Statement<?> statement) {
+		if (!(statement instanceof BoundStatement)) {
+			return false;
+		}
+		BoundStatement bound = (BoundStatement) statement;
+		return bound.size() > 0 && DataTypes.UUID.equals(bound.getType(0)) && stalledAuthors.contains(bound.getUuid(0));
+	}
+}
@@ -0,0 +1,29 @@
+package com.maciej.wojtaczka.announcementboard.faults;
+
+import com.maciej.wojtaczka.announcementboard.domain.DomainEvent;
+import com.maciej.wojtaczka.announcementboard.domain.DomainEventPublisher;
+
+import java.util.List;
+
+public class FaultInjectingDomainEventPublisher implements DomainEventPublisher {
+
+	private final DomainEventPublisher delegate;
+	private final FaultInjector faults;
+
+	public FaultInjectingDomainEventPublisher(DomainEventPublisher delegate, FaultInjector faults) {
+		this.delegate = delegate;
+		this.faults = faults;
+	}
+
+	@Override
+	public void publish(DomainEvent<?> domainEvent) {
+		faults.inject("publish");
+		delegate.publish(domainEvent);
+	}
+
+	@Override
+	public void publishAll(List<DomainEvent<?>> domainEvents) {
+		faults.inject("publishAll");
+		delegate.publishAll(domainEvents);
+	}
+}
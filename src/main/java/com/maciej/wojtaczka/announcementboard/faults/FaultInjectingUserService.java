@@ -0,0 +1,32 @@
+package com.maciej.wojtaczka.announcementboard.faults;
+
+import com.maciej.wojtaczka.announcementboard.domain.UserService;
+import com.maciej.wojtaczka.announcementboard.domain.model.User;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+public class FaultInjectingUserService implements UserService {
+
+	private final UserService delegate;
+	private final FaultInjector faults;
+
+	public FaultInjectingUserService(UserService delegate, FaultInjector faults) {
+		this.delegate = delegate;
+		this.faults = faults;
+	}
+
+	@Override
+	public Optional<User> fetchUser(UUID userId) {
+		faults.inject("fetchUser");
+		return delegate.fetchUser(userId);
+	}
+
+	@Override
+	public Map<UUID, User> fetchUsers(Set<UUID> userIds) {
+		faults.inject("fetchUsers");
+		return delegate.fetchUsers(userIds);
+	}
+}
@@ -0,0 +1,69 @@
+package com.maciej.wojtaczka.announcementboard.faults;
+
+import com.maciej.wojtaczka.announcementboard.cache.AnnouncementCacheAdapter;
+import com.maciej.wojtaczka.announcementboard.domain.AnnouncementCache;
+import com.maciej.wojtaczka.announcementboard.domain.AnnouncementRepository;
+import com.maciej.wojtaczka.announcementboard.domain.DomainEventPublisher;
+import com.maciej.wojtaczka.announcementboard.domain.UserService;
+import com.maciej.wojtaczka.announcementboard.persistence.AnnouncementRepositoryAdapter;
+import com.maciej.wojtaczka.announcementboard.persistence.UserLocalRepository;
+import com.datastax.oss.driver.api.core.CqlSession;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.cassandra.core.AsyncCassandraOperations;
+
+import java.util.Random;
+
+/**
+ * Puts fault injecting decorators in front of the repository, cache, user service and event publisher. Only the
+ * domain service sees the decorators; infrastructure that injects the concrete adapters keeps talking to them directly.
+ * The stalled authors of the repository stall its asynchronous selects, which the repository itself issues through them.
+ */
+@Slf4j
+@Configuration
+@Profile("fault-injection")
+@EnableConfigurationProperties(FaultInjectionProperties.class)
+public class FaultInjectionConfiguration {
+
+	@Bean
+	@Primary
+	AnnouncementRepository faultInjectingAnnouncementRepository(AnnouncementRepositoryAdapter repository, FaultInjectionProperties properties) {
+		return new FaultInjectingAnnouncementRepository(repository, injector("repository", properties.getRepository(), properties));
+	}
+
+	@Bean
+	@Primary
+	AsyncCassandraOperations faultInjectingAsyncCassandraOperations(CqlSession session, FaultInjectionProperties properties) {
+		return new FaultInjectingAsyncCassandraTemplate(session, injector("cassandra", properties.getRepository(), properties));
+	}
+
+	@Bean
+	@Primary
+	AnnouncementCache faultInjectingAnnouncementCache(AnnouncementCacheAdapter cache, FaultInjectionProperties properties) {
+		return new FaultInjectingAnnouncementCache(cache, injector("cache", properties.getCache(), properties));
+	}
+
+	@Bean
+	@Primary
+	UserService faultInjectingUserService(UserLocalRepository userService, FaultInjectionProperties properties) {
+		return new FaultInjectingUserService(userService, injector("userService", properties.getUserService(), properties));
+	}
+
+	@Bean
+	@Primary
+	DomainEventPublisher faultInjectingDomainEventPublisher(@Qualifier("kafkaPublisher") DomainEventPublisher publisher,
+															FaultInjectionProperties properties) {
+		return new FaultInjectingDomainEventPublisher(publisher, injector("publisher", properties.getPublisher(), properties));
+	}
+
+	private static FaultInjector injector(String dependency, FaultInjectionProperties.Fault fault, FaultInjectionProperties properties) {
+		FaultSpec spec = fault.toSpec();
+		log.warn("Injecting faults into {}: {}", dependency, spec);
+		return new FaultInjector(dependency, spec, new Random(properties.getSeed() + dependency.hashCode()));
+	}
+}
@@ -0,0 +1,47 @@
+package com.maciej.wojtaczka.announcementboard.faults;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+@Getter
+@Setter
+@ConfigurationProperties("announcement-board.faults")
+public class FaultInjectionProperties {
+
+	private long seed = System.nanoTime();
+	private Fault repository = new Fault();
+	private Fault cache = new Fault();
+	private Fault userService = new Fault();
+	private Fault publisher = new Fault();
+
+	@Getter
+	@Setter
+	public static class Fault {
+
+		private Duration latency = Duration.ZERO;
+		private double latencySpread;
+		private double stallProbability;
+		private Duration stallLatency = Duration.ZERO;
+		private Duration timeout;
+		private double errorRate;
+		private Set<UUID> stalledAuthors = new HashSet<>();
+
+		FaultSpec toSpec() {
+			return FaultSpec.builder()
+							.latency(latency)
+							.latencySpread(latencySpread)
+							.stallProbability(stallProbability)
+							.stallLatency(stallLatency)
+							.timeout(timeout)
+							.errorRate(errorRate)
+							.stalledAuthors(Set.copyOf(stalledAuthors))
+							.build();
+		}
+	}
+}
@@ -0,0 +1,87 @@
+package com.maciej.wojtaczka.announcementboard.faults;
+
+import java.time.Duration;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Applies a {@link FaultSpec} to calls made to one dependency, on the calling thread.
+ */
+public class FaultInjector {
+
+	private final String dependency;
+	private final FaultSpec spec;
+	private final Random random;
+
+	public FaultInjector(String dependency, FaultSpec spec, Random random) {
+		this.dependency = dependency;
+		this.spec = spec;
+		this.random = random;
+	}
+
+	public void inject(String operation) {
+		inject(operation, false);
+	}
+
+	public void inject(String operation, boolean stalledPartition) {
+		long delayNanos = delayNanos(stalledPartition);
+		Duration timeout = spec.getTimeout();
+		if (timeout != null && delayNanos >= timeout.toNanos()) {
+			sleep(timeout.toNanos());
+			throw FaultInjectedException.timeout(dependency, operation, timeout);
+		}
+		sleep(delayNanos);
+		if (spec.getErrorRate() > 0 && random.nextDouble() < spec.getErrorRate()) {
+			throw FaultInjectedException.error(dependency, operation);
+		}
+	}
+
+	/**
+	 * Delays the completion of an asynchronous call to a stalled partition by {@code stallLatency}, or fails it once the
+	 * timeout passed when the stall reaches it. The caller is not blocked, and calls to other partitions are left as they are.
+	 */
+	public <T> CompletableFuture<T> stallAsync(String operation, boolean stalledPartition, CompletableFuture<T> call) {
+		if (!stalledPartition) {
+			return call;
+		}
+		long stallNanos = spec.getStallLatency().toNanos();
+		Duration timeout = spec.getTimeout();
+		if (timeout != null && stallNanos >= timeout.toNanos()) {
+			Executor afterTimeout = CompletableFuture.delayedExecutor(timeout.toNanos(), TimeUnit.NANOSECONDS);
+			return call.thenCompose(result -> CompletableFuture.supplyAsync(() -> {
+				throw FaultInjectedException.timeout(dependency, operation, timeout);
+			}, afterTimeout));
+		}
+		Executor afterStall = CompletableFuture.delayedExecutor(stallNanos, TimeUnit.NANOSECONDS);
+		return call.thenCompose(result -> CompletableFuture.supplyAsync(() -> result, afterStall));
+	}
+
+	public FaultSpec getSpec() {
+		return spec;
+	}
+
+	long delayNanos(boolean stalledPartition) {
+		double delayNanos = spec.getLatency().toNanos();
+		if (spec.getLatencySpread() > 0) {
+			delayNanos *= Math.exp(spec.getLatencySpread() * random.nextGaussian());
+		}
+		if (stalledPartition || (spec.getStallProbability() > 0 && random.nextDouble() < spec.getStallProbability())) {
+			delayNanos += spec.getStallLatency().toNanos();
+		}
+		return (long) delayNanos;
+	}
+
+	private void sleep(long nanos) {
+		if (nanos <= 0) {
+			return;
+		}
+		try {
+			TimeUnit.NANOSECONDS.sleep(nanos);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new FaultInjectedException("Interrupted while injecting latency into " + dependency);
+		}
+	}
+}
@@ -0,0 +1,36 @@
+package com.maciej.wojtaczka.announcementboard.faults;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * How a dependency misbehaves. Each call is delayed by a log-normal latency with median {@code latency} and shape
+ * {@code latencySpread} (0 gives a fixed delay); with {@code stallProbability} a further {@code stallLatency} is added.
+ * A call whose delay reaches {@code timeout} fails after waiting for the timeout. A call that survives fails with
+ * {@code errorRate} probability.
+ */
+@Value
+@Builder
+public class FaultSpec {
+
+	public static final FaultSpec NONE = FaultSpec.builder().build();
+
+	@Builder.Default
+	Duration latency = Duration.ZERO;
+	double latencySpread;
+	double stallProbability;
+	@Builder.Default
+	Duration stallLatency = Duration.ZERO;
+	Duration timeout;
+	double errorRate;
+	/**
+	 * Authors whose partitions always stall, regardless of {@code stallProbability}. Honoured by the repository only, and by
+	 * each of its asynchronous selects rather than by a batch fetch as a whole.
+	 */
+	@Builder.Default
+	Set<UUID> stalledAuthors = Set.of();
+}
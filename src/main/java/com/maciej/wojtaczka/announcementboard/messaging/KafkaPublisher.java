@@ -4,27 +4,101 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.maciej.wojtaczka.announcementboard.domain.DomainEvent;
 import com.maciej.wojtaczka.announcementboard.domain.DomainEventPublisher;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+
 @Component
 class KafkaPublisher implements DomainEventPublisher {
 
 	private final KafkaTemplate<String, String> kafkaTemplate;
 	private final ObjectMapper objectMapper;
+	private final MeterRegistry meterRegistry;
 
-	KafkaPublisher(KafkaTemplate<String, String> kafkaTemplate, ObjectMapper objectMapper) {
+	KafkaPublisher(KafkaTemplate<String, String> kafkaTemplate, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
 		this.kafkaTemplate = kafkaTemplate;
 		this.objectMapper = objectMapper;
+		this.meterRegistry = meterRegistry;
 	}
 
 	@Override
 	public void publish(DomainEvent<?> domainEvent) {
+		send(domainEvent);
+	}
+
+	/**
+	 * Hands all the events to the producer before flushing it, so that those going to the same topic partition share
+	 * producer batches instead of each waiting for its own request. An event that cannot be sent does not hold back the
+	 * others; the first failure is thrown once the rest are flushed, with the later ones suppressed in it.
+	 */
+	@Override
+	public void publishAll(List<DomainEvent<?>> domainEvents) {
+		RuntimeException failure = null;
+		try {
+			for (DomainEvent<?> domainEvent : domainEvents) {
+				try {
+					send(domainEvent);
+				} catch (RuntimeException e) {
+					if (failure == null) {
+						failure = e;
+					} else {
+						failure.addSuppressed(e);
+					}
+				}
+			}
+		} finally {
+			kafkaTemplate.flush();
+		}
+		if (failure != null) {
+			throw failure;
+		}
+	}
+
+	private void send(DomainEvent<?> domainEvent) {
+		String topic = domainEvent.getDestination();
+		Timer.Sample sample = Timer.start(meterRegistry);
+		KafkaSendEvent event = new KafkaSendEvent();
+		event.begin();
 		try {
 			String jsonPayload = objectMapper.writeValueAsString(domainEvent.getPayload());
-			kafkaTemplate.send(domainEvent.getDestination(), jsonPayload);
+			event.payloadLength = jsonPayload.length();
+			kafkaTemplate.send(topic, jsonPayload)
+						 .addCallback(sent -> {
+										  sample.stop(sendTimer(topic, "success"));
+										  commit(event, topic, false);
+									  },
+									  error -> {
+										  sample.stop(sendTimer(topic, "failure"));
+										  commit(event, topic, true);
+									  });
 		} catch (JsonProcessingException e) {
+			sample.stop(sendTimer(topic, "failure"));
+			commit(event, topic, true);
 			throw new RuntimeException("Exception during json marshaling", e);
+		} catch (RuntimeException e) {
+			sample.stop(sendTimer(topic, "failure"));
+			commit(event, topic, true);
+			throw e;
 		}
 	}
+
+	private static void commit(KafkaSendEvent event, String topic, boolean failed) {
+		event.end();
+		if (event.shouldCommit()) {
+			event.topic = topic;
+			event.failed = failed;
+			event.commit();
+		}
+	}
+
+	private Timer sendTimer(String topic, String outcome) {
+		return Timer.builder("kafka.publish")
+					.description("Time from publishing a domain event until the broker acknowledged it")
+					.tag("topic", topic)
+					.tag("outcome", outcome)
+					.register(meterRegistry);
+	}
 }
@@ -0,0 +1,22 @@
+package com.maciej.wojtaczka.announcementboard.messaging;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.maciej.wojtaczka.announcementboard.KafkaSend")
+@Label("Kafka Send")
+@Description("A domain event sent by KafkaPublisher, from serialization until the broker acknowledged it")
+@Category({ "Announcement Board", "Kafka" })
+class KafkaSendEvent extends jdk.jfr.Event {
+
+	@Label("Topic")
+	String topic;
+
+	@Label("Payload Characters")
+	int payloadLength;
+
+	@Label("Failed")
+	boolean failed;
+}
@@ -4,6 +4,8 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.maciej.wojtaczka.announcementboard.domain.model.User;
 import com.maciej.wojtaczka.announcementboard.persistence.UserLocalRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.springframework.kafka.annotation.KafkaListener;
@@ -18,10 +20,12 @@ class KafkaUserEventsListener {
 
 	private final UserLocalRepository userLocalRepository;
 	private final ObjectMapper objectMapper;
+	private final MeterRegistry meterRegistry;
 
-	public KafkaUserEventsListener(UserLocalRepository userLocalRepository, ObjectMapper objectMapper) {
+	public KafkaUserEventsListener(UserLocalRepository userLocalRepository, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
 		this.userLocalRepository = userLocalRepository;
 		this.objectMapper = objectMapper;
+		this.meterRegistry = meterRegistry;
 	}
 
 	@KafkaListener(topics = USER_REGISTERED, groupId = GROUP_ID)
@@ -29,12 +33,26 @@ class KafkaUserEventsListener {
 		log.debug(USER_REGISTERED + " event received:\n {}", consumerRecord.value());
 		String jsonUser = consumerRecord.value();
 
+		Timer.Sample sample = Timer.start(meterRegistry);
 		try {
 			User user = objectMapper.readValue(jsonUser, User.class);
 			userLocalRepository.saveUser(user);
+			sample.stop(processingTimer("success"));
 			log.info("User {} saved", user.getId());
 		} catch (JsonProcessingException e) {
+			sample.stop(processingTimer("failure"));
 			throw new RuntimeException(e);
+		} catch (RuntimeException e) {
+			sample.stop(processingTimer("failure"));
+			throw e;
 		}
 	}
+
+	private Timer processingTimer(String outcome) {
+		return Timer.builder("kafka.consume")
+					.description("Time to process a consumed event")
+					.tag("topic", USER_REGISTERED)
+					.tag("outcome", outcome)
+					.register(meterRegistry);
+	}
 }
@@ -0,0 +1,118 @@
+package com.maciej.wojtaczka.announcementboard.persistence;
+
+/**
+ * Limit on selects in flight, shared by all requests. It grows additively by one for every {@code limit} successful
+ * samples taken while the limit was actually in use, and shrinks by {@code backoffRatio} when a select fails or takes
+ * longer than {@code latencyTolerance} times the baseline latency. Selects asking for more rows take longer without the
+ * cluster being any busier, so selects are grouped by the power of two of rows requested and each group keeps its own
+ * baseline. A baseline estimates the group's 10th latency percentile, stepping down on faster samples and up on slower
+ * ones, so a single lucky sample does not anchor it and it follows a lasting change in the cluster. Only selects started
+ * after the last backoff can trigger the next one, so a burst of slow responses shrinks the limit once rather than once
+ * per response.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+	private static final double BASELINE_PERCENTILE = 0.1;
+	private static final double BASELINE_STEP = 0.05;
+	private static final int SIZE_CLASSES = Integer.SIZE + 1;
+
+	private final int minLimit;
+	private final int maxLimit;
+	private final double latencyTolerance;
+	private final double backoffRatio;
+
+	private double limit;
+	private int inFlight;
+	private final double[] baselineNanos = new double[SIZE_CLASSES];
+	private long lastBackoffNanos = Long.MIN_VALUE;
+
+	public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double latencyTolerance, double backoffRatio) {
+		if (minLimit < 1 || minLimit > maxLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+			throw new IllegalArgumentException("Limits must satisfy 1 <= min <= initial <= max");
+		}
+		this.limit = initialLimit;
+		this.minLimit = minLimit;
+		this.maxLimit = maxLimit;
+		this.latencyTolerance = latencyTolerance;
+		this.backoffRatio = backoffRatio;
+	}
+
+	public static AdaptiveConcurrencyLimiter fixed(int limit) {
+		return new AdaptiveConcurrencyLimiter(limit, limit, limit, Double.POSITIVE_INFINITY, 1);
+	}
+
+	public synchronized boolean tryAcquire() {
+		if (inFlight >= getLimit()) {
+			return false;
+		}
+		inFlight++;
+		return true;
+	}
+
+	public synchronized void acquire() throws InterruptedException {
+		while (inFlight >= getLimit()) {
+			wait();
+		}
+		inFlight++;
+	}
+
+	/**
+	 * Waits for a permit only when the caller holds none. A caller already holding permits gets one only if it is free,
+	 * since it had rather collect its own results, which frees permits as well.
+	 */
+	public synchronized boolean acquire(int heldByCaller) throws InterruptedException {
+		if (heldByCaller > 0) {
+			return tryAcquire();
+		}
+		acquire();
+		return true;
+	}
+
+	/**
+	 * Gives back a permit and feeds the latency of the select that held it into the limit.
+	 */
+	public synchronized void release(long startedAtNanos, long completedAtNanos, int rowsRequested, boolean failed) {
+		boolean limitInUse = inFlight * 2 >= getLimit();
+		inFlight--;
+
+		long latencyNanos = completedAtNanos - startedAtNanos;
+		int sizeClass = Integer.SIZE - Integer.numberOfLeadingZeros(Math.max(0, rowsRequested));
+		double baseline = baselineNanos[sizeClass];
+		boolean overloaded = failed || baseline > 0 && latencyNanos > baseline * latencyTolerance;
+		if (!failed) {
+			baselineNanos[sizeClass] = nextBaseline(baseline, latencyNanos);
+		}
+
+		if (overloaded) {
+			if (startedAtNanos >= lastBackoffNanos) {
+				limit = Math.max(minLimit, limit * backoffRatio);
+				lastBackoffNanos = completedAtNanos;
+			}
+		} else if (limitInUse) {
+			limit = Math.min(maxLimit, limit + 1 / limit);
+		}
+		notifyAll();
+	}
+
+	public synchronized int getLimit() {
+		return (int) limit;
+	}
+
+	public synchronized int getInFlight() {
+		return inFlight;
+	}
+
+	/**
+	 * Steps of {@code BASELINE_STEP * (1 - BASELINE_PERCENTILE)} down and {@code BASELINE_STEP * BASELINE_PERCENTILE} up
+	 * balance out where {@code BASELINE_PERCENTILE} of the samples are faster than the baseline.
+	 */
+	private static double nextBaseline(double baselineNanos, long latencyNanos) {
+		if (baselineNanos == 0) {
+			return Math.max(1, latencyNanos);
+		}
+		if (latencyNanos < baselineNanos) {
+			return Math.max(latencyNanos, baselineNanos * (1 - BASELINE_STEP * (1 - BASELINE_PERCENTILE)));
+		}
+		return baselineNanos * (1 + BASELINE_STEP * BASELINE_PERCENTILE);
+	}
+}
@@ -0,0 +1,189 @@
+package com.maciej.wojtaczka.announcementboard.persistence;
+
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.cql.AsyncResultSet;
+import com.datastax.oss.driver.api.core.cql.BoundStatement;
+import com.datastax.oss.driver.api.core.cql.Row;
+import com.datastax.oss.driver.api.querybuilder.QueryBuilder;
+import com.maciej.wojtaczka.announcementboard.domain.model.Announcement;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongFunction;
+import java.util.function.Supplier;
+
+/**
+ * Copies announcements, comments counts and their shards from the tables partitioned by author to the ones partitioned by author and
+ * month, and indexes the months of each author's announcements and comments, keeping at most {@code maxInFlightWrites} writes in
+ * flight. Run it while the service is in
+ * {@link PartitionLayout#DUAL_WRITE}, so that nothing written during the copy is missed, and switch to
+ * {@link PartitionLayout#BUCKETED} once it has finished.
+ * Announcements are upserted and each bucketed counter is moved by its difference to the unbucketed one, so running it
+ * again is safe. A comment placed between reading both counters and writing the difference makes that counter drift by one.
+ */
+@Slf4j
+public class AnnouncementBucketBackfill {
+
+	private static final String KEYSPACE = "announcement_board";
+	private static final int PROGRESS_INTERVAL = 10_000;
+
+	private final CqlSession session;
+	private final AnnouncementStatements statements;
+	private final int maxInFlightWrites;
+
+	public AnnouncementBucketBackfill(CqlSession session, int maxInFlightWrites) {
+		this.session = session;
+		this.statements = new AnnouncementStatements(session);
+		this.maxInFlightWrites = maxInFlightWrites;
+	}
+
+	public void run() throws InterruptedException {
+		log.info("Backfilling announcement_by_month");
+		long announcements = copyAnnouncements();
+		log.info("Backfilled {} announcements, backfilling comments_count_by_month", announcements);
+		long commentsCounts = copyCommentsCounts();
+		log.info("Backfilled {} comments counts, backfilling comments_count_shard_by_month", commentsCounts);
+		long shards = copyCommentsCountShards();
+		log.info("Backfilled {} comments count shards, indexing months by author", shards);
+		long months = indexMonths(MonthListing.TIMELINE) + indexMonths(MonthListing.COMMENTS);
+		log.info("Indexed {} months by author", months);
+	}
+
+	private long copyAnnouncements() throws InterruptedException {
+		BoundedWrites writes = new BoundedWrites(maxInFlightWrites);
+		long copied = 0;
+		for (Row row : session.execute(QueryBuilder.selectFrom(KEYSPACE, "announcement")
+												   .columns("author_id", "creation_time", "content")
+												   .build())) {
+			Announcement announcement = Announcement.builder()
+													.authorId(row.getUuid("author_id"))
+													.creationTime(row.getInstant("creation_time"))
+													.content(row.getString("content"))
+													.build();
+			AnnouncementPartition partition = AnnouncementPartition.bucketed(announcement.getAuthorId(), announcement.getCreationTime());
+			writes.submit(() -> session.executeAsync(statements.insertAnnouncement(partition, announcement)));
+			logProgress(++copied, "announcements");
+		}
+		writes.awaitAll();
+		return copied;
+	}
+
+	private long copyCommentsCounts() throws InterruptedException {
+		BoundedWrites writes = new BoundedWrites(maxInFlightWrites);
+		long copied = 0;
+		for (Row row : session.execute(QueryBuilder.selectFrom(KEYSPACE, "comments_count")
+												   .columns("announcement_author_id", "announcement_creation_time", "comments_count")
+												   .build())) {
+			UUID authorId = row.getUuid("announcement_author_id");
+			Instant creationTime = row.getInstant("announcement_creation_time");
+			long commentsCount = row.getLong("comments_count");
+			AnnouncementPartition partition = AnnouncementPartition.bucketed(authorId, creationTime);
+			writes.submit(() -> session.executeAsync(statements.selectCommentsCount(partition, creationTime))
+									   .thenCompose(current -> catchUp(commentsCount, current,
+																	   delta -> statements.addToCommentsCount(partition, creationTime, delta))));
+			logProgress(++copied, "comments counts");
+		}
+		writes.awaitAll();
+		return copied;
+	}
+
+	private long copyCommentsCountShards() throws InterruptedException {
+		BoundedWrites writes = new BoundedWrites(maxInFlightWrites);
+		long copied = 0;
+		for (Row row : session.execute(QueryBuilder.selectFrom(KEYSPACE, "comments_count_shard")
+												   .columns("announcement_author_id", "announcement_creation_time", "shard", "comments_count")
+												   .build())) {
+			UUID authorId = row.getUuid("announcement_author_id");
+			Instant creationTime = row.getInstant("announcement_creation_time");
+			int shard = row.getInt("shard");
+			long commentsCount = row.getLong("comments_count");
+			AnnouncementPartition partition = AnnouncementPartition.bucketed(authorId, creationTime);
+			writes.submit(() -> session.executeAsync(statements.selectCommentsCountShard(partition, creationTime, shard))
+									   .thenCompose(current -> catchUp(commentsCount, current,
+																	   delta -> statements.addToCommentsCountShard(partition, creationTime, shard, delta))));
+			logProgress(++copied, "comments count shards");
+		}
+		writes.awaitAll();
+		return copied;
+	}
+
+	/**
+	 * Indexes every month partition of the listing's table, including the ones written before {@code month_by_author} was.
+	 */
+	private long indexMonths(MonthListing listing) throws InterruptedException {
+		BoundedWrites writes = new BoundedWrites(maxInFlightWrites);
+		long indexed = 0;
+		for (Row row : session.execute(QueryBuilder.selectFrom(KEYSPACE, listing.getTable())
+												   .distinct()
+												   .columns("author_id", "month")
+												   .build())) {
+			UUID authorId = row.getUuid("author_id");
+			int month = row.getInt("month");
+			writes.submit(() -> session.executeAsync(statements.insertMonthByAuthor(authorId, listing, month)));
+			logProgress(++indexed, "months of " + listing.getTable());
+		}
+		writes.awaitAll();
+		return indexed;
+	}
+
+	private CompletionStage<AsyncResultSet> catchUp(long commentsCount, AsyncResultSet current, LongFunction<BoundStatement> addToCounter) {
+		Row currentRow = current.one();
+		long delta = commentsCount - (currentRow == null ? 0 : currentRow.getLong("comments_count"));
+		if (delta == 0) {
+			return CompletableFuture.completedFuture(current);
+		}
+		return session.executeAsync(addToCounter.apply(delta));
+	}
+
+	private static void logProgress(long copied, String what) {
+		if (copied % PROGRESS_INTERVAL == 0) {
+			log.info("Backfilled {} {}", copied, what);
+		}
+	}
+
+	private static class BoundedWrites {
+
+		private final int maxInFlight;
+		private final Semaphore inFlight;
+		private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+		BoundedWrites(int maxInFlight) {
+			this.maxInFlight = maxInFlight;
+			this.inFlight = new Semaphore(maxInFlight);
+		}
+
+		void submit(Supplier<CompletionStage<?>> write) throws InterruptedException {
+			inFlight.acquire();
+			failIfAnyFailed();
+			try {
+				write.get()
+					 .whenComplete((result, error) -> {
+						 if (error != null) {
+							 failure.compareAndSet(null, error);
+						 }
+						 inFlight.release();
+					 });
+			} catch (RuntimeException e) {
+				inFlight.release();
+				throw e;
+			}
+		}
+
+		void awaitAll() throws InterruptedException {
+			inFlight.acquire(maxInFlight);
+			inFlight.release(maxInFlight);
+			failIfAnyFailed();
+		}
+
+		private void failIfAnyFailed() {
+			if (failure.get() != null) {
+				throw new IllegalStateException("Could not backfill bucketed tables", failure.get());
+			}
+		}
+	}
+}
@@ -0,0 +1,55 @@
+package com.maciej.wojtaczka.announcementboard.persistence;
+
+import lombok.Value;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Partition key of the announcement tables: the author alone, or the author and the month of creation as {@code yyyyMM}
+ * in UTC.
+ */
+@Value
+class AnnouncementPartition {
+
+	UUID authorId;
+	Integer month;
+
+	static AnnouncementPartition unbucketed(UUID authorId) {
+		return new AnnouncementPartition(authorId, null);
+	}
+
+	static AnnouncementPartition bucketed(UUID authorId, Instant creationTime) {
+		return new AnnouncementPartition(authorId, monthOf(creationTime));
+	}
+
+	static int monthOf(Instant creationTime) {
+		ZonedDateTime utc = creationTime.atZone(ZoneOffset.UTC);
+		return utc.getYear() * 100 + utc.getMonthValue();
+	}
+
+	/**
+	 * @return the creation times of every month they fall into, keeping their order within the month
+	 */
+	static SortedMap<Integer, List<Instant>> byMonth(List<Instant> creationTimes) {
+		SortedMap<Integer, List<Instant>> months = new TreeMap<>();
+		creationTimes.forEach(creationTime -> months.computeIfAbsent(monthOf(creationTime), month -> new ArrayList<>())
+													.add(creationTime));
+		return months;
+	}
+
+	boolean isBucketed() {
+		return month != null;
+	}
+
+	@Override
+	public String toString() {
+		return isBucketed() ? authorId + ":" + month : authorId.toString();
+	}
+}
@@ -1,85 +1,347 @@
 package com.maciej.wojtaczka.announcementboard.persistence;
 
-import com.datastax.oss.driver.api.core.cql.ResultSet;
-import com.datastax.oss.driver.api.core.cql.SimpleStatement;
-import com.datastax.oss.driver.api.querybuilder.QueryBuilder;
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.cql.AsyncResultSet;
+import com.datastax.oss.driver.api.core.cql.BatchStatement;
+import com.datastax.oss.driver.api.core.cql.BoundStatement;
+import com.datastax.oss.driver.api.core.cql.DefaultBatchType;
+import com.datastax.oss.driver.api.core.cql.Statement;
+import com.maciej.wojtaczka.announcementboard.diagnostics.SlowOperationLog;
 import com.maciej.wojtaczka.announcementboard.domain.AnnouncementRepository;
+import com.maciej.wojtaczka.announcementboard.domain.exception.AnnouncementException;
 import com.maciej.wojtaczka.announcementboard.domain.model.Announcement;
 import com.maciej.wojtaczka.announcementboard.domain.model.Comment;
+import com.maciej.wojtaczka.announcementboard.domain.query.AnnouncementQuery;
+import com.maciej.wojtaczka.announcementboard.domain.query.CommentCursor;
+import com.maciej.wojtaczka.announcementboard.domain.query.Page;
 import com.maciej.wojtaczka.announcementboard.persistence.entity.AnnouncementDbEntity;
+import com.maciej.wojtaczka.announcementboard.persistence.entity.CommentByAuthorDbEntity;
 import com.maciej.wojtaczka.announcementboard.persistence.entity.CommentDbEntity;
 import com.maciej.wojtaczka.announcementboard.persistence.entity.CommentsCountDbEntity;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.dao.DataAccessException;
 import org.springframework.data.cassandra.core.AsyncCassandraOperations;
 import org.springframework.data.cassandra.core.CassandraOperations;
+import org.springframework.data.cassandra.core.query.CassandraPageRequest;
+import org.springframework.data.domain.Slice;
 
+import java.nio.ByteBuffer;
 import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
-import java.util.LinkedList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.Queue;
+import java.util.OptionalInt;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
 import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
-import static com.datastax.oss.driver.api.querybuilder.QueryBuilder.literal;
+import static com.maciej.wojtaczka.announcementboard.diagnostics.SlowOperationLog.SINGLE_ROW;
+import static com.maciej.wojtaczka.announcementboard.persistence.AnnouncementStatements.announcementTable;
+import static com.maciej.wojtaczka.announcementboard.persistence.AnnouncementStatements.commentsCountShardTable;
+import static com.maciej.wojtaczka.announcementboard.persistence.AnnouncementStatements.commentsCountTable;
+import static com.maciej.wojtaczka.announcementboard.persistence.BoundStatements.describe;
 
 @Slf4j
 public class AnnouncementRepositoryAdapter implements AnnouncementRepository {
 
-	private final int maxSimultaneousSelects;
+	/**
+	 * Keeps a batch well below Cassandra's batch_size_fail_threshold_in_kb for announcements of usual length.
+	 */
+	private static final int MAX_ANNOUNCEMENTS_PER_BATCH = 20;
+
+	private final PartitionLayout layout;
+	private final AdaptiveConcurrencyLimiter selectLimiter;
 
 	private final CassandraOperations cassandraOperations;
 	private final AsyncCassandraOperations asyncCassandraOperations;
-
-	public AnnouncementRepositoryAdapter(CassandraOperations cassandraOperations,
+	private final AnnouncementStatements statements;
+	private final FetchPlanner planner;
+	private final CommentCounterSharding sharding;
+	private final CommentCountWriteBehind writeBehind;
+	private final CounterAdjustmentQueue adjustments;
+
+	private final MeterRegistry meterRegistry;
+	private final AtomicInteger selectsInFlight;
+	private final AtomicInteger selectsQueued;
+	private final StatementTimers statementTimers;
+	private final Timer insertCommentTimer;
+	private final Timer selectCommentTimer;
+	private final Timer insertCommentByAuthorTimer;
+	private final Timer selectCommentByAuthorTimer;
+	private final Timer insertMonthByAuthorTimer;
+	private final Timer selectMonthByAuthorTimer;
+	private final Tracer tracer;
+	private final SlowOperationLog slowOperations;
+
+	public AnnouncementRepositoryAdapter(CqlSession session,
+										 CassandraOperations cassandraOperations,
 										 AsyncCassandraOperations asyncCassandraOperations,
-										 int maxSimultaneousSelects) {
+										 PartitionLayout layout,
+										 AdaptiveConcurrencyLimiter selectLimiter,
+										 FetchPlanner planner,
+										 CommentCounterSharding sharding,
+										 CommentCountWriteBehind writeBehind,
+										 CounterAdjustmentQueue adjustments,
+										 MeterRegistry meterRegistry,
+										 Tracer tracer,
+										 SlowOperationLog slowOperations) {
 		this.cassandraOperations = cassandraOperations;
 		this.asyncCassandraOperations = asyncCassandraOperations;
-		this.maxSimultaneousSelects = maxSimultaneousSelects;
+		this.statements = new AnnouncementStatements(session);
+		this.layout = layout;
+		this.selectLimiter = selectLimiter;
+		this.planner = planner;
+		this.sharding = sharding;
+		this.writeBehind = writeBehind;
+		this.adjustments = adjustments;
+		this.meterRegistry = meterRegistry;
+		this.selectsInFlight = meterRegistry.gauge("cassandra.selects.in.flight", new AtomicInteger());
+		this.selectsQueued = meterRegistry.gauge("cassandra.selects.queued", new AtomicInteger());
+		meterRegistry.gauge("cassandra.selects.limit", selectLimiter, AdaptiveConcurrencyLimiter::getLimit);
+		this.statementTimers = new StatementTimers(meterRegistry);
+		this.insertCommentTimer = CassandraMetrics.statementTimer("comment", "insert", meterRegistry);
+		this.selectCommentTimer = CassandraMetrics.statementTimer("comment", "select", meterRegistry);
+		this.insertCommentByAuthorTimer = CassandraMetrics.statementTimer("comment_by_author", "insert", meterRegistry);
+		this.selectCommentByAuthorTimer = CassandraMetrics.statementTimer("comment_by_author", "select", meterRegistry);
+		this.insertMonthByAuthorTimer = CassandraMetrics.statementTimer("month_by_author", "insert", meterRegistry);
+		this.selectMonthByAuthorTimer = CassandraMetrics.statementTimer("month_by_author", "select", meterRegistry);
+		this.tracer = tracer;
+		this.slowOperations = slowOperations;
 	}
 
 	@Override
 	public Announcement save(Announcement announcement) {
 
-		AnnouncementDbEntity announcementEntity = AnnouncementDbEntity.from(announcement);
+		for (AnnouncementPartition partition : layout.writePartitions(announcement.getAuthorId(), announcement.getCreationTime())) {
+			if (partition.isBucketed()) {
+				BoundStatement insertMonth = statements.insertMonthByAuthor(partition.getAuthorId(), MonthListing.TIMELINE, partition.getMonth());
+				insertMonthByAuthorTimer.record(
+						() -> slowOperations.time("insert month by author", () -> describe(insertMonth), () -> cassandraOperations.execute(insertMonth), SINGLE_ROW));
+			}
+			BoundStatement insertAnnouncement = statements.insertAnnouncement(partition, announcement);
+			statementTimers.get(announcementTable(partition), "insert").record(
+					() -> slowOperations.time("insert announcement",
+											  () -> describe(insertAnnouncement),
+											  () -> cassandraOperations.execute(insertAnnouncement),
+											  SINGLE_ROW));
+		}
 
-		AnnouncementDbEntity savedEntity = cassandraOperations.insert(announcementEntity);
+		return AnnouncementDbEntity.from(announcement).toModel();
+	}
+
+	/**
+	 * Announcements going to the same partition are written in unlogged batches, which the coordinator applies as a single
+	 * mutation on the replicas of that partition, and the batches of all partitions are written concurrently. A failure
+	 * of one batch does not undo the others, so an announcement that is not returned may still be stored in some of its
+	 * partitions. The months of the bucketed partitions are indexed first, and the announcements of a month that could not
+	 * be indexed are not written, since the timeline would not reach them.
+	 */
+	@Override
+	public List<Announcement> saveAll(List<Announcement> announcements) {
+
+		Map<AnnouncementPartition, List<Announcement>> byPartition = new LinkedHashMap<>();
+		for (Announcement announcement : announcements) {
+			for (AnnouncementPartition partition : layout.writePartitions(announcement.getAuthorId(), announcement.getCreationTime())) {
+				byPartition.computeIfAbsent(partition, p -> new ArrayList<>()).add(announcement);
+			}
+		}
+
+		Map<AnnouncementPartition, CompletableFuture<Boolean>> monthIndexes = new LinkedHashMap<>();
+		byPartition.keySet().stream()
+				   .filter(AnnouncementPartition::isBucketed)
+				   .forEach(partition -> monthIndexes.put(partition, indexMonthAsync(partition.getAuthorId(), MonthListing.TIMELINE, partition.getMonth())));
+		awaitAll(List.copyOf(monthIndexes.values()));
+
+		Map<List<Announcement>, CompletableFuture<Boolean>> batches = new LinkedHashMap<>();
+		byPartition.forEach((partition, inPartition) -> {
+			CompletableFuture<Boolean> monthIndex = monthIndexes.get(partition);
+			for (int from = 0; from < inPartition.size(); from += MAX_ANNOUNCEMENTS_PER_BATCH) {
+				List<Announcement> chunk = inPartition.subList(from, Math.min(from + MAX_ANNOUNCEMENTS_PER_BATCH, inPartition.size()));
+				if (monthIndex != null && failureOf(monthIndex) != null) {
+					batches.put(chunk, monthIndex);
+					continue;
+				}
+				BatchStatement batch = BatchStatement.newInstance(DefaultBatchType.UNLOGGED,
+																  chunk.stream()
+																	   .map(announcement -> statements.insertAnnouncement(partition, announcement))
+																	   .collect(Collectors.toList()))
+													 .setExecutionProfileName(BoundStatements.WRITE_PROFILE);
+				batches.put(chunk, executeAsync("insert announcements",
+												() -> chunk.size() + " announcements of " + partition,
+												statementTimers.get(announcementTable(partition), "insert"),
+												batch));
+			}
+		});
+		awaitAll(List.copyOf(batches.values()));
+
+		Set<Announcement> failed = new HashSet<>();
+		Throwable firstFailure = null;
+		for (Map.Entry<List<Announcement>, CompletableFuture<Boolean>> batch : batches.entrySet()) {
+			Throwable failure = failureOf(batch.getValue());
+			if (failure != null) {
+				log.warn("Could not insert {} announcements: ", batch.getKey().size(), failure);
+				failed.addAll(batch.getKey());
+				firstFailure = firstFailure == null ? failure : firstFailure;
+			}
+		}
+		if (!announcements.isEmpty() && failed.size() == announcements.size()) {
+			throw firstFailure instanceof RuntimeException
+					? (RuntimeException) firstFailure
+					: new RuntimeException("Could not insert announcements", firstFailure);
+		}
 
-		return savedEntity.toModel();
+		return announcements.stream()
+							.filter(announcement -> !failed.contains(announcement))
+							.map(announcement -> AnnouncementDbEntity.from(announcement).toModel())
+							.collect(Collectors.toList());
 	}
 
+	/**
+	 * Fails only if the comment was not stored, with the error of its insert, after taking back the counter increments.
+	 * Increments that failed for a stored comment are queued for retry instead.
+	 */
 	@Override
 	public void saveAnnouncementComment(Comment comment) {
-		SimpleStatement incrementCounter = QueryBuilder.update("announcement_board", "comments_count")
-													.increment("comments_count")
-													.whereColumn("announcement_author_id").isEqualTo( literal(comment.getAnnouncementAuthorId()))
-													.whereColumn("announcement_creation_time").isEqualTo( literal(comment.getAnnouncementCreationTime()))
-													.build();
-		ResultSet result = cassandraOperations.execute(incrementCounter);
-
-		if (result.wasApplied()) {
-			try {
-				cassandraOperations.insert(CommentDbEntity.from(comment));
-			} catch (DataAccessException e) {
-				log.warn("Could not insert comment: ", e);
-				SimpleStatement decrementCounter = QueryBuilder.update("announcement_board", "comments_count")
-															   .decrement("comments_count")
-															   .whereColumn("announcement_author_id").isEqualTo( literal(comment.getAnnouncementAuthorId()))
-															   .whereColumn("announcement_creation_time").isEqualTo( literal(comment.getAnnouncementCreationTime()))
-															   .build();
-				ResultSet decrementResult = cassandraOperations.execute(decrementCounter);
-				if (!decrementResult.wasApplied()) {
-					//handle inconsistency
+		List<AnnouncementPartition> partitions = layout.writePartitions(comment.getAnnouncementAuthorId(), comment.getAnnouncementCreationTime());
+		OptionalInt shard = sharding.shardFor(comment.getAnnouncementAuthorId(), comment.getAnnouncementCreationTime(), comment.getAuthorId());
+		if (writeBehind.isEnabled()) {
+			saveCommentAndCountLater(comment, partitions, shard);
+			return;
+		}
+
+		// the counters and the comment are written concurrently, whichever of them fails is corrected afterwards
+		Instant announcementCreationTime = comment.getAnnouncementCreationTime();
+		List<CompletableFuture<Boolean>> increments = partitions.stream()
+																.map(partition -> updateCommentsCountAsync("increment comments count", partition, shard,
+																										   statements.addToCommentsCount(partition, announcementCreationTime, shard, 1)))
+																.collect(Collectors.toList());
+		BoundStatement insertComment = statements.insertComment(comment);
+		CompletableFuture<Boolean> insert = executeAsync("insert comment", insertCommentTimer, insertComment);
+		awaitAll(Stream.concat(increments.stream(), Stream.of(insert)).collect(Collectors.toList()));
+
+		Throwable insertFailure = failureOf(insert);
+		if (insertFailure == null) {
+			indexByAuthor(comment);
+			for (int i = 0; i < partitions.size(); i++) {
+				if (!isApplied(increments.get(i))) {
+					adjustments.enqueue(partitions.get(i), announcementCreationTime, shard, 1);
 				}
 			}
+			return;
+		}
+
+		List<CompletableFuture<?>> compensations = new ArrayList<>(partitions.size());
+		for (int i = 0; i < partitions.size(); i++) {
+			AnnouncementPartition partition = partitions.get(i);
+			if (isApplied(increments.get(i))) {
+				compensations.add(updateCommentsCountAsync("decrement comments count", partition, shard,
+														   statements.addToCommentsCount(partition, announcementCreationTime, shard, -1))
+										  .handle((applied, error) -> {
+											  if (error != null || !applied) {
+												  adjustments.enqueue(partition, announcementCreationTime, shard, -1);
+											  }
+											  return null;
+										  }));
+			}
+		}
+		awaitAll(compensations);
+
+		if (insertFailure instanceof RuntimeException) {
+			throw (RuntimeException) insertFailure;
+		}
+		throw new RuntimeException("Could not insert comment", insertFailure);
+	}
+
+	/**
+	 * The comment row is written first and only then counted, so a failed insert needs no compensation.
+	 */
+	private void saveCommentAndCountLater(Comment comment, List<AnnouncementPartition> partitions, OptionalInt shard) {
+		BoundStatement insertComment = statements.insertComment(comment);
+		insertCommentTimer.record(
+				() -> slowOperations.time("insert comment", () -> describe(insertComment), () -> cassandraOperations.execute(insertComment), SINGLE_ROW));
+		indexByAuthor(comment);
+		partitions.forEach(partition -> writeBehind.add(partition, comment.getAnnouncementCreationTime(), shard, 1));
+	}
+
+	/**
+	 * Writes the comment to {@code comment_by_author}, after indexing its month, without waiting for it. A failed write only
+	 * leaves the comment out of its author's history, so it is logged and not retried.
+	 */
+	private void indexByAuthor(Comment comment) {
+		indexMonthAsync(comment.getAuthorId(), MonthListing.COMMENTS, AnnouncementPartition.monthOf(comment.getCreationTime()))
+				.thenCompose(indexed -> executeAsync("insert comment by author", insertCommentByAuthorTimer, statements.insertCommentByAuthor(comment)))
+				.exceptionally(error -> {
+					log.warn("Could not index comment by author {}: ", comment.getAuthorId(), error);
+					return false;
+				});
+	}
+
+	/**
+	 * Records that the author has rows of the listing in the month, so that paging back skips the months without any.
+	 * Written before the rows, so that a listing does not miss a month holding some.
+	 */
+	private CompletableFuture<Boolean> indexMonthAsync(UUID authorId, MonthListing listing, int month) {
+		return executeAsync("insert month by author", insertMonthByAuthorTimer, statements.insertMonthByAuthor(authorId, listing, month));
+	}
+
+	private CompletableFuture<Boolean> updateCommentsCountAsync(String operation, AnnouncementPartition partition, OptionalInt shard, BoundStatement update) {
+		return executeAsync(operation, statementTimers.get(commentsCountTable(partition, shard), "update"), update);
+	}
+
+	private CompletableFuture<Boolean> executeAsync(String operation, Timer timer, BoundStatement statement) {
+		return executeAsync(operation, () -> describe(statement), timer, statement);
+	}
+
+	private CompletableFuture<Boolean> executeAsync(String operation, Supplier<String> description, Timer timer, Statement<?> statement) {
+		Timer.Sample sample = Timer.start(meterRegistry);
+		return slowOperations.timeAsync(operation,
+										description,
+										() -> asyncCassandraOperations.execute(statement).completable(),
+										SINGLE_ROW)
+							 .thenApply(AsyncResultSet::wasApplied)
+							 .whenComplete((applied, error) -> sample.stop(timer));
+	}
+
+	private static void awaitAll(List<? extends CompletableFuture<?>> futures) {
+		CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+						 .exceptionally(error -> null)
+						 .join();
+	}
+
+	private static boolean isApplied(CompletableFuture<Boolean> completed) {
+		return failureOf(completed) == null && completed.join();
+	}
+
+	private static Throwable failureOf(CompletableFuture<?> completed) {
+		try {
+			completed.join();
+			return null;
+		} catch (CompletionException e) {
+			return e.getCause();
 		}
+	}
 
+	private AnnouncementPartition readPartition(UUID authorId, Instant creationTime) {
+		return layout.readsBucketed() ? AnnouncementPartition.bucketed(authorId, creationTime) : AnnouncementPartition.unbucketed(authorId);
 	}
 
 	@Override
@@ -89,42 +351,173 @@ public class AnnouncementRepositoryAdapter implements AnnouncementRepository {
 			return List.of();
 		}
 
-		List<GetAnnouncementsAndCommentsCountStatement> selects =
-				authorIdToCreationTimes.entrySet().stream()
-									   .map(announcerToTimeEntry -> buildSelectStatement(announcerToTimeEntry.getKey(),
-																						 announcerToTimeEntry.getValue()))
-									   .collect(Collectors.toList());
+		Span planSpan = tracer.spanBuilder("plan selects")
+							  .setAttribute("announcement.db.author.count", authorIdToCreationTimes.size())
+							  .startSpan();
+		List<GetAnnouncementsAndCommentsCountStatement> selects;
+		try {
+			selects = authorIdToCreationTimes.entrySet().stream()
+											 .flatMap(announcerToTimeEntry -> buildSelectStatements(announcerToTimeEntry.getKey(),
+																									announcerToTimeEntry.getValue()).stream())
+											 .collect(Collectors.toList());
+		} finally {
+			planSpan.end();
+		}
 
-		Queue<CompletableFuture<List<Announcement>>> futureResults = new LinkedList<>();
+		BlockingQueue<CompletableFuture<List<Announcement>>> completed = new LinkedBlockingQueue<>();
+		Iterator<GetAnnouncementsAndCommentsCountStatement> pending = selects.iterator();
 		List<Announcement> allAnnouncements = new ArrayList<>();
+		int notIssued = selects.size();
+		int inFlight = 0;
+		selectsQueued.addAndGet(notIssued);
+
+		try {
+			while (pending.hasNext() || inFlight > 0) {
+				while (pending.hasNext() && acquireSelectPermit(inFlight)) {
+					GetAnnouncementsAndCommentsCountStatement select = pending.next();
+					int rowsRequested = select.requestedTimes.size();
+					long startedAt = System.nanoTime();
+					CompletableFuture<List<Announcement>> futureAnnouncements;
+					try {
+						futureAnnouncements = issueSelect(select);
+					} catch (RuntimeException e) {
+						selectLimiter.release(startedAt, System.nanoTime(), rowsRequested, true);
+						throw e;
+					}
+					selectsQueued.decrementAndGet();
+					notIssued--;
+					inFlight++;
+					futureAnnouncements.whenComplete((result, error) -> {
+						selectLimiter.release(startedAt, System.nanoTime(), rowsRequested, error != null);
+						completed.add(futureAnnouncements);
+					});
+				}
 
-		for (GetAnnouncementsAndCommentsCountStatement statement : selects) {
-			CompletableFuture<List<AnnouncementDbEntity>> futureDbAnnouncements =
-					asyncCassandraOperations.select(statement.getAnnouncements, AnnouncementDbEntity.class)
-											.completable();
+				allAnnouncements.addAll(takeNext(completed).join());
+				inFlight--;
+			}
+		} finally {
+			selectsQueued.addAndGet(-notIssued);
+		}
 
-			CompletableFuture<Map<String, CommentsCountDbEntity>> futureDbCommentsCount =
-					asyncCassandraOperations.select(statement.getCommentsCount, CommentsCountDbEntity.class)
-											.completable()
-											.thenApply(this::toMap);
+		return List.copyOf(allAnnouncements);
+	}
 
-			CompletableFuture<List<Announcement>> futureAnnouncements =
-					futureDbAnnouncements.thenCombine(futureDbCommentsCount, this::combineAnnouncements);
-			futureResults.add(futureAnnouncements);
+	private CompletableFuture<List<Announcement>> issueSelect(GetAnnouncementsAndCommentsCountStatement statement) {
+		Span selectSpan = tracer.spanBuilder("select announcements and comments count")
+								.setAttribute("announcement.author.id", statement.partition.getAuthorId().toString())
+								.setAttribute("announcement.partition", statement.partition.toString())
+								.setAttribute("announcement.query.count", statement.creationTimesCount)
+								.setAttribute("announcement.fetch.plan", statement.strategy.name())
+								.startSpan();
+		Timer.Sample announcementsSample = Timer.start(meterRegistry);
+		CassandraSelectEvent announcementsEvent = beginSelectEvent();
+		CompletableFuture<List<AnnouncementDbEntity>> futureDbAnnouncements =
+				slowOperations.timeAsync("select announcements",
+										  () -> describe(statement.getAnnouncements),
+										  () -> asyncCassandraOperations.select(statement.getAnnouncements, AnnouncementDbEntity.class).completable(),
+										  List::size)
+							  .whenComplete((result, error) -> {
+								  announcementsSample.stop(statementTimers.get(announcementTable(statement.partition), "select"));
+								  commitSelectEvent(announcementsEvent, announcementTable(statement.partition), statement, result, error);
+							  });
+
+		CompletableFuture<List<CommentsCountDbEntity>> futureDbCommentsCount =
+				selectCommentsCounts("select comments counts", commentsCountTable(statement.partition), statement, statement.getCommentsCount);
+		if (statement.getCommentsCountShards != null) {
+			futureDbCommentsCount = futureDbCommentsCount.thenCombine(
+					selectCommentsCounts("select comments count shards", commentsCountShardTable(statement.partition), statement, statement.getCommentsCountShards),
+					(commentsCounts, shards) -> Stream.concat(commentsCounts.stream(), shards.stream()).collect(Collectors.toList()));
+		}
 
-			while (futureResults.size() >= maxSimultaneousSelects ||
-					(!futureResults.isEmpty() && futureResults.peek().isDone())) {
-				CompletableFuture<List<Announcement>> nextToGet = futureResults.remove();
-				allAnnouncements.addAll(nextToGet.join());
-			}
+		selectsInFlight.incrementAndGet();
+		return futureDbAnnouncements.thenCombine(futureDbCommentsCount.thenApply(this::toMap),
+												 (announcements, commentsCounts) -> combineAnnouncements(statement.requestedTimes, announcements, commentsCounts))
+									.whenComplete((result, error) -> {
+										selectsInFlight.decrementAndGet();
+										endSelectSpan(selectSpan, result, error);
+									});
+	}
+
+	private CompletableFuture<List<CommentsCountDbEntity>> selectCommentsCounts(String operation,
+																			   String table,
+																			   GetAnnouncementsAndCommentsCountStatement statement,
+																			   BoundStatement select) {
+		Timer.Sample sample = Timer.start(meterRegistry);
+		CassandraSelectEvent event = beginSelectEvent();
+		return slowOperations.timeAsync(operation,
+										() -> describe(select),
+										() -> asyncCassandraOperations.select(select, CommentsCountDbEntity.class).completable(),
+										List::size)
+							 .whenComplete((result, error) -> {
+								 sample.stop(statementTimers.get(table, "select"));
+								 commitSelectEvent(event, table, statement, result, error);
+							 });
+	}
+
+	/**
+	 * Takes a permit from the limiter shared by all requests, waiting for one only when this request has nothing in flight.
+	 */
+	private boolean acquireSelectPermit(int inFlight) {
+		try {
+			return selectLimiter.acquire(inFlight);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for a select permit", e);
 		}
+	}
 
-		while (!futureResults.isEmpty()) {
-			CompletableFuture<List<Announcement>> nextToGet = futureResults.remove();
-			allAnnouncements.addAll(nextToGet.join());
+	/**
+	 * Waits for whichever issued select completes first, so that a single wide partition does not hold back the others.
+	 */
+	private static CompletableFuture<List<Announcement>> takeNext(BlockingQueue<CompletableFuture<List<Announcement>>> completed) {
+		try {
+			return completed.take();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for announcements", e);
 		}
+	}
 
-		return List.copyOf(allAnnouncements);
+	private static CassandraSelectEvent beginSelectEvent() {
+		CassandraSelectEvent event = new CassandraSelectEvent();
+		event.begin();
+		return event;
+	}
+
+	private static void commitSelectEvent(CassandraSelectEvent event,
+										  String table,
+										  GetAnnouncementsAndCommentsCountStatement statement,
+										  List<?> rows,
+										  Throwable error) {
+		commitSelectEvent(event, table, statement.partition, statement.creationTimesCount, rows == null ? 0 : rows.size(), error != null);
+	}
+
+	private static void commitSelectEvent(CassandraSelectEvent event,
+										  String table,
+										  AnnouncementPartition partition,
+										  int requestedRows,
+										  int returnedRows,
+										  boolean failed) {
+		event.end();
+		if (event.shouldCommit()) {
+			event.table = table;
+			event.partitionKey = partition.toString();
+			event.requestedRows = requestedRows;
+			event.returnedRows = returnedRows;
+			event.failed = failed;
+			event.commit();
+		}
+	}
+
+	private static void endSelectSpan(Span span, List<Announcement> result, Throwable error) {
+		if (error != null) {
+			span.recordException(error);
+			span.setStatus(StatusCode.ERROR);
+		} else {
+			span.setAttribute("announcement.row.count", result.size());
+		}
+		span.end();
 	}
 
 	private Map<String, CommentsCountDbEntity> toMap(List<CommentsCountDbEntity> commentsCounts) {
@@ -132,63 +525,261 @@ public class AnnouncementRepositoryAdapter implements AnnouncementRepository {
 							 .filter(obj -> !obj.isEmpty())
 							 .collect(Collectors.toMap(
 									 CommentsCountDbEntity::getKey,
-									 Function.identity()));
+									 Function.identity(),
+									 CommentsCountDbEntity::plus));
 	}
 
-	private List<Announcement> combineAnnouncements(List<AnnouncementDbEntity> announcementDbEntities,
+	private List<Announcement> combineAnnouncements(Set<Instant> requestedTimes,
+													List<AnnouncementDbEntity> announcementDbEntities,
 													Map<String, CommentsCountDbEntity> commentsCount) {
 		return announcementDbEntities.stream()
+									 .filter(announcementDbEntity -> requestedTimes.contains(announcementDbEntity.getCreationTime()))
 									 .map(announcementDbEntity -> announcementDbEntity.toModel(commentsCount))
 									 .collect(Collectors.toList());
 	}
 
-	private GetAnnouncementsAndCommentsCountStatement buildSelectStatement(UUID authorId, List<Instant> creationTimes) {
+	/**
+	 * One select pair per partition holding the requested announcements: a single one, or one per month when bucketed.
+	 */
+	private List<GetAnnouncementsAndCommentsCountStatement> buildSelectStatements(UUID authorId, List<Instant> creationTimes) {
+		if (!layout.readsBucketed()) {
+			return List.of(buildSelectStatement(AnnouncementPartition.unbucketed(authorId), creationTimes));
+		}
+		return AnnouncementPartition.byMonth(creationTimes).entrySet().stream()
+									.map(month -> buildSelectStatement(new AnnouncementPartition(authorId, month.getKey()), month.getValue()))
+									.collect(Collectors.toList());
+	}
+
+	private GetAnnouncementsAndCommentsCountStatement buildSelectStatement(AnnouncementPartition partition, List<Instant> creationTimes) {
 		creationTimes.sort(Instant::compareTo);
 		Instant oldest = creationTimes.get(0);
-
-		SimpleStatement getCommentCounts = QueryBuilder.selectFrom("announcement_board", "comments_count")
-													   .all()
-													   .whereColumn("announcement_author_id").isEqualTo(literal(authorId))
-													   .whereColumn("announcement_creation_time").isGreaterThanOrEqualTo(literal(oldest))
-													   .build();
-
-		SimpleStatement getAnnouncements = QueryBuilder.selectFrom("announcement_board", "announcement")
-													   .all()
-													   .whereColumn("author_id").isEqualTo(literal(authorId))
-													   .whereColumn("creation_time").isGreaterThanOrEqualTo(literal(oldest))
-													   .build();
-		return new GetAnnouncementsAndCommentsCountStatement(getAnnouncements, getCommentCounts);
+		Instant newest = creationTimes.get(creationTimes.size() - 1);
+		Set<Instant> requestedTimes = creationTimes.stream()
+												   .map(creationTime -> creationTime.truncatedTo(ChronoUnit.MILLIS))
+												   .collect(Collectors.toSet());
+
+		FetchPlanner.Strategy strategy = planner.plan(creationTimes);
+		switch (strategy) {
+			case EXACT:
+				List<Instant> distinctTimes = List.copyOf(requestedTimes);
+				return new GetAnnouncementsAndCommentsCountStatement(partition, creationTimes.size(), strategy, requestedTimes,
+																	 statements.selectAnnouncementsIn(partition, distinctTimes),
+																	 statements.selectCommentsCountsIn(partition, distinctTimes),
+																	 sharding.isEnabled() ? statements.selectCommentsCountShardsIn(partition, distinctTimes) : null);
+			case RANGE:
+				return new GetAnnouncementsAndCommentsCountStatement(partition, creationTimes.size(), strategy, requestedTimes,
+																	 statements.selectAnnouncementsBetween(partition, oldest, newest),
+																	 statements.selectCommentsCountsBetween(partition, oldest, newest),
+																	 sharding.isEnabled() ? statements.selectCommentsCountShardsBetween(partition, oldest, newest) : null);
+			default:
+				return new GetAnnouncementsAndCommentsCountStatement(partition, creationTimes.size(), strategy, requestedTimes,
+																	 statements.selectAnnouncementsSince(partition, oldest),
+																	 statements.selectCommentsCountsSince(partition, oldest),
+																	 sharding.isEnabled() ? statements.selectCommentsCountShardsSince(partition, oldest) : null);
+		}
 	}
 
 	@Override
 	public Optional<Announcement> fetchOne(UUID authorId, Instant creationTime) {
 
-		SimpleStatement selectAnnouncement = QueryBuilder.selectFrom("announcement_board", "announcement")
-														 .all()
-														 .whereColumn("author_id").isEqualTo(literal(authorId))
-														 .whereColumn("creation_time").isEqualTo(literal(creationTime))
-														 .build();
-
-		SimpleStatement countComments = QueryBuilder.selectFrom("announcement_board", "comments_count")
-													.column("comments_count")
-													.whereColumn("announcement_author_id").isEqualTo(literal(authorId))
-													.whereColumn("announcement_creation_time").isEqualTo(literal(creationTime))
-													.build();
-
-		AnnouncementDbEntity entity = cassandraOperations.selectOne(selectAnnouncement, AnnouncementDbEntity.class);
-		Long commentsCount = Optional.ofNullable(cassandraOperations.selectOne(countComments, Long.class))
-									 .orElse(0L);
+		AnnouncementPartition partition = readPartition(authorId, creationTime);
+		BoundStatement selectAnnouncement = statements.selectAnnouncement(partition, creationTime);
+		BoundStatement countComments = statements.selectCommentsCount(partition, creationTime);
+
+		CassandraSelectEvent announcementEvent = beginSelectEvent();
+		AnnouncementDbEntity entity = statementTimers.get(announcementTable(partition), "select").record(
+				() -> slowOperations.time("select announcement",
+										  () -> describe(selectAnnouncement),
+										  () -> cassandraOperations.selectOne(selectAnnouncement, AnnouncementDbEntity.class),
+										  SINGLE_ROW));
+		commitSelectEvent(announcementEvent, announcementTable(partition), partition, 1, entity == null ? 0 : 1, false);
+
+		CassandraSelectEvent commentsCountEvent = beginSelectEvent();
+		Long countedComments = statementTimers.get(commentsCountTable(partition), "select").record(
+				() -> slowOperations.time("select comments count", () -> describe(countComments), () -> cassandraOperations.selectOne(countComments, Long.class), SINGLE_ROW));
+		commitSelectEvent(commentsCountEvent, commentsCountTable(partition), partition, 1, countedComments == null ? 0 : 1, false);
+		long commentsCount = Optional.ofNullable(countedComments)
+									 .orElse(0L)
+				+ (sharding.isEnabled() ? sumCommentsCountShards(partition, creationTime) : 0L);
 		return Optional.ofNullable(entity)
 					   .map(announcementDb -> announcementDb.toModel(commentsCount));
 	}
 
-	private static class GetAnnouncementsAndCommentsCountStatement {
-		SimpleStatement getAnnouncements;
-		SimpleStatement getCommentsCount;
+	@Override
+	public Page<Announcement> fetchTimeline(UUID authorId, int pageSize, String cursor) {
+		PagingCursor start = cursor == null
+				? PagingCursor.start(readPartition(authorId, Instant.now()).getMonth())
+				: PagingCursor.decode(cursor);
+		return pageBackByMonth(start, pageSize,
+							   month -> monthBefore(authorId, MonthListing.TIMELINE, month),
+							   (position, size) -> selectTimelinePage(new AnnouncementPartition(authorId, position.getMonth()), position.getPagingState(), size),
+							   (month, rows) -> withCommentsCounts(new AnnouncementPartition(authorId, month), rows));
+	}
 
-		GetAnnouncementsAndCommentsCountStatement(SimpleStatement getAnnouncements, SimpleStatement getCommentsCount) {
+	@Override
+	public Page<Comment> fetchUserComments(UUID userId, int pageSize, String cursor) {
+		PagingCursor start = cursor == null
+				? PagingCursor.start(AnnouncementPartition.monthOf(Instant.now()))
+				: PagingCursor.decode(cursor);
+		if (start.getMonth() == null) {
+			throw AnnouncementException.invalidCursor(cursor);
+		}
+		return pageBackByMonth(start, pageSize,
+							   month -> monthBefore(userId, MonthListing.COMMENTS, month),
+							   (position, size) -> selectUserCommentsPage(userId, position, size),
+							   (month, rows) -> rows.stream()
+													.map(CommentByAuthorDbEntity::toModel)
+													.collect(Collectors.toList()));
+	}
+
+	/**
+	 * Fills a page from a single partition when there is no month. Otherwise it walks back until the page is full, going
+	 * from each month straight to the previous one the author has rows in, and ends with the first of them.
+	 */
+	private <E, T> Page<T> pageBackByMonth(PagingCursor start,
+										   int pageSize,
+										   IntFunction<OptionalInt> monthBefore,
+										   BiFunction<PagingCursor, Integer, Slice<E>> selectPage,
+										   BiFunction<Integer, List<E>, List<T>> toModels) {
+		PagingCursor position = start;
+		List<T> items = new ArrayList<>(pageSize);
+		while (position != null && items.size() < pageSize) {
+			Slice<E> slice = selectPage.apply(position, pageSize - items.size());
+			items.addAll(toModels.apply(position.getMonth(), slice.getContent()));
+			if (slice.hasNext()) {
+				position = new PagingCursor(position.getMonth(), ((CassandraPageRequest) slice.nextPageable()).getPagingState());
+			} else if (position.getMonth() != null) {
+				OptionalInt previousMonth = monthBefore.apply(position.getMonth());
+				position = previousMonth.isPresent() ? PagingCursor.start(previousMonth.getAsInt()) : null;
+			} else {
+				position = null;
+			}
+		}
+		return new Page<>(List.copyOf(items), position == null ? null : position.encode());
+	}
+
+	private OptionalInt monthBefore(UUID authorId, MonthListing listing, int month) {
+		BoundStatement selectMonth = statements.selectMonthByAuthorBefore(authorId, listing, month);
+		Integer previousMonth = selectMonthByAuthorTimer.record(
+				() -> slowOperations.time("select month by author",
+										  () -> describe(selectMonth),
+										  () -> cassandraOperations.selectOne(selectMonth, Integer.class),
+										  SINGLE_ROW));
+		return previousMonth == null ? OptionalInt.empty() : OptionalInt.of(previousMonth);
+	}
+
+	/**
+	 * Selects one comment more than asked for, to tell whether another page follows.
+	 */
+	@Override
+	public Page<Comment> fetchComments(AnnouncementQuery announcement, int pageSize, CommentCursor after) {
+		BoundStatement selectComments = statements.selectComments(announcement.getAuthorId(), announcement.getCreationTime(), after, pageSize + 1);
+		List<CommentDbEntity> rows = selectCommentTimer.record(
+				() -> slowOperations.time("select comments",
+										  () -> describe(selectComments),
+										  () -> cassandraOperations.select(selectComments, CommentDbEntity.class),
+										  List::size));
+		List<Comment> comments = rows.stream()
+									 .limit(pageSize)
+									 .map(CommentDbEntity::toModel)
+									 .collect(Collectors.toList());
+		String nextCursor = rows.size() > pageSize ? CommentCursor.after(comments.get(pageSize - 1)).encode() : null;
+		return new Page<>(comments, nextCursor);
+	}
+
+	private Slice<AnnouncementDbEntity> selectTimelinePage(AnnouncementPartition partition, ByteBuffer pagingState, int pageSize) {
+		BoundStatement selectTimeline = statements.selectTimeline(partition, pageSize, pagingState);
+		CassandraSelectEvent event = beginSelectEvent();
+		Slice<AnnouncementDbEntity> slice = statementTimers.get(announcementTable(partition), "select").record(
+				() -> slowOperations.time("select timeline",
+										  () -> describe(selectTimeline),
+										  () -> cassandraOperations.slice(selectTimeline, AnnouncementDbEntity.class),
+										  Slice::getNumberOfElements));
+		commitSelectEvent(event, announcementTable(partition), partition, pageSize, slice.getNumberOfElements(), false);
+		return slice;
+	}
+
+	private Slice<CommentByAuthorDbEntity> selectUserCommentsPage(UUID userId, PagingCursor position, int pageSize) {
+		BoundStatement selectUserComments = statements.selectCommentsByAuthor(userId, position.getMonth(), pageSize, position.getPagingState());
+		return selectCommentByAuthorTimer.record(
+				() -> slowOperations.time("select comments by author",
+										  () -> describe(selectUserComments),
+										  () -> cassandraOperations.slice(selectUserComments, CommentByAuthorDbEntity.class),
+										  Slice::getNumberOfElements));
+	}
+
+	private List<Announcement> withCommentsCounts(AnnouncementPartition partition, List<AnnouncementDbEntity> page) {
+		if (page.isEmpty()) {
+			return List.of();
+		}
+		List<Instant> creationTimes = page.stream()
+										  .map(AnnouncementDbEntity::getCreationTime)
+										  .collect(Collectors.toList());
+		List<CommentsCountDbEntity> commentsCounts = new ArrayList<>(
+				fetchCommentsCounts("select comments counts", commentsCountTable(partition), partition, creationTimes.size(),
+									statements.selectCommentsCountsIn(partition, creationTimes)));
+		if (sharding.isEnabled()) {
+			commentsCounts.addAll(fetchCommentsCounts("select comments count shards", commentsCountShardTable(partition), partition, creationTimes.size(),
+													  statements.selectCommentsCountShardsIn(partition, creationTimes)));
+		}
+		Map<String, CommentsCountDbEntity> commentsCountByKey = toMap(commentsCounts);
+		return page.stream()
+				   .map(announcementDbEntity -> announcementDbEntity.toModel(commentsCountByKey))
+				   .collect(Collectors.toList());
+	}
+
+	private List<CommentsCountDbEntity> fetchCommentsCounts(String operation,
+															String table,
+															AnnouncementPartition partition,
+															int requestedRows,
+															BoundStatement select) {
+		CassandraSelectEvent event = beginSelectEvent();
+		List<CommentsCountDbEntity> commentsCounts = statementTimers.get(table, "select").record(
+				() -> slowOperations.time(operation,
+										  () -> describe(select),
+										  () -> cassandraOperations.select(select, CommentsCountDbEntity.class),
+										  List::size));
+		commitSelectEvent(event, table, partition, requestedRows, commentsCounts.size(), false);
+		return commentsCounts;
+	}
+
+	private long sumCommentsCountShards(AnnouncementPartition partition, Instant creationTime) {
+		BoundStatement selectShards = statements.selectCommentsCountShards(partition, creationTime);
+		CassandraSelectEvent event = beginSelectEvent();
+		List<Long> shards = statementTimers.get(commentsCountShardTable(partition), "select").record(
+				() -> slowOperations.time("select comments count shards",
+										  () -> describe(selectShards),
+										  () -> cassandraOperations.select(selectShards, Long.class),
+										  List::size));
+		commitSelectEvent(event, commentsCountShardTable(partition), partition, 1, shards.size(), false);
+		return shards.stream()
+					 .mapToLong(shard -> shard == null ? 0 : shard)
+					 .sum();
+	}
+
+	private static class GetAnnouncementsAndCommentsCountStatement {
+		AnnouncementPartition partition;
+		int creationTimesCount;
+		FetchPlanner.Strategy strategy;
+		Set<Instant> requestedTimes;
+		BoundStatement getAnnouncements;
+		BoundStatement getCommentsCount;
+		BoundStatement getCommentsCountShards;
+
+		GetAnnouncementsAndCommentsCountStatement(AnnouncementPartition partition,
+												  int creationTimesCount,
+												  FetchPlanner.Strategy strategy,
+												  Set<Instant> requestedTimes,
+												  BoundStatement getAnnouncements,
+												  BoundStatement getCommentsCount,
+												  BoundStatement getCommentsCountShards) {
+			this.partition = partition;
+			this.creationTimesCount = creationTimesCount;
+			this.strategy = strategy;
+			this.requestedTimes = requestedTimes;
 			this.getAnnouncements = getAnnouncements;
 			this.getCommentsCount = getCommentsCount;
+			this.getCommentsCountShards = getCommentsCountShards;
 		}
 	}
 }
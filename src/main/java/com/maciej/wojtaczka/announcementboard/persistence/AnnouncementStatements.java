@@ -0,0 +1,462 @@
+package com.maciej.wojtaczka.announcementboard.persistence;
+
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.cql.BoundStatement;
+import com.datastax.oss.driver.api.core.cql.PreparedStatement;
+import com.datastax.oss.driver.api.core.metadata.schema.ClusteringOrder;
+import com.datastax.oss.driver.api.querybuilder.QueryBuilder;
+import com.datastax.oss.driver.api.querybuilder.insert.RegularInsert;
+import com.datastax.oss.driver.api.querybuilder.select.Select;
+import com.datastax.oss.driver.api.querybuilder.update.Update;
+import com.maciej.wojtaczka.announcementboard.domain.model.Announcement;
+import com.maciej.wojtaczka.announcementboard.domain.model.Comment;
+import com.maciej.wojtaczka.announcementboard.domain.query.CommentCursor;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalInt;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static com.datastax.oss.driver.api.querybuilder.QueryBuilder.bindMarker;
+import static com.maciej.wojtaczka.announcementboard.persistence.BoundStatements.read;
+import static com.maciej.wojtaczka.announcementboard.persistence.BoundStatements.write;
+
+/**
+ * Statements used by {@link AnnouncementRepositoryAdapter}, prepared once so that Cassandra does not parse them on every
+ * call and the driver can route each bound statement to a replica owning its partition. Selects run with the read
+ * execution profile and the rest with the write one. Each statement goes to the tables of the {@link AnnouncementPartition}
+ * it is bound to.
+ * The tables of each layout, the comments count shards, the comments by author and the months by author are prepared on
+ * first use, so the tables of a layout or feature that is not in use need not exist. All of them are defined in {@code schema.cql}.
+ */
+class AnnouncementStatements {
+
+	private static final String KEYSPACE = "announcement_board";
+	private static final String ANNOUNCEMENT = "announcement";
+	private static final String ANNOUNCEMENT_BY_MONTH = "announcement_by_month";
+	private static final String COMMENTS_COUNT = "comments_count";
+	private static final String COMMENTS_COUNT_BY_MONTH = "comments_count_by_month";
+	private static final String COMMENTS_COUNT_SHARD = "comments_count_shard";
+	private static final String COMMENTS_COUNT_SHARD_BY_MONTH = "comments_count_shard_by_month";
+
+	private final OnFirstUse<Tables> unbucketed;
+	private final OnFirstUse<Tables> bucketed;
+	private final OnFirstUse<ShardTables> unbucketedShards;
+	private final OnFirstUse<ShardTables> bucketedShards;
+	private final PreparedStatement insertComment;
+	private final PreparedStatement selectComments;
+	private final PreparedStatement selectCommentsAfter;
+	private final OnFirstUse<PreparedStatement> insertCommentByAuthor;
+	private final OnFirstUse<PreparedStatement> selectCommentsByAuthor;
+	private final OnFirstUse<PreparedStatement> insertMonthByAuthor;
+	private final OnFirstUse<PreparedStatement> selectMonthByAuthorBefore;
+
+	AnnouncementStatements(CqlSession session) {
+		this.unbucketed = new OnFirstUse<>(() -> new Tables(session, ANNOUNCEMENT, COMMENTS_COUNT, false));
+		this.bucketed = new OnFirstUse<>(() -> new Tables(session, ANNOUNCEMENT_BY_MONTH, COMMENTS_COUNT_BY_MONTH, true));
+		this.unbucketedShards = new OnFirstUse<>(() -> new ShardTables(session, COMMENTS_COUNT_SHARD, false));
+		this.bucketedShards = new OnFirstUse<>(() -> new ShardTables(session, COMMENTS_COUNT_SHARD_BY_MONTH, true));
+		this.insertComment = session.prepare(
+				QueryBuilder.insertInto(KEYSPACE, "comment")
+							.value("announcement_author_id", bindMarker())
+							.value("announcement_creation_time", bindMarker())
+							.value("author_id", bindMarker())
+							.value("author_nickname", bindMarker())
+							.value("creation_time", bindMarker())
+							.value("content", bindMarker())
+							.build());
+		this.selectComments = session.prepare(
+				comments().limit(bindMarker())
+						  .build());
+		this.selectCommentsAfter = session.prepare(
+				comments().whereColumns("creation_time", "author_id").isGreaterThan(QueryBuilder.tuple(bindMarker(), bindMarker()))
+						  .limit(bindMarker())
+						  .build());
+		this.insertCommentByAuthor = new OnFirstUse<>(() -> session.prepare(
+				QueryBuilder.insertInto(KEYSPACE, "comment_by_author")
+							.value("author_id", bindMarker())
+							.value("month", bindMarker())
+							.value("creation_time", bindMarker())
+							.value("announcement_author_id", bindMarker())
+							.value("announcement_creation_time", bindMarker())
+							.value("author_nickname", bindMarker())
+							.value("content", bindMarker())
+							.build()));
+		this.selectCommentsByAuthor = new OnFirstUse<>(() -> session.prepare(
+				QueryBuilder.selectFrom(KEYSPACE, "comment_by_author").all()
+							.whereColumn("author_id").isEqualTo(bindMarker())
+							.whereColumn("month").isEqualTo(bindMarker())
+							.build()));
+		this.insertMonthByAuthor = new OnFirstUse<>(() -> session.prepare(
+				QueryBuilder.insertInto(KEYSPACE, "month_by_author")
+							.value("author_id", bindMarker())
+							.value("listing", bindMarker())
+							.value("month", bindMarker())
+							.build()));
+		this.selectMonthByAuthorBefore = new OnFirstUse<>(() -> session.prepare(
+				QueryBuilder.selectFrom(KEYSPACE, "month_by_author")
+							.column("month")
+							.whereColumn("author_id").isEqualTo(bindMarker())
+							.whereColumn("listing").isEqualTo(bindMarker())
+							.whereColumn("month").isLessThan(bindMarker())
+							.limit(1)
+							.build()));
+	}
+
+	static String announcementTable(AnnouncementPartition partition) {
+		return partition.isBucketed() ? ANNOUNCEMENT_BY_MONTH : ANNOUNCEMENT;
+	}
+
+	static String commentsCountTable(AnnouncementPartition partition) {
+		return partition.isBucketed() ? COMMENTS_COUNT_BY_MONTH : COMMENTS_COUNT;
+	}
+
+	static String commentsCountShardTable(AnnouncementPartition partition) {
+		return partition.isBucketed() ? COMMENTS_COUNT_SHARD_BY_MONTH : COMMENTS_COUNT_SHARD;
+	}
+
+	/**
+	 * The table {@link #addToCommentsCount(AnnouncementPartition, Instant, OptionalInt, long)} writes to.
+	 */
+	static String commentsCountTable(AnnouncementPartition partition, OptionalInt shard) {
+		return shard.isPresent() ? commentsCountShardTable(partition) : commentsCountTable(partition);
+	}
+
+	private static Select comments() {
+		return QueryBuilder.selectFrom(KEYSPACE, "comment").all()
+						   .whereColumn("announcement_author_id").isEqualTo(bindMarker())
+						   .whereColumn("announcement_creation_time").isEqualTo(bindMarker());
+	}
+
+	BoundStatement selectAnnouncementsSince(AnnouncementPartition partition, Instant oldest) {
+		return read(bind(tables(partition).selectAnnouncementsSince, partition, oldest));
+	}
+
+	BoundStatement selectCommentsCountsSince(AnnouncementPartition partition, Instant oldest) {
+		return read(bind(tables(partition).selectCommentsCountsSince, partition, oldest));
+	}
+
+	BoundStatement selectAnnouncementsBetween(AnnouncementPartition partition, Instant oldest, Instant newest) {
+		return read(bind(tables(partition).selectAnnouncementsBetween, partition, oldest, newest));
+	}
+
+	BoundStatement selectCommentsCountsBetween(AnnouncementPartition partition, Instant oldest, Instant newest) {
+		return read(bind(tables(partition).selectCommentsCountsBetween, partition, oldest, newest));
+	}
+
+	BoundStatement selectAnnouncementsIn(AnnouncementPartition partition, List<Instant> creationTimes) {
+		return read(bind(tables(partition).selectAnnouncementsIn, partition, creationTimes));
+	}
+
+	BoundStatement selectCommentsCountsIn(AnnouncementPartition partition, List<Instant> creationTimes) {
+		return read(bind(tables(partition).selectCommentsCountsIn, partition, creationTimes));
+	}
+
+	BoundStatement selectAnnouncement(AnnouncementPartition partition, Instant creationTime) {
+		return read(bind(tables(partition).selectAnnouncement, partition, creationTime));
+	}
+
+	/**
+	 * Announcements of the partition, newest first, one page of {@code pageSize} rows after the given paging state.
+	 */
+	BoundStatement selectTimeline(AnnouncementPartition partition, int pageSize, ByteBuffer pagingState) {
+		return read(bind(tables(partition).selectTimeline, partition)).setPageSize(pageSize)
+																	  .setPagingState(pagingState);
+	}
+
+	BoundStatement selectCommentsCount(AnnouncementPartition partition, Instant creationTime) {
+		return read(bind(tables(partition).selectCommentsCount, partition, creationTime));
+	}
+
+	BoundStatement selectCommentsCountShardsSince(AnnouncementPartition partition, Instant oldest) {
+		return read(bind(shardTables(partition).selectCommentsCountShardsSince, partition, oldest));
+	}
+
+	BoundStatement selectCommentsCountShardsBetween(AnnouncementPartition partition, Instant oldest, Instant newest) {
+		return read(bind(shardTables(partition).selectCommentsCountShardsBetween, partition, oldest, newest));
+	}
+
+	BoundStatement selectCommentsCountShardsIn(AnnouncementPartition partition, List<Instant> creationTimes) {
+		return read(bind(shardTables(partition).selectCommentsCountShardsIn, partition, creationTimes));
+	}
+
+	BoundStatement selectCommentsCountShards(AnnouncementPartition partition, Instant creationTime) {
+		return read(bind(shardTables(partition).selectCommentsCountShards, partition, creationTime));
+	}
+
+	BoundStatement selectCommentsCountShard(AnnouncementPartition partition, Instant creationTime, int shard) {
+		return read(bind(shardTables(partition).selectCommentsCountShard, partition, creationTime, shard));
+	}
+
+	BoundStatement insertAnnouncement(AnnouncementPartition partition, Announcement announcement) {
+		return write(bind(tables(partition).insertAnnouncement, partition, announcement.getCreationTime(), announcement.getContent()));
+	}
+
+	BoundStatement addToCommentsCount(AnnouncementPartition partition, Instant announcementCreationTime, long delta) {
+		List<Object> values = new ArrayList<>(4);
+		values.add(delta);
+		values.addAll(partitionKey(partition));
+		values.add(announcementCreationTime);
+		return write(tables(partition).updateCommentsCount.bind(values.toArray()));
+	}
+
+	/**
+	 * Adds to the shard when there is one, otherwise to the single row.
+	 */
+	BoundStatement addToCommentsCount(AnnouncementPartition partition, Instant announcementCreationTime, OptionalInt shard, long delta) {
+		if (shard.isPresent()) {
+			return addToCommentsCountShard(partition, announcementCreationTime, shard.getAsInt(), delta);
+		}
+		return addToCommentsCount(partition, announcementCreationTime, delta);
+	}
+
+	BoundStatement addToCommentsCountShard(AnnouncementPartition partition, Instant announcementCreationTime, int shard, long delta) {
+		List<Object> values = new ArrayList<>(5);
+		values.add(delta);
+		values.addAll(partitionKey(partition));
+		values.add(announcementCreationTime);
+		values.add(shard);
+		return write(shardTables(partition).updateCommentsCountShard.bind(values.toArray()));
+	}
+
+	BoundStatement insertComment(Comment comment) {
+		return write(insertComment.bind(comment.getAnnouncementAuthorId(),
+										comment.getAnnouncementCreationTime(),
+										comment.getAuthorId(),
+										comment.getAuthorNickname(),
+										comment.getCreationTime(),
+										comment.getContent()));
+	}
+
+	/**
+	 * Up to {@code limit} comments of the announcement, oldest first, starting after the given one if there is any.
+	 */
+	BoundStatement selectComments(UUID announcementAuthorId, Instant announcementCreationTime, CommentCursor after, int limit) {
+		if (after == null) {
+			return read(selectComments.bind(announcementAuthorId, announcementCreationTime, limit));
+		}
+		return read(selectCommentsAfter.bind(announcementAuthorId, announcementCreationTime, after.getCreationTime(), after.getAuthorId(), limit));
+	}
+
+	/**
+	 * Indexes the comment under its author and the month it was written in.
+	 */
+	BoundStatement insertCommentByAuthor(Comment comment) {
+		return write(insertCommentByAuthor.get().bind(comment.getAuthorId(),
+													  AnnouncementPartition.monthOf(comment.getCreationTime()),
+													  comment.getCreationTime(),
+													  comment.getAnnouncementAuthorId(),
+													  comment.getAnnouncementCreationTime(),
+													  comment.getAuthorNickname(),
+													  comment.getContent()));
+	}
+
+	/**
+	 * Comments the user wrote in the month, newest first, one page of {@code pageSize} rows after the given paging state.
+	 */
+	BoundStatement selectCommentsByAuthor(UUID authorId, int month, int pageSize, ByteBuffer pagingState) {
+		return read(selectCommentsByAuthor.get().bind(authorId, month)).setPageSize(pageSize)
+																	   .setPagingState(pagingState);
+	}
+
+	BoundStatement insertMonthByAuthor(UUID authorId, MonthListing listing, int month) {
+		return write(insertMonthByAuthor.get().bind(authorId, listing.getTable(), month));
+	}
+
+	/**
+	 * The latest month before the given one in which the author has rows of the listing.
+	 */
+	BoundStatement selectMonthByAuthorBefore(UUID authorId, MonthListing listing, int month) {
+		return read(selectMonthByAuthorBefore.get().bind(authorId, listing.getTable(), month));
+	}
+
+	private Tables tables(AnnouncementPartition partition) {
+		return (partition.isBucketed() ? bucketed : unbucketed).get();
+	}
+
+	private ShardTables shardTables(AnnouncementPartition partition) {
+		return (partition.isBucketed() ? bucketedShards : unbucketedShards).get();
+	}
+
+	private static BoundStatement bind(PreparedStatement statement, AnnouncementPartition partition, Object... clusteringValues) {
+		List<Object> values = partitionKey(partition);
+		values.addAll(List.of(clusteringValues));
+		return statement.bind(values.toArray());
+	}
+
+	private static List<Object> partitionKey(AnnouncementPartition partition) {
+		List<Object> values = new ArrayList<>(4);
+		values.add(partition.getAuthorId());
+		if (partition.isBucketed()) {
+			values.add(partition.getMonth());
+		}
+		return values;
+	}
+
+	private static class Tables {
+
+		final PreparedStatement selectAnnouncementsSince;
+		final PreparedStatement selectCommentsCountsSince;
+		final PreparedStatement selectAnnouncementsBetween;
+		final PreparedStatement selectCommentsCountsBetween;
+		final PreparedStatement selectAnnouncementsIn;
+		final PreparedStatement selectCommentsCountsIn;
+		final PreparedStatement selectAnnouncement;
+		final PreparedStatement selectCommentsCount;
+		final PreparedStatement selectTimeline;
+		final PreparedStatement insertAnnouncement;
+		final PreparedStatement updateCommentsCount;
+
+		Tables(CqlSession session, String announcementTable, String commentsCountTable, boolean bucketed) {
+			this.selectAnnouncementsSince = session.prepare(
+					announcements(announcementTable, bucketed)
+							.whereColumn("creation_time").isGreaterThanOrEqualTo(bindMarker())
+							.build());
+			this.selectCommentsCountsSince = session.prepare(
+					commentsCounts(commentsCountTable, bucketed)
+							.whereColumn("announcement_creation_time").isGreaterThanOrEqualTo(bindMarker())
+							.build());
+			this.selectAnnouncementsBetween = session.prepare(
+					announcements(announcementTable, bucketed)
+							.whereColumn("creation_time").isGreaterThanOrEqualTo(bindMarker())
+							.whereColumn("creation_time").isLessThanOrEqualTo(bindMarker())
+							.build());
+			this.selectCommentsCountsBetween = session.prepare(
+					commentsCounts(commentsCountTable, bucketed)
+							.whereColumn("announcement_creation_time").isGreaterThanOrEqualTo(bindMarker())
+							.whereColumn("announcement_creation_time").isLessThanOrEqualTo(bindMarker())
+							.build());
+			this.selectAnnouncementsIn = session.prepare(
+					announcements(announcementTable, bucketed)
+							.whereColumn("creation_time").in(bindMarker())
+							.build());
+			this.selectCommentsCountsIn = session.prepare(
+					commentsCounts(commentsCountTable, bucketed)
+							.whereColumn("announcement_creation_time").in(bindMarker())
+							.build());
+			this.selectAnnouncement = session.prepare(
+					announcements(announcementTable, bucketed)
+							.whereColumn("creation_time").isEqualTo(bindMarker())
+							.build());
+			this.selectCommentsCount = session.prepare(
+					inPartition(QueryBuilder.selectFrom(KEYSPACE, commentsCountTable).column("comments_count"), "announcement_author_id", bucketed)
+							.whereColumn("announcement_creation_time").isEqualTo(bindMarker())
+							.build());
+			this.selectTimeline = session.prepare(
+					announcements(announcementTable, bucketed)
+							.orderBy("creation_time", ClusteringOrder.DESC)
+							.build());
+
+			RegularInsert insertAnnouncement = QueryBuilder.insertInto(KEYSPACE, announcementTable)
+														   .value("author_id", bindMarker());
+			if (bucketed) {
+				insertAnnouncement = insertAnnouncement.value("month", bindMarker());
+			}
+			this.insertAnnouncement = session.prepare(
+					insertAnnouncement.value("creation_time", bindMarker())
+									  .value("content", bindMarker())
+									  .build());
+
+			Update updateCommentsCount = QueryBuilder.update(KEYSPACE, commentsCountTable)
+													 .increment("comments_count", bindMarker())
+													 .whereColumn("announcement_author_id").isEqualTo(bindMarker());
+			if (bucketed) {
+				updateCommentsCount = updateCommentsCount.whereColumn("month").isEqualTo(bindMarker());
+			}
+			this.updateCommentsCount = session.prepare(
+					updateCommentsCount.whereColumn("announcement_creation_time").isEqualTo(bindMarker())
+									   .build());
+		}
+	}
+
+	private static class ShardTables {
+
+		final PreparedStatement selectCommentsCountShardsSince;
+		final PreparedStatement selectCommentsCountShardsBetween;
+		final PreparedStatement selectCommentsCountShardsIn;
+		final PreparedStatement selectCommentsCountShards;
+		final PreparedStatement selectCommentsCountShard;
+		final PreparedStatement updateCommentsCountShard;
+
+		ShardTables(CqlSession session, String commentsCountShardTable, boolean bucketed) {
+			this.selectCommentsCountShardsSince = session.prepare(
+					commentsCounts(commentsCountShardTable, bucketed)
+							.whereColumn("announcement_creation_time").isGreaterThanOrEqualTo(bindMarker())
+							.build());
+			this.selectCommentsCountShardsBetween = session.prepare(
+					commentsCounts(commentsCountShardTable, bucketed)
+							.whereColumn("announcement_creation_time").isGreaterThanOrEqualTo(bindMarker())
+							.whereColumn("announcement_creation_time").isLessThanOrEqualTo(bindMarker())
+							.build());
+			this.selectCommentsCountShardsIn = session.prepare(
+					commentsCounts(commentsCountShardTable, bucketed)
+							.whereColumn("announcement_creation_time").in(bindMarker())
+							.build());
+			this.selectCommentsCountShards = session.prepare(
+					inPartition(QueryBuilder.selectFrom(KEYSPACE, commentsCountShardTable).column("comments_count"), "announcement_author_id", bucketed)
+							.whereColumn("announcement_creation_time").isEqualTo(bindMarker())
+							.build());
+
+			this.selectCommentsCountShard = session.prepare(
+					inPartition(QueryBuilder.selectFrom(KEYSPACE, commentsCountShardTable).column("comments_count"), "announcement_author_id", bucketed)
+							.whereColumn("announcement_creation_time").isEqualTo(bindMarker())
+							.whereColumn("shard").isEqualTo(bindMarker())
+							.build());
+
+			Update updateCommentsCountShard = QueryBuilder.update(KEYSPACE, commentsCountShardTable)
+														  .increment("comments_count", bindMarker())
+														  .whereColumn("announcement_author_id").isEqualTo(bindMarker());
+			if (bucketed) {
+				updateCommentsCountShard = updateCommentsCountShard.whereColumn("month").isEqualTo(bindMarker());
+			}
+			this.updateCommentsCountShard = session.prepare(
+					updateCommentsCountShard.whereColumn("announcement_creation_time").isEqualTo(bindMarker())
+											.whereColumn("shard").isEqualTo(bindMarker())
+											.build());
+		}
+	}
+
+	private static Select announcements(String table, boolean bucketed) {
+		return inPartition(QueryBuilder.selectFrom(KEYSPACE, table).all(), "author_id", bucketed);
+	}
+
+	private static Select commentsCounts(String table, boolean bucketed) {
+		return inPartition(QueryBuilder.selectFrom(KEYSPACE, table).all(), "announcement_author_id", bucketed);
+	}
+
+	private static Select inPartition(Select select, String authorColumn, boolean bucketed) {
+		Select byAuthor = select.whereColumn(authorColumn).isEqualTo(bindMarker());
+		return bucketed ? byAuthor.whereColumn("month").isEqualTo(bindMarker()) : byAuthor;
+	}
+
+	/**
+	 * Prepares on the first call and hands out the same statements afterwards. A failed preparation is tried again on the
+	 * next call.
+	 */
+	private static class OnFirstUse<T> {
+
+		private final Supplier<T> prepare;
+		private volatile T prepared;
+
+		OnFirstUse(Supplier<T> prepare) {
+			this.prepare = prepare;
+		}
+
+		T get() {
+			T current = prepared;
+			if (current == null) {
+				synchronized (this) {
+					current = prepared;
+					if (current == null) {
+						current = prepare.get();
+						prepared = current;
+					}
+				}
+			}
+			return current;
+		}
+	}
+}
@@ -0,0 +1,23 @@
+package com.maciej.wojtaczka.announcementboard.persistence;
+
+import com.datastax.oss.driver.api.core.CqlSession;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Runs {@link AnnouncementBucketBackfill} once on startup. Activate on a single instance, together with
+ * {@code announcement-board.partitioning.layout=DUAL_WRITE} on every instance.
+ */
+@Configuration
+@Profile("backfill")
+public class BackfillConfiguration {
+
+	@Bean
+	ApplicationRunner announcementBucketBackfill(CqlSession session,
+												 @Value("${announcement-board.partitioning.backfill-max-in-flight-writes:64}") int maxInFlightWrites) {
+		return args -> new AnnouncementBucketBackfill(session, maxInFlightWrites).run();
+	}
+}
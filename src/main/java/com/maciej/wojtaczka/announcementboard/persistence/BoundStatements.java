@@ -0,0 +1,42 @@
+package com.maciej.wojtaczka.announcementboard.persistence;
+
+import com.datastax.oss.driver.api.core.cql.BoundStatement;
+import org.springframework.data.cassandra.core.InsertOptions;
+
+import java.util.StringJoiner;
+
+class BoundStatements {
+
+	static final String READ_PROFILE = "read";
+	static final String WRITE_PROFILE = "write";
+
+	/**
+	 * For entities inserted through {@link org.springframework.data.cassandra.core.CassandraOperations}.
+	 */
+	static final InsertOptions WRITE_OPTIONS = InsertOptions.builder()
+															.executionProfile(WRITE_PROFILE)
+															.build();
+
+	/**
+	 * Runs the statement with the read execution profile and marks it idempotent, which lets the driver hedge it.
+	 */
+	static BoundStatement read(BoundStatement statement) {
+		return statement.setExecutionProfileName(READ_PROFILE)
+						.setIdempotent(true);
+	}
+
+	static BoundStatement write(BoundStatement statement) {
+		return statement.setExecutionProfileName(WRITE_PROFILE);
+	}
+
+	/**
+	 * The CQL text followed by the bound values, for logging.
+	 */
+	static String describe(BoundStatement statement) {
+		StringJoiner values = new StringJoiner(", ", " [", "]");
+		for (int i = 0; i < statement.size(); i++) {
+			values.add(String.valueOf(statement.getObject(i)));
+		}
+		return statement.getPreparedStatement().getQuery() + values;
+	}
+}
@@ -0,0 +1,15 @@
+package com.maciej.wojtaczka.announcementboard.persistence;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+class CassandraMetrics {
+
+	static Timer statementTimer(String table, String operation, MeterRegistry meterRegistry) {
+		return Timer.builder("cassandra.statement")
+					.description("Time to execute a CQL statement")
+					.tag("table", table)
+					.tag("operation", operation)
+					.register(meterRegistry);
+	}
+}
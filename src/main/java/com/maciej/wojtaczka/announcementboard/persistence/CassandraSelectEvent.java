@@ -0,0 +1,28 @@
+package com.maciej.wojtaczka.announcementboard.persistence;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.maciej.wojtaczka.announcementboard.CassandraSelect")
+@Label("Cassandra Select")
+@Description("A select issued by AnnouncementRepositoryAdapter, from the moment it was issued until its rows arrived")
+@Category({ "Announcement Board", "Cassandra" })
+class CassandraSelectEvent extends jdk.jfr.Event {
+
+	@Label("Table")
+	String table;
+
+	@Label("Partition Key")
+	String partitionKey;
+
+	@Label("Requested Rows")
+	int requestedRows;
+
+	@Label("Returned Rows")
+	int returnedRows;
+
+	@Label("Failed")
+	boolean failed;
+}
@@ -0,0 +1,183 @@
+package com.maciej.wojtaczka.announcementboard.persistence;
+
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.cql.BoundStatement;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Adds up comment counter increments in memory and writes each counter's sum as one update, every {@code flushInterval}
+ * or as soon as {@code maxPendingCounters} counters are waiting. Increments of a counter go to a {@link LongAdder}, so
+ * comments on the same hot announcement do not contend with each other.
+ * A counter that received nothing since the last flush is retired from the map and drained once more on the next
+ * flush, which picks up increments of threads that looked it up just before it was retired. Failed updates are added
+ * back and retried with the next flush. Closing flushes whatever is left; increments arriving after that are written
+ * straight away.
+ */
+@Slf4j
+public class CommentCountWriteBehind implements AutoCloseable {
+
+	private static final Duration SHUTDOWN_TIMEOUT = Duration.ofSeconds(10);
+
+	private final CqlSession session;
+	private final AnnouncementStatements statements;
+	private final int maxPendingCounters;
+	private final ScheduledExecutorService flusher;
+	private final Map<CounterKey, LongAdder> pending = new ConcurrentHashMap<>();
+	private final Map<CounterKey, LongAdder> retired = new HashMap<>();
+	private final AtomicBoolean flushRequested = new AtomicBoolean();
+	private final StatementTimers statementTimers;
+	private final MeterRegistry meterRegistry;
+	private volatile boolean closed;
+
+	public CommentCountWriteBehind(CqlSession session, Duration flushInterval, int maxPendingCounters, MeterRegistry meterRegistry) {
+		this.session = session;
+		this.statements = new AnnouncementStatements(session);
+		this.maxPendingCounters = maxPendingCounters;
+		this.meterRegistry = meterRegistry;
+		this.statementTimers = new StatementTimers(meterRegistry);
+		meterRegistry.gaugeMapSize("cassandra.comments.count.pending", Tags.empty(), pending);
+
+		this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "comment-count-flusher");
+			thread.setDaemon(true);
+			return thread;
+		});
+		long intervalNanos = flushInterval.toNanos();
+		flusher.scheduleWithFixedDelay(this::flushQuietly, intervalNanos, intervalNanos, TimeUnit.NANOSECONDS);
+	}
+
+	private CommentCountWriteBehind() {
+		this.session = null;
+		this.statements = null;
+		this.maxPendingCounters = 0;
+		this.flusher = null;
+		this.statementTimers = null;
+		this.meterRegistry = null;
+	}
+
+	public static CommentCountWriteBehind disabled() {
+		return new CommentCountWriteBehind();
+	}
+
+	public boolean isEnabled() {
+		return flusher != null;
+	}
+
+	void add(AnnouncementPartition partition, Instant announcementCreationTime, OptionalInt shard, long delta) {
+		if (!isEnabled()) {
+			throw new IllegalStateException("Write-behind of comment counts is disabled");
+		}
+		accumulate(new CounterKey(partition, announcementCreationTime, shard.isPresent() ? shard.getAsInt() : null), delta);
+		if (closed) {
+			flush();
+		} else if (pending.size() >= maxPendingCounters && flushRequested.compareAndSet(false, true)) {
+			flusher.execute(this::flushQuietly);
+		}
+	}
+
+	synchronized void flush() {
+		flushRequested.set(false);
+		Map<CounterKey, Long> deltas = new HashMap<>();
+		retired.forEach((key, adder) -> drain(key, adder, deltas));
+		retired.clear();
+		pending.forEach((key, adder) -> {
+			if (drain(key, adder, deltas) == 0 && pending.remove(key, adder)) {
+				retired.put(key, adder);
+			}
+		});
+		write(deltas);
+	}
+
+	@Override
+	public void close() throws InterruptedException {
+		if (!isEnabled()) {
+			return;
+		}
+		closed = true;
+		flusher.shutdown();
+		if (!flusher.awaitTermination(SHUTDOWN_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)) {
+			log.warn("Comment count flusher did not stop within {}", SHUTDOWN_TIMEOUT);
+		}
+		flush();
+		flush();
+		long lost = pending.values().stream()
+						   .mapToLong(LongAdder::sum)
+						   .sum();
+		if (lost != 0) {
+			log.error("Could not write {} comment count increments of {} counters on shutdown", lost, pending.size());
+		}
+	}
+
+	private void accumulate(CounterKey key, long delta) {
+		pending.computeIfAbsent(key, counter -> new LongAdder())
+			   .add(delta);
+	}
+
+	private static long drain(CounterKey key, LongAdder adder, Map<CounterKey, Long> deltas) {
+		long delta = adder.sum();
+		if (delta != 0) {
+			adder.add(-delta);
+			deltas.merge(key, delta, Long::sum);
+		}
+		return delta;
+	}
+
+	private void write(Map<CounterKey, Long> deltas) {
+		List<CompletableFuture<?>> updates = new ArrayList<>(deltas.size());
+		deltas.forEach((key, delta) -> {
+			BoundStatement update = statements.addToCommentsCount(key.getPartition(), key.getAnnouncementCreationTime(), key.shard(), delta);
+			Timer timer = statementTimers.get(AnnouncementStatements.commentsCountTable(key.getPartition(), key.shard()), "update");
+			Timer.Sample sample = Timer.start(meterRegistry);
+			updates.add(session.executeAsync(update)
+							   .toCompletableFuture()
+							   .whenComplete((result, error) -> {
+								   sample.stop(timer);
+								   if (error != null) {
+									   log.warn("Could not add {} to comments count {}, retrying with the next flush", delta, key, error);
+									   accumulate(key, delta);
+								   }
+							   }));
+		});
+		CompletableFuture.allOf(updates.toArray(new CompletableFuture[0]))
+						 .exceptionally(error -> null)
+						 .join();
+	}
+
+	private void flushQuietly() {
+		try {
+			flush();
+		} catch (RuntimeException e) {
+			log.warn("Could not flush comment counts: ", e);
+		}
+	}
+
+	@Value
+	private static class CounterKey {
+		AnnouncementPartition partition;
+		Instant announcementCreationTime;
+		Integer shard;
+
+		OptionalInt shard() {
+			return shard == null ? OptionalInt.empty() : OptionalInt.of(shard);
+		}
+	}
+}
@@ -0,0 +1,70 @@
+package com.maciej.wojtaczka.announcementboard.persistence;
+
+import com.maciej.wojtaczka.announcementboard.domain.hotkeys.HeavyHitterSketch;
+import com.maciej.wojtaczka.announcementboard.domain.query.AnnouncementQuery;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.OptionalInt;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decides which counter row a comment increments. An announcement commented about {@code threshold} times within one
+ * {@code interval} spreads its increments over {@code shards} rows picked by the commenter, everything else keeps
+ * incrementing its single {@code comments_count} row. Readers add the shards to the single row, so every instance
+ * decides on its own and an announcement can move in and out of sharding at any time.
+ */
+public class CommentCounterSharding {
+
+	private static final int TRACKED_ANNOUNCEMENTS = 100;
+
+	private final int shards;
+	private final long threshold;
+	private final HeavyHitterSketch<AnnouncementQuery> comments;
+	private final long intervalNanos;
+	private final AtomicLong nextDecayNanos;
+
+	/**
+	 * @param shards rows per sharded announcement, {@code 0} disables sharding
+	 */
+	public CommentCounterSharding(int shards, long threshold, Duration interval) {
+		this.shards = shards;
+		this.threshold = threshold;
+		this.comments = new HeavyHitterSketch<>(4096, 4, TRACKED_ANNOUNCEMENTS);
+		this.intervalNanos = interval.toNanos();
+		this.nextDecayNanos = new AtomicLong(System.nanoTime() + intervalNanos);
+	}
+
+	public static CommentCounterSharding disabled() {
+		return new CommentCounterSharding(0, Long.MAX_VALUE, Duration.ofMinutes(1));
+	}
+
+	public boolean isEnabled() {
+		return shards > 0;
+	}
+
+	/**
+	 * Counts the comment towards the announcement's rate.
+	 *
+	 * @return the shard to increment, or empty for the single row
+	 */
+	public OptionalInt shardFor(UUID announcementAuthorId, Instant announcementCreationTime, UUID commenterId) {
+		if (!isEnabled()) {
+			return OptionalInt.empty();
+		}
+		decayIfDue();
+		long recentComments = comments.add(new AnnouncementQuery(announcementAuthorId, announcementCreationTime), 1);
+		if (recentComments < threshold) {
+			return OptionalInt.empty();
+		}
+		return OptionalInt.of(Math.floorMod(commenterId.hashCode(), shards));
+	}
+
+	private void decayIfDue() {
+		long due = nextDecayNanos.get();
+		if (System.nanoTime() - due >= 0 && nextDecayNanos.compareAndSet(due, due + intervalNanos)) {
+			comments.decay();
+		}
+	}
+}
@@ -0,0 +1,415 @@
+package com.maciej.wojtaczka.announcementboard.persistence;
+
+import com.datastax.oss.driver.api.core.ConsistencyLevel;
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.cql.BoundStatement;
+import com.datastax.oss.driver.api.core.cql.PreparedStatement;
+import com.datastax.oss.driver.api.core.cql.ResultSet;
+import com.datastax.oss.driver.api.core.cql.Row;
+import com.datastax.oss.driver.api.querybuilder.QueryBuilder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static com.datastax.oss.driver.api.querybuilder.QueryBuilder.bindMarker;
+
+/**
+ * Recounts the comments of every announcement by walking the {@code comment} table one token range at a time, reading at most
+ * {@code rowsPerSecond} rows per second, and moves each comments count that drifted from its recount by the difference.
+ * The comments count tables the layout writes to are walked over the same token ranges as well, so that a count left behind
+ * by comments that were never written, or were deleted since, is moved back to zero.
+ * The end of the last walked range is checkpointed in {@code reconciliation_checkpoint}, so a restarted job resumes there.
+ * Once the whole ring is walked the job starts over after {@code pauseBetweenPasses}.
+ * Increments may wait in the write-behind of any instance, or in its adjustment queue after a failed write, so a counter
+ * behind its recount is not necessarily drifted. A drifted counter is therefore read again {@code settleDelay} after it was
+ * recounted, which must cover the write-behind flush and the adjustment retry intervals, and repaired only if it did not
+ * change in between. The walk does not wait for that, drifts are repaired after the first range walked once they settled,
+ * and the ones still settling at the end of the pass are waited for together. Drifts still settling when the job stops are
+ * left to the next pass. Increments still queued after a retry failed for longer than that may get counted twice.
+ * Run it on a single instance, two jobs would both repair the same drift.
+ */
+@Slf4j
+public class CommentsCountReconciler implements AutoCloseable {
+
+	private static final String KEYSPACE = "announcement_board";
+	private static final String JOB = "comments_count";
+	private static final int MAX_PAGE_SIZE = 1000;
+	private static final ConsistencyLevel CONSISTENCY = ConsistencyLevel.LOCAL_QUORUM;
+
+	private final CqlSession session;
+	private final AnnouncementStatements statements;
+	private final PartitionLayout layout;
+	private final boolean sharded;
+	private final int tokenRanges;
+	private final int rowsPerSecond;
+	private final Duration pauseBetweenPasses;
+	private final Duration settleDelay;
+	private final PreparedStatement scanComments;
+	private final PreparedStatement countComments;
+	private final PreparedStatement findComment;
+	private final List<CounterScan> counterScans;
+	private final PreparedStatement selectCheckpoint;
+	private final PreparedStatement saveCheckpoint;
+	private final Counter scannedRows;
+	private final Counter repairedCounters;
+	private final ExecutorService worker;
+
+	public CommentsCountReconciler(CqlSession session,
+								   PartitionLayout layout,
+								   boolean sharded,
+								   int tokenRanges,
+								   int rowsPerSecond,
+								   Duration pauseBetweenPasses,
+								   Duration settleDelay,
+								   MeterRegistry meterRegistry) {
+		this.session = session;
+		this.statements = new AnnouncementStatements(session);
+		this.layout = layout;
+		this.sharded = sharded;
+		this.tokenRanges = tokenRanges;
+		this.rowsPerSecond = rowsPerSecond;
+		this.pauseBetweenPasses = pauseBetweenPasses;
+		this.settleDelay = settleDelay;
+		this.scanComments = session.prepare(
+				QueryBuilder.selectFrom(KEYSPACE, "comment")
+							.columns("announcement_author_id", "announcement_creation_time")
+							.whereToken("announcement_author_id", "announcement_creation_time").isGreaterThan(bindMarker())
+							.whereToken("announcement_author_id", "announcement_creation_time").isLessThanOrEqualTo(bindMarker())
+							.build());
+		this.countComments = session.prepare(
+				QueryBuilder.selectFrom(KEYSPACE, "comment")
+							.countAll()
+							.whereColumn("announcement_author_id").isEqualTo(bindMarker())
+							.whereColumn("announcement_creation_time").isEqualTo(bindMarker())
+							.build());
+		this.findComment = session.prepare(
+				QueryBuilder.selectFrom(KEYSPACE, "comment")
+							.column("announcement_author_id")
+							.whereColumn("announcement_author_id").isEqualTo(bindMarker())
+							.whereColumn("announcement_creation_time").isEqualTo(bindMarker())
+							.limit(1)
+							.build());
+		this.counterScans = prepareCounterScans(session, layout, sharded);
+		this.selectCheckpoint = session.prepare(
+				QueryBuilder.selectFrom(KEYSPACE, "reconciliation_checkpoint")
+							.column("last_token")
+							.whereColumn("job").isEqualTo(bindMarker())
+							.build());
+		this.saveCheckpoint = session.prepare(
+				QueryBuilder.insertInto(KEYSPACE, "reconciliation_checkpoint")
+							.value("job", bindMarker())
+							.value("last_token", bindMarker())
+							.build());
+		this.scannedRows = meterRegistry.counter("cassandra.comments.count.reconciliation.rows");
+		this.repairedCounters = meterRegistry.counter("cassandra.comments.count.reconciliation.repairs");
+		this.worker = Executors.newSingleThreadExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "comments-count-reconciler");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Only the tables the layout writes to are scanned, the others may not even exist.
+	 */
+	private static List<CounterScan> prepareCounterScans(CqlSession session, PartitionLayout layout, boolean sharded) {
+		List<CounterScan> scans = new ArrayList<>();
+		if (layout.writesUnbucketed()) {
+			scans.add(prepareCounterScan(session, "comments_count", false));
+			if (sharded) {
+				scans.add(prepareCounterScan(session, "comments_count_shard", false));
+			}
+		}
+		if (layout.writesBucketed()) {
+			scans.add(prepareCounterScan(session, "comments_count_by_month", true));
+			if (sharded) {
+				scans.add(prepareCounterScan(session, "comments_count_shard_by_month", true));
+			}
+		}
+		return scans;
+	}
+
+	private static CounterScan prepareCounterScan(CqlSession session, String table, boolean bucketed) {
+		String[] partitionKey = bucketed ? new String[] { "announcement_author_id", "month" } : new String[] { "announcement_author_id" };
+		PreparedStatement scan = session.prepare(
+				QueryBuilder.selectFrom(KEYSPACE, table)
+							.columns("announcement_author_id", "announcement_creation_time", "comments_count")
+							.whereToken(partitionKey).isGreaterThan(bindMarker())
+							.whereToken(partitionKey).isLessThanOrEqualTo(bindMarker())
+							.build());
+		return new CounterScan(scan, bucketed);
+	}
+
+	public void start() {
+		worker.execute(this::runPasses);
+	}
+
+	@Override
+	public void close() throws InterruptedException {
+		worker.shutdownNow();
+		worker.awaitTermination(10, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * The end of the range that follows {@code token} when the ring is split into {@code tokenRanges} equal ranges.
+	 */
+	static long nextBoundary(long token, int tokenRanges) {
+		long width = Long.divideUnsigned(-1L, tokenRanges);
+		long range = Long.divideUnsigned(token - Long.MIN_VALUE, width) + 1;
+		return range >= tokenRanges ? Long.MAX_VALUE : Long.MIN_VALUE + range * width;
+	}
+
+	private void runPasses() {
+		while (!Thread.currentThread().isInterrupted()) {
+			try {
+				runPass();
+				TimeUnit.NANOSECONDS.sleep(pauseBetweenPasses.toNanos());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} catch (RuntimeException e) {
+				log.warn("Comments count reconciliation failed, resuming from the last checkpoint after a pause: ", e);
+				try {
+					TimeUnit.NANOSECONDS.sleep(pauseBetweenPasses.toNanos());
+				} catch (InterruptedException interrupted) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		}
+	}
+
+	void runPass() throws InterruptedException {
+		long from = loadCheckpoint();
+		log.info("Reconciling comments counts from token {}", from);
+		Throttle throttle = new Throttle(rowsPerSecond);
+		Deque<Drift> settling = new ArrayDeque<>();
+		while (from != Long.MAX_VALUE) {
+			long to = nextBoundary(from, tokenRanges);
+			recountComments(from, to, throttle, settling);
+			for (CounterScan counterScan : counterScans) {
+				recountCommentsCounts(counterScan, from, to, throttle, settling);
+			}
+			repairSettled(settling);
+			saveCheckpoint(to == Long.MAX_VALUE ? Long.MIN_VALUE : to);
+			from = to;
+		}
+		if (!settling.isEmpty()) {
+			awaitSettling(Duration.ofNanos(settling.getLast().getSettledAt() - System.nanoTime()));
+			settling.forEach(this::repair);
+		}
+		log.info("Reconciled comments counts of the whole ring");
+	}
+
+	private void recountComments(long from, long to, Throttle throttle, Deque<Drift> drifts) throws InterruptedException {
+		ResultSet comments = session.execute(scanComments.bind(from, to)
+														 .setPageSize(Math.min(rowsPerSecond, MAX_PAGE_SIZE))
+														 .setConsistencyLevel(CONSISTENCY));
+		UUID authorId = null;
+		Instant creationTime = null;
+		long counted = 0;
+		long rowsInPage = 0;
+		for (Row row : comments) {
+			UUID rowAuthorId = row.getUuid("announcement_author_id");
+			Instant rowCreationTime = row.getInstant("announcement_creation_time");
+			if (!rowAuthorId.equals(authorId) || !rowCreationTime.equals(creationTime)) {
+				if (authorId != null) {
+					findDrifts(authorId, creationTime, counted, drifts);
+				}
+				authorId = rowAuthorId;
+				creationTime = rowCreationTime;
+				counted = 0;
+			}
+			counted++;
+			rowsInPage++;
+			if (comments.getAvailableWithoutFetching() == 0) {
+				scannedRows.increment(rowsInPage);
+				throttle.pace(rowsInPage);
+				rowsInPage = 0;
+			}
+		}
+		if (authorId != null) {
+			findDrifts(authorId, creationTime, counted, drifts);
+		}
+	}
+
+	private void findDrifts(UUID authorId, Instant creationTime, long counted, Deque<Drift> drifts) {
+		Long recounted = null;
+		for (AnnouncementPartition partition : layout.writePartitions(authorId, creationTime)) {
+			long current = readCommentsCount(partition, creationTime);
+			if (current == counted) {
+				continue;
+			}
+			if (recounted == null) {
+				recounted = countComments(authorId, creationTime);
+			}
+			if (recounted != current) {
+				drifts.add(drift(partition, creationTime, current, recounted));
+			}
+		}
+	}
+
+	/**
+	 * Finds the counts of announcements without a single comment, the ones with comments are recounted from the comment rows.
+	 */
+	private void recountCommentsCounts(CounterScan counterScan, long from, long to, Throttle throttle, Deque<Drift> drifts)
+			throws InterruptedException {
+		ResultSet counts = session.execute(counterScan.getStatement().bind(from, to)
+													  .setPageSize(Math.min(rowsPerSecond, MAX_PAGE_SIZE))
+													  .setConsistencyLevel(CONSISTENCY));
+		Set<CountedAnnouncement> counted = new LinkedHashSet<>();
+		long rowsInPage = 0;
+		for (Row row : counts) {
+			UUID authorId = row.getUuid("announcement_author_id");
+			Instant creationTime = row.getInstant("announcement_creation_time");
+			if (row.getLong("comments_count") != 0) {
+				AnnouncementPartition partition = counterScan.isBucketed() ? AnnouncementPartition.bucketed(authorId, creationTime)
+																		   : AnnouncementPartition.unbucketed(authorId);
+				counted.add(new CountedAnnouncement(partition, creationTime));
+			}
+			rowsInPage++;
+			if (counts.getAvailableWithoutFetching() == 0) {
+				scannedRows.increment(rowsInPage);
+				throttle.pace(rowsInPage);
+				rowsInPage = 0;
+			}
+		}
+		for (CountedAnnouncement announcement : counted) {
+			AnnouncementPartition partition = announcement.getPartition();
+			if (hasComments(partition.getAuthorId(), announcement.getCreationTime())) {
+				continue;
+			}
+			long current = readCommentsCount(partition, announcement.getCreationTime());
+			if (current != 0) {
+				drifts.add(drift(partition, announcement.getCreationTime(), current, 0));
+			}
+		}
+	}
+
+	private Drift drift(AnnouncementPartition partition, Instant creationTime, long current, long recounted) {
+		return new Drift(partition, creationTime, current, recounted, System.nanoTime() + settleDelay.toNanos());
+	}
+
+	private void repairSettled(Deque<Drift> settling) {
+		while (!settling.isEmpty() && settling.getFirst().getSettledAt() - System.nanoTime() <= 0) {
+			repair(settling.removeFirst());
+		}
+	}
+
+	/**
+	 * Gives the increments pending when the last drifts of a pass were read the time to be applied.
+	 */
+	void awaitSettling(Duration remaining) throws InterruptedException {
+		TimeUnit.NANOSECONDS.sleep(remaining.toNanos());
+	}
+
+	private void repair(Drift drift) {
+		AnnouncementPartition partition = drift.getPartition();
+		Instant creationTime = drift.getCreationTime();
+		if (readCommentsCount(partition, creationTime) != drift.getCurrent()) {
+			log.debug("Comments count of {} at {} changed while settling, skipping it", partition, creationTime);
+			return;
+		}
+		session.execute(statements.addToCommentsCount(partition, creationTime, drift.getRecounted() - drift.getCurrent())
+								  .setConsistencyLevel(CONSISTENCY));
+		repairedCounters.increment();
+		log.info("Repaired comments count of {} at {} from {} to {}", partition, creationTime, drift.getCurrent(), drift.getRecounted());
+	}
+
+	private long readCommentsCount(AnnouncementPartition partition, Instant creationTime) {
+		long commentsCount = sumCommentsCounts(session.execute(statements.selectCommentsCount(partition, creationTime)
+																		 .setConsistencyLevel(CONSISTENCY)));
+		if (!sharded) {
+			return commentsCount;
+		}
+		return commentsCount + sumCommentsCounts(session.execute(statements.selectCommentsCountShards(partition, creationTime)
+																		   .setConsistencyLevel(CONSISTENCY)));
+	}
+
+	private static long sumCommentsCounts(ResultSet counts) {
+		long sum = 0;
+		for (Row row : counts) {
+			sum += row.getLong("comments_count");
+		}
+		return sum;
+	}
+
+	private boolean hasComments(UUID authorId, Instant creationTime) {
+		return session.execute(findComment.bind(authorId, creationTime).setConsistencyLevel(CONSISTENCY)).one() != null;
+	}
+
+	private long countComments(UUID authorId, Instant creationTime) {
+		Row count = session.execute(countComments.bind(authorId, creationTime).setConsistencyLevel(CONSISTENCY)).one();
+		return Objects.requireNonNull(count).getLong(0);
+	}
+
+	private long loadCheckpoint() {
+		Row checkpoint = session.execute(selectCheckpoint.bind(JOB).setConsistencyLevel(CONSISTENCY)).one();
+		return checkpoint == null || checkpoint.isNull("last_token") ? Long.MIN_VALUE : checkpoint.getLong("last_token");
+	}
+
+	private void saveCheckpoint(long token) {
+		BoundStatement save = saveCheckpoint.bind(JOB, token).setConsistencyLevel(CONSISTENCY);
+		session.execute(save);
+	}
+
+	@Value
+	private static class Drift {
+
+		AnnouncementPartition partition;
+		Instant creationTime;
+		long current;
+		long recounted;
+		long settledAt;
+	}
+
+	@Value
+	private static class CountedAnnouncement {
+
+		AnnouncementPartition partition;
+		Instant creationTime;
+	}
+
+	@Value
+	private static class CounterScan {
+
+		PreparedStatement statement;
+		boolean bucketed;
+	}
+
+	/**
+	 * Sleeps between pages so that rows are read at no more than the given rate. Time lost to slow pages is not made up for.
+	 */
+	private static class Throttle {
+
+		private final long nanosPerRow;
+		private long nextPageAt = System.nanoTime();
+
+		Throttle(int rowsPerSecond) {
+			this.nanosPerRow = TimeUnit.SECONDS.toNanos(1) / rowsPerSecond;
+		}
+
+		void pace(long rows) throws InterruptedException {
+			nextPageAt += rows * nanosPerRow;
+			long wait = nextPageAt - System.nanoTime();
+			if (wait > 0) {
+				TimeUnit.NANOSECONDS.sleep(wait);
+			} else {
+				nextPageAt = System.nanoTime();
+			}
+		}
+	}
+}
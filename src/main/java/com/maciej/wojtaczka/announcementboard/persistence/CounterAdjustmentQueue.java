@@ -0,0 +1,223 @@
+package com.maciej.wojtaczka.announcementboard.persistence;
+
+import com.datastax.oss.driver.api.core.CqlSession;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Comment counter adjustments that could not be written, such as a compensating decrement after a failed comment insert.
+ * Each adjustment is appended to a local journal and synced before {@link #enqueue} returns, then retried every
+ * {@code retryInterval} until it is applied, which is journaled as well. Adjustments still pending when the service stops
+ * are loaded from the journal on the next start, so the journal has to live on storage that outlives the instance, such
+ * as a mounted volume. It is opened on start, which fails if it is not writable, and emptied whenever nothing is pending.
+ * An adjustment that cannot be journaled later on is still retried, it is only lost if the service stops first.
+ * A retry of an update that timed out but was applied counts it twice; such drift is left to the counter reconciliation.
+ */
+@Slf4j
+public class CounterAdjustmentQueue implements AutoCloseable {
+
+	private static final String NONE = "-";
+
+	private final CqlSession session;
+	private final AnnouncementStatements statements;
+	private final Path journal;
+	private final Map<UUID, CounterAdjustment> pending = new ConcurrentHashMap<>();
+	private final ScheduledExecutorService retrier;
+	private final Counter unjournaled;
+	/**
+	 * Guards the journal, and the pending adjustments together with it so that the journal is never emptied between
+	 * appending an adjustment and queueing it. Retries complete on driver threads, so it is never held while waiting for them.
+	 */
+	private final Object journalLock = new Object();
+	private final Object retryLock = new Object();
+	private final FileChannel journalChannel;
+
+	public CounterAdjustmentQueue(CqlSession session, Path journal, Duration retryInterval, MeterRegistry meterRegistry) throws IOException {
+		this.session = session;
+		this.statements = new AnnouncementStatements(session);
+		this.journal = journal;
+		load();
+		this.journalChannel = FileChannel.open(journal, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+		meterRegistry.gaugeMapSize("cassandra.comments.count.adjustments.pending", Tags.empty(), pending);
+		this.unjournaled = meterRegistry.counter("cassandra.comments.count.adjustments.unjournaled");
+
+		this.retrier = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "counter-adjustment-retrier");
+			thread.setDaemon(true);
+			return thread;
+		});
+		long intervalNanos = retryInterval.toNanos();
+		retrier.scheduleWithFixedDelay(this::retryPendingQuietly, intervalNanos, intervalNanos, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Never throws, so that a journal failure does not fail the write that needed the adjustment.
+	 */
+	void enqueue(AnnouncementPartition partition, Instant announcementCreationTime, OptionalInt shard, long delta) {
+		CounterAdjustment adjustment = new CounterAdjustment(UUID.randomUUID(), partition, announcementCreationTime,
+															 shard.isPresent() ? shard.getAsInt() : null, delta);
+		synchronized (journalLock) {
+			try {
+				append(adjustment.toJournalLine());
+			} catch (IOException e) {
+				unjournaled.increment();
+				log.error("Could not journal comments count adjustment {} to {}, it is lost if the service stops before it is applied: ",
+						  adjustment, journal, e);
+			}
+			pending.put(adjustment.getId(), adjustment);
+		}
+		log.warn("Queued comments count adjustment {} for retry", adjustment);
+	}
+
+	int pendingCount() {
+		return pending.size();
+	}
+
+	void retryPending() {
+		synchronized (retryLock) {
+			List<CompletableFuture<?>> retries = new ArrayList<>(pending.size());
+			for (CounterAdjustment adjustment : List.copyOf(pending.values())) {
+				retries.add(session.executeAsync(statements.addToCommentsCount(adjustment.getPartition(),
+																			   adjustment.getAnnouncementCreationTime(),
+																			   adjustment.shard(),
+																			   adjustment.getDelta()))
+								   .toCompletableFuture()
+								   .thenRun(() -> applied(adjustment)));
+			}
+			CompletableFuture.allOf(retries.toArray(new CompletableFuture[0]))
+							 .exceptionally(error -> {
+								 log.warn("Some comments count adjustments are still pending: ", error);
+								 return null;
+							 })
+							 .join();
+			truncateJournalIfNothingPending();
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		retrier.shutdownNow();
+		synchronized (journalLock) {
+			journalChannel.close();
+		}
+		if (!pending.isEmpty()) {
+			log.warn("{} comments count adjustments stay in {} until the next start", pending.size(), journal);
+		}
+	}
+
+	private void applied(CounterAdjustment adjustment) {
+		synchronized (journalLock) {
+			try {
+				append("- " + adjustment.getId());
+			} catch (IOException e) {
+				log.warn("Could not journal that comments count adjustment {} was applied, it is applied again after a restart: ",
+						 adjustment, e);
+			}
+			pending.remove(adjustment.getId());
+		}
+	}
+
+	private void load() throws IOException {
+		if (!Files.exists(journal)) {
+			return;
+		}
+		for (String line : Files.readAllLines(journal, StandardCharsets.UTF_8)) {
+			String[] fields = line.split(" ");
+			try {
+				if (fields[0].equals("+")) {
+					CounterAdjustment adjustment = CounterAdjustment.fromJournalFields(fields);
+					pending.put(adjustment.getId(), adjustment);
+				} else if (fields[0].equals("-")) {
+					pending.remove(UUID.fromString(fields[1]));
+				}
+			} catch (RuntimeException e) {
+				log.warn("Skipping unreadable line of {}: {}", journal, line);
+			}
+		}
+		if (!pending.isEmpty()) {
+			log.info("Loaded {} pending comments count adjustments from {}", pending.size(), journal);
+		}
+	}
+
+	private void append(String line) throws IOException {
+		journalChannel.write(ByteBuffer.wrap((line + "\n").getBytes(StandardCharsets.UTF_8)));
+		journalChannel.force(false);
+	}
+
+	private void truncateJournalIfNothingPending() {
+		synchronized (journalLock) {
+			if (!pending.isEmpty()) {
+				return;
+			}
+			try {
+				journalChannel.truncate(0);
+			} catch (IOException e) {
+				log.warn("Could not truncate {}: ", journal, e);
+			}
+		}
+	}
+
+	private void retryPendingQuietly() {
+		try {
+			retryPending();
+		} catch (RuntimeException e) {
+			log.warn("Could not retry comments count adjustments: ", e);
+		}
+	}
+
+	@Value
+	private static class CounterAdjustment {
+		UUID id;
+		AnnouncementPartition partition;
+		Instant announcementCreationTime;
+		Integer shard;
+		long delta;
+
+		OptionalInt shard() {
+			return shard == null ? OptionalInt.empty() : OptionalInt.of(shard);
+		}
+
+		String toJournalLine() {
+			return String.join(" ", "+", id.toString(), partition.getAuthorId().toString(),
+							   partition.isBucketed() ? partition.getMonth().toString() : NONE,
+							   String.valueOf(announcementCreationTime.toEpochMilli()),
+							   shard == null ? NONE : shard.toString(),
+							   String.valueOf(delta));
+		}
+
+		static CounterAdjustment fromJournalFields(String[] fields) {
+			UUID authorId = UUID.fromString(fields[2]);
+			AnnouncementPartition partition = fields[3].equals(NONE)
+					? AnnouncementPartition.unbucketed(authorId)
+					: new AnnouncementPartition(authorId, Integer.valueOf(fields[3]));
+			return new CounterAdjustment(UUID.fromString(fields[1]),
+										 partition,
+										 Instant.ofEpochMilli(Long.parseLong(fields[4])),
+										 fields[5].equals(NONE) ? null : Integer.valueOf(fields[5]),
+										 Long.parseLong(fields[6]));
+		}
+	}
+}
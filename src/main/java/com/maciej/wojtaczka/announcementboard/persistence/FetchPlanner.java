@@ -0,0 +1,55 @@
+package com.maciej.wojtaczka.announcementboard.persistence;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Chooses how to read the requested announcements of one author. An {@link Strategy#EXACT} {@code IN} lookup costs about
+ * {@code inKeyCost} row reads per requested time, a {@link Strategy#RANGE} scan costs every row between the oldest and the
+ * newest requested time and a {@link Strategy#TAIL} scan every row from the oldest one on. Rows in a range are estimated
+ * from {@code expectedAnnouncementsPerDay}, but never fewer than the rows requested.
+ */
+public class FetchPlanner {
+
+	public enum Strategy {
+		EXACT, RANGE, TAIL
+	}
+
+	private static final double MILLIS_PER_DAY = Duration.ofDays(1).toMillis();
+
+	private final int maxInSize;
+	private final double inKeyCost;
+	private final double expectedAnnouncementsPerMilli;
+	private final Clock clock;
+
+	public FetchPlanner(int maxInSize, double inKeyCost, double expectedAnnouncementsPerDay, Clock clock) {
+		this.maxInSize = maxInSize;
+		this.inKeyCost = inKeyCost;
+		this.expectedAnnouncementsPerMilli = expectedAnnouncementsPerDay / MILLIS_PER_DAY;
+		this.clock = clock;
+	}
+
+	/**
+	 * @param creationTimes requested creation times, oldest first
+	 */
+	public Strategy plan(List<Instant> creationTimes) {
+		int requested = creationTimes.size();
+		Instant oldest = creationTimes.get(0);
+		Instant newest = creationTimes.get(requested - 1);
+
+		double exactCost = requested <= maxInSize ? requested * inKeyCost : Double.POSITIVE_INFINITY;
+		double rangeCost = Math.max(requested, expectedRowsBetween(oldest, newest));
+		double rowsAfterNewest = expectedRowsBetween(newest, clock.instant());
+
+		if (rangeCost > exactCost) {
+			return Strategy.EXACT;
+		}
+		return rowsAfterNewest < 1 ? Strategy.TAIL : Strategy.RANGE;
+	}
+
+	private double expectedRowsBetween(Instant from, Instant to) {
+		return Math.max(0, to.toEpochMilli() - from.toEpochMilli()) * expectedAnnouncementsPerMilli;
+	}
+}
@@ -0,0 +1,21 @@
+package com.maciej.wojtaczka.announcementboard.persistence;
+
+/**
+ * A listing that pages back through the month partitions of its table. The months each author has rows in are kept in
+ * {@code month_by_author} under the name of the table.
+ */
+enum MonthListing {
+
+	TIMELINE("announcement_by_month"),
+	COMMENTS("comment_by_author");
+
+	private final String table;
+
+	MonthListing(String table) {
+		this.table = table;
+	}
+
+	String getTable() {
+		return table;
+	}
+}
@@ -0,0 +1,50 @@
+package com.maciej.wojtaczka.announcementboard.persistence;
+
+import com.maciej.wojtaczka.announcementboard.domain.exception.AnnouncementException;
+import lombok.Value;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+
+/**
+ * Position in a listing that pages back through month partitions: the month being read, {@code null} when the listing
+ * has a single partition, and the driver paging state within it, {@code null} to start from its newest row.
+ * Encoded as the month, if any, and the URL-safe Base64 paging state, separated by a dot.
+ */
+@Value
+class PagingCursor {
+
+	private static final String SEPARATOR = ".";
+
+	Integer month;
+	ByteBuffer pagingState;
+
+	static PagingCursor start(Integer month) {
+		return new PagingCursor(month, null);
+	}
+
+	static PagingCursor decode(String cursor) {
+		int separator = cursor.indexOf(SEPARATOR);
+		if (separator < 0) {
+			throw AnnouncementException.invalidCursor(cursor);
+		}
+		try {
+			String month = cursor.substring(0, separator);
+			String pagingState = cursor.substring(separator + 1);
+			return new PagingCursor(month.isEmpty() ? null : Integer.valueOf(month),
+									pagingState.isEmpty() ? null : ByteBuffer.wrap(Base64.getUrlDecoder().decode(pagingState)));
+		} catch (IllegalArgumentException e) {
+			throw AnnouncementException.invalidCursor(cursor);
+		}
+	}
+
+	String encode() {
+		String month = this.month == null ? "" : this.month.toString();
+		if (pagingState == null) {
+			return month + SEPARATOR;
+		}
+		byte[] bytes = new byte[pagingState.remaining()];
+		pagingState.duplicate().get(bytes);
+		return month + SEPARATOR + Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+	}
+}
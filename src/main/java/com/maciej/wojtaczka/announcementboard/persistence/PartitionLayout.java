@@ -0,0 +1,63 @@
+package com.maciej.wojtaczka.announcementboard.persistence;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Which tables hold announcements and their comments counts. The tables partitioned by author and month keep prolific
+ * authors from growing partitions without bound. Moving to them goes through {@link #DUAL_WRITE}, in which
+ * {@link AnnouncementBucketBackfill} copies what was written before.
+ */
+public enum PartitionLayout {
+
+	/**
+	 * {@code announcement} and {@code comments_count}, partitioned by author.
+	 */
+	UNBUCKETED(true, false, false),
+	/**
+	 * Writes go to both layouts while reads still use the unbucketed one.
+	 */
+	DUAL_WRITE(true, true, false),
+	/**
+	 * {@code announcement_by_month} and {@code comments_count_by_month}, partitioned by author and month.
+	 */
+	BUCKETED(false, true, true);
+
+	private final boolean writesUnbucketed;
+	private final boolean writesBucketed;
+	private final boolean readsBucketed;
+
+	PartitionLayout(boolean writesUnbucketed, boolean writesBucketed, boolean readsBucketed) {
+		this.writesUnbucketed = writesUnbucketed;
+		this.writesBucketed = writesBucketed;
+		this.readsBucketed = readsBucketed;
+	}
+
+	boolean writesUnbucketed() {
+		return writesUnbucketed;
+	}
+
+	boolean writesBucketed() {
+		return writesBucketed;
+	}
+
+	boolean readsBucketed() {
+		return readsBucketed;
+	}
+
+	/**
+	 * Every partition an announcement and its comments count are written to.
+	 */
+	List<AnnouncementPartition> writePartitions(UUID authorId, Instant creationTime) {
+		List<AnnouncementPartition> partitions = new ArrayList<>(2);
+		if (writesUnbucketed) {
+			partitions.add(AnnouncementPartition.unbucketed(authorId));
+		}
+		if (writesBucketed) {
+			partitions.add(AnnouncementPartition.bucketed(authorId, creationTime));
+		}
+		return partitions;
+	}
+}
@@ -0,0 +1,55 @@
+package com.maciej.wojtaczka.announcementboard.persistence;
+
+import com.datastax.oss.driver.api.core.CqlIdentifier;
+import com.datastax.oss.driver.api.core.config.DefaultDriverOption;
+import com.datastax.oss.driver.api.core.config.DriverExecutionProfile;
+import com.datastax.oss.driver.api.core.context.DriverContext;
+import com.datastax.oss.driver.api.core.metadata.Node;
+import com.datastax.oss.driver.api.core.session.Request;
+import com.datastax.oss.driver.api.core.specex.SpeculativeExecutionPolicy;
+import com.datastax.oss.driver.api.core.tracker.RequestTracker;
+
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends another execution of an idempotent request once it has been running for as long as the percentile measured by
+ * {@link SpeculativeDelayTracker}, which has to be the session's request tracker. Until the tracker has enough samples,
+ * and when it is not registered, the profile's {@code advanced.speculative-execution-policy.delay} is used instead.
+ * Created by the driver for every execution profile that names it.
+ */
+public class PercentileSpeculativeExecutionPolicy implements SpeculativeExecutionPolicy {
+
+	private final DriverContext context;
+	private final String profileName;
+	private final int maxExecutions;
+	private final long fallbackDelayMillis;
+
+	public PercentileSpeculativeExecutionPolicy(DriverContext context, String profileName) {
+		DriverExecutionProfile profile = context.getConfig().getProfile(profileName);
+		this.context = context;
+		this.profileName = profileName;
+		this.maxExecutions = profile.getInt(DefaultDriverOption.SPECULATIVE_EXECUTION_MAX);
+		this.fallbackDelayMillis = profile.getDuration(DefaultDriverOption.SPECULATIVE_EXECUTION_DELAY).toMillis();
+	}
+
+	@Override
+	public long nextExecution(Node node, CqlIdentifier keyspace, Request request, int runningExecutions) {
+		if (runningExecutions >= maxExecutions) {
+			return -1;
+		}
+		RequestTracker tracker = context.getRequestTracker();
+		if (!(tracker instanceof SpeculativeDelayTracker)) {
+			return fallbackDelayMillis;
+		}
+		OptionalLong delayNanos = ((SpeculativeDelayTracker) tracker).delayNanos(profileName);
+		if (delayNanos.isEmpty()) {
+			return fallbackDelayMillis;
+		}
+		return Math.max(1, TimeUnit.NANOSECONDS.toMillis(delayNanos.getAsLong()));
+	}
+
+	@Override
+	public void close() {
+	}
+}
@@ -1,12 +1,24 @@
 package com.maciej.wojtaczka.announcementboard.persistence;
 
 import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.config.DefaultDriverOption;
+import com.maciej.wojtaczka.announcementboard.diagnostics.SlowOperationLog;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.opentelemetry.api.trace.Tracer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.cassandra.CqlSessionBuilderCustomizer;
+import org.springframework.boot.autoconfigure.cassandra.DriverConfigLoaderBuilderCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.cassandra.core.AsyncCassandraOperations;
 import org.springframework.data.cassandra.core.AsyncCassandraTemplate;
 import org.springframework.data.cassandra.core.CassandraOperations;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+
 @Configuration
 public class PersistenceConfiguration {
 
@@ -16,7 +28,101 @@ public class PersistenceConfiguration {
 	}
 
 	@Bean
-	AnnouncementRepositoryAdapter repository(CassandraOperations cassandraOperations, AsyncCassandraOperations asyncCassandraOperations) {
-		return new AnnouncementRepositoryAdapter(cassandraOperations, asyncCassandraOperations, 100);
+	SpeculativeDelayTracker speculativeDelayTracker(@Value("${announcement-board.cassandra-profiles.read.speculative-percentile:99}") double percentile,
+													@Value("${announcement-board.cassandra-profiles.read.speculative-min-samples:100}") long minSamples,
+													@Value("${announcement-board.cassandra-profiles.read.speculative-refresh-interval:10s}") Duration refreshInterval) {
+		return new SpeculativeDelayTracker(percentile, minSamples, refreshInterval);
+	}
+
+	@Bean
+	CqlSessionBuilderCustomizer speculativeDelayTracking(SpeculativeDelayTracker tracker) {
+		return builder -> builder.withRequestTracker(tracker);
+	}
+
+	/**
+	 * Reads run with the {@code read} profile, which hedges them, and writes with the {@code write} one.
+	 */
+	@Bean
+	DriverConfigLoaderBuilderCustomizer executionProfiles(@Value("${announcement-board.cassandra-profiles.read.timeout:2s}") Duration readTimeout,
+														  @Value("${announcement-board.cassandra-profiles.read.consistency:LOCAL_ONE}") String readConsistency,
+														  @Value("${announcement-board.cassandra-profiles.read.page-size:5000}") int readPageSize,
+														  @Value("${announcement-board.cassandra-profiles.read.max-executions:2}") int maxReadExecutions,
+														  @Value("${announcement-board.cassandra-profiles.read.speculative-delay:50ms}") Duration speculativeDelay,
+														  @Value("${announcement-board.cassandra-profiles.write.timeout:5s}") Duration writeTimeout,
+														  @Value("${announcement-board.cassandra-profiles.write.consistency:LOCAL_ONE}") String writeConsistency,
+														  @Value("${announcement-board.cassandra-profiles.write.page-size:5000}") int writePageSize) {
+		return builder -> builder.startProfile(BoundStatements.READ_PROFILE)
+								 .withDuration(DefaultDriverOption.REQUEST_TIMEOUT, readTimeout)
+								 .withString(DefaultDriverOption.REQUEST_CONSISTENCY, readConsistency)
+								 .withInt(DefaultDriverOption.REQUEST_PAGE_SIZE, readPageSize)
+								 .withClass(DefaultDriverOption.SPECULATIVE_EXECUTION_POLICY_CLASS, PercentileSpeculativeExecutionPolicy.class)
+								 .withInt(DefaultDriverOption.SPECULATIVE_EXECUTION_MAX, maxReadExecutions)
+								 .withDuration(DefaultDriverOption.SPECULATIVE_EXECUTION_DELAY, speculativeDelay)
+								 .endProfile()
+								 .startProfile(BoundStatements.WRITE_PROFILE)
+								 .withDuration(DefaultDriverOption.REQUEST_TIMEOUT, writeTimeout)
+								 .withString(DefaultDriverOption.REQUEST_CONSISTENCY, writeConsistency)
+								 .withInt(DefaultDriverOption.REQUEST_PAGE_SIZE, writePageSize)
+								 .endProfile();
+	}
+
+	@Bean
+	FetchPlanner fetchPlanner(@Value("${announcement-board.fetch-planner.max-in-size:64}") int maxInSize,
+							  @Value("${announcement-board.fetch-planner.in-key-cost:3}") double inKeyCost,
+							  @Value("${announcement-board.fetch-planner.expected-announcements-per-day:10}") double expectedAnnouncementsPerDay) {
+		return new FetchPlanner(maxInSize, inKeyCost, expectedAnnouncementsPerDay, Clock.systemUTC());
+	}
+
+	@Bean
+	AdaptiveConcurrencyLimiter selectLimiter(@Value("${announcement-board.select-limit.initial:32}") int initialLimit,
+											 @Value("${announcement-board.select-limit.min:8}") int minLimit,
+											 @Value("${announcement-board.select-limit.max:256}") int maxLimit,
+											 @Value("${announcement-board.select-limit.latency-tolerance:2}") double latencyTolerance,
+											 @Value("${announcement-board.select-limit.backoff-ratio:0.9}") double backoffRatio) {
+		return new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit, latencyTolerance, backoffRatio);
+	}
+
+	@Bean
+	CommentCounterSharding commentCounterSharding(@Value("${announcement-board.comment-counters.shards:0}") int shards,
+												  @Value("${announcement-board.comment-counters.sharding-threshold:100}") long threshold,
+												  @Value("${announcement-board.comment-counters.sharding-interval:1m}") Duration interval) {
+		return new CommentCounterSharding(shards, threshold, interval);
+	}
+
+	@Bean
+	CommentCountWriteBehind commentCountWriteBehind(CqlSession session,
+													@Value("${announcement-board.comment-counters.write-behind.enabled:false}") boolean enabled,
+													@Value("${announcement-board.comment-counters.write-behind.flush-interval:200ms}") Duration flushInterval,
+													@Value("${announcement-board.comment-counters.write-behind.max-pending:10000}") int maxPendingCounters,
+													MeterRegistry meterRegistry) {
+		if (!enabled) {
+			return CommentCountWriteBehind.disabled();
+		}
+		return new CommentCountWriteBehind(session, flushInterval, maxPendingCounters, meterRegistry);
+	}
+
+	@Bean
+	CounterAdjustmentQueue counterAdjustmentQueue(CqlSession session,
+												  @Value("${announcement-board.comment-counters.compensation.journal}") Path journal,
+												  @Value("${announcement-board.comment-counters.compensation.retry-interval:30s}") Duration retryInterval,
+												  MeterRegistry meterRegistry) throws IOException {
+		return new CounterAdjustmentQueue(session, journal, retryInterval, meterRegistry);
+	}
+
+	@Bean
+	AnnouncementRepositoryAdapter repository(CqlSession session,
+											 CassandraOperations cassandraOperations,
+											 AsyncCassandraOperations asyncCassandraOperations,
+											 @Value("${announcement-board.partitioning.layout:UNBUCKETED}") PartitionLayout layout,
+											 AdaptiveConcurrencyLimiter selectLimiter,
+											 FetchPlanner fetchPlanner,
+											 CommentCounterSharding commentCounterSharding,
+											 CommentCountWriteBehind commentCountWriteBehind,
+											 CounterAdjustmentQueue counterAdjustmentQueue,
+											 MeterRegistry meterRegistry,
+											 Tracer tracer,
+											 SlowOperationLog slowOperationLog) {
+		return new AnnouncementRepositoryAdapter(session, cassandraOperations, asyncCassandraOperations, layout, selectLimiter, fetchPlanner,
+												 commentCounterSharding, commentCountWriteBehind, counterAdjustmentQueue, meterRegistry, tracer, slowOperationLog);
 	}
 }
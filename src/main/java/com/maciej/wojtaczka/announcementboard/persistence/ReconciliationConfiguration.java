@@ -0,0 +1,38 @@
+package com.maciej.wojtaczka.announcementboard.persistence;
+
+import com.datastax.oss.driver.api.core.CqlSession;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import java.time.Duration;
+
+/**
+ * Runs {@link CommentsCountReconciler} in the background. Activate on a single instance.
+ */
+@Configuration
+@Profile("reconciler")
+public class ReconciliationConfiguration {
+
+	@Bean(initMethod = "start")
+	CommentsCountReconciler commentsCountReconciler(CqlSession session,
+													@Value("${announcement-board.partitioning.layout:UNBUCKETED}") PartitionLayout layout,
+													CommentCounterSharding commentCounterSharding,
+													@Value("${announcement-board.comment-counters.reconciliation.token-ranges:4096}") int tokenRanges,
+													@Value("${announcement-board.comment-counters.reconciliation.rows-per-second:500}") int rowsPerSecond,
+													@Value("${announcement-board.comment-counters.reconciliation.pause-between-passes:6h}") Duration pauseBetweenPasses,
+													@Value("${announcement-board.comment-counters.reconciliation.settle-delay:1m}") Duration settleDelay,
+													@Value("${announcement-board.comment-counters.write-behind.flush-interval:200ms}") Duration flushInterval,
+													@Value("${announcement-board.comment-counters.compensation.retry-interval:30s}") Duration retryInterval,
+													MeterRegistry meterRegistry) {
+		if (settleDelay.compareTo(flushInterval) < 0 || settleDelay.compareTo(retryInterval) < 0) {
+			throw new IllegalArgumentException(String.format(
+					"Reconciliation settle delay %s must not be shorter than the write-behind flush interval %s or the adjustment retry interval %s",
+					settleDelay, flushInterval, retryInterval));
+		}
+		return new CommentsCountReconciler(session, layout, commentCounterSharding.isEnabled(), tokenRanges, rowsPerSecond, pauseBetweenPasses,
+										   settleDelay, meterRegistry);
+	}
+}
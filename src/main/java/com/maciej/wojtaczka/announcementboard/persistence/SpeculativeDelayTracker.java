@@ -0,0 +1,87 @@
+package com.maciej.wojtaczka.announcementboard.persistence;
+
+import com.datastax.oss.driver.api.core.config.DriverExecutionProfile;
+import com.datastax.oss.driver.api.core.metadata.Node;
+import com.datastax.oss.driver.api.core.session.Request;
+import com.datastax.oss.driver.api.core.tracker.RequestTracker;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the latency of single executions per driver execution profile, from which
+ * {@link PercentileSpeculativeExecutionPolicy} takes the delay before hedging a read. The delay is the configured
+ * percentile of the last refresh interval; intervals with fewer than {@code minSamples} executions keep the previous delay.
+ */
+public class SpeculativeDelayTracker implements RequestTracker {
+
+	private final double percentile;
+	private final long minSamples;
+	private final long refreshIntervalNanos;
+	private final Map<String, ProfileLatencies> profiles = new ConcurrentHashMap<>();
+
+	public SpeculativeDelayTracker(double percentile, long minSamples, Duration refreshInterval) {
+		this.percentile = percentile;
+		this.minSamples = minSamples;
+		this.refreshIntervalNanos = refreshInterval.toNanos();
+	}
+
+	@Override
+	public void onNodeSuccess(Request request,
+							  long latencyNanos,
+							  DriverExecutionProfile executionProfile,
+							  Node node,
+							  String requestLogPrefix) {
+		profiles.computeIfAbsent(executionProfile.getName(), profileName -> new ProfileLatencies())
+				.record(latencyNanos);
+	}
+
+	/**
+	 * @return empty until the profile has had an interval with enough executions
+	 */
+	public OptionalLong delayNanos(String profileName) {
+		ProfileLatencies latencies = profiles.get(profileName);
+		if (latencies == null) {
+			return OptionalLong.empty();
+		}
+		long delayNanos = latencies.delayNanos(System.nanoTime());
+		return delayNanos < 0 ? OptionalLong.empty() : OptionalLong.of(delayNanos);
+	}
+
+	@Override
+	public void close() {
+	}
+
+	private class ProfileLatencies {
+
+		private final Recorder recorder = new Recorder(2);
+		private volatile long refreshedAt = System.nanoTime();
+		private volatile long delayNanos = -1;
+
+		void record(long latencyNanos) {
+			recorder.recordValue(latencyNanos);
+		}
+
+		long delayNanos(long nowNanos) {
+			if (nowNanos - refreshedAt >= refreshIntervalNanos) {
+				refresh(nowNanos);
+			}
+			return delayNanos;
+		}
+
+		private synchronized void refresh(long nowNanos) {
+			if (nowNanos - refreshedAt < refreshIntervalNanos) {
+				return;
+			}
+			refreshedAt = nowNanos;
+			Histogram interval = recorder.getIntervalHistogram();
+			if (interval.getTotalCount() >= minSamples) {
+				delayNanos = interval.getValueAtPercentile(percentile);
+			}
+		}
+	}
+}
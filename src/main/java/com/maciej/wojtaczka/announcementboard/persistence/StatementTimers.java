@@ -0,0 +1,25 @@
+package com.maciej.wojtaczka.announcementboard.persistence;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Statement timers of tables that are only known per statement, such as those of a partition layout, registered on first
+ * use and looked up without going through the registry afterwards.
+ */
+class StatementTimers {
+
+	private final MeterRegistry meterRegistry;
+	private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+	StatementTimers(MeterRegistry meterRegistry) {
+		this.meterRegistry = meterRegistry;
+	}
+
+	Timer get(String table, String operation) {
+		return timers.computeIfAbsent(table + " " + operation, key -> CassandraMetrics.statementTimer(table, operation, meterRegistry));
+	}
+}
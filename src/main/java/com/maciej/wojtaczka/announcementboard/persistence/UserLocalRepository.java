@@ -1,33 +1,77 @@
 package com.maciej.wojtaczka.announcementboard.persistence;
 
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.cql.BoundStatement;
+import com.datastax.oss.driver.api.core.cql.PreparedStatement;
+import com.datastax.oss.driver.api.querybuilder.QueryBuilder;
+import com.maciej.wojtaczka.announcementboard.diagnostics.SlowOperationLog;
 import com.maciej.wojtaczka.announcementboard.domain.UserService;
 import com.maciej.wojtaczka.announcementboard.domain.model.User;
 import com.maciej.wojtaczka.announcementboard.persistence.entity.UserDbEntity;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.data.cassandra.core.CassandraOperations;
 import org.springframework.stereotype.Repository;
 
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
+import static com.datastax.oss.driver.api.querybuilder.QueryBuilder.bindMarker;
+import static com.maciej.wojtaczka.announcementboard.diagnostics.SlowOperationLog.SINGLE_ROW;
+import static com.maciej.wojtaczka.announcementboard.persistence.BoundStatements.WRITE_OPTIONS;
+import static com.maciej.wojtaczka.announcementboard.persistence.BoundStatements.describe;
+import static com.maciej.wojtaczka.announcementboard.persistence.BoundStatements.read;
+
 @Repository
 public class UserLocalRepository implements UserService {
 
+	/**
+	 * Keeps the coordinator of a multi-partition select from fanning out to too many partitions at once.
+	 */
+	private static final int MAX_USERS_PER_SELECT = 100;
+
 	private final CassandraOperations cassandraOperations;
+	private final PreparedStatement selectUser;
+	private final PreparedStatement selectUsers;
+
+	private final Timer insertUserTimer;
+	private final Timer selectUserTimer;
+	private final SlowOperationLog slowOperations;
 
-	public UserLocalRepository(CassandraOperations cassandraOperations) {
+	public UserLocalRepository(CqlSession session,
+							   CassandraOperations cassandraOperations,
+							   MeterRegistry meterRegistry,
+							   SlowOperationLog slowOperations) {
 		this.cassandraOperations = cassandraOperations;
+		this.selectUser = session.prepare(QueryBuilder.selectFrom("announcement_board", "user")
+													  .all()
+													  .whereColumn("id").isEqualTo(bindMarker())
+													  .build());
+		this.selectUsers = session.prepare(QueryBuilder.selectFrom("announcement_board", "user")
+													   .all()
+													   .whereColumn("id").in(bindMarker())
+													   .build());
+		this.slowOperations = slowOperations;
+		this.insertUserTimer = CassandraMetrics.statementTimer("user", "insert", meterRegistry);
+		this.selectUserTimer = CassandraMetrics.statementTimer("user", "select", meterRegistry);
 	}
 
 	public void saveUser(User user) {
 		UserDbEntity entity = UserDbEntity.from(user);
 
-		cassandraOperations.insert(entity);
+		insertUserTimer.record(() -> slowOperations.time("insert user", () -> "user " + user.getId(), () -> cassandraOperations.insert(entity, WRITE_OPTIONS), SINGLE_ROW));
 	}
 
 	@Override
 	public Optional<User> fetchUser(UUID userId) {
 
-		UserDbEntity userDbEntity = cassandraOperations.selectOne("select * from announcement_board.user where id = " + userId, UserDbEntity.class);
+		BoundStatement select = read(selectUser.bind(userId));
+		UserDbEntity userDbEntity = selectUserTimer.record(
+				() -> slowOperations.time("select user", () -> describe(select), () -> cassandraOperations.selectOne(select, UserDbEntity.class), SINGLE_ROW));
 
 		if (userDbEntity == null) {
 			return Optional.empty();
@@ -35,4 +79,19 @@ public class UserLocalRepository implements UserService {
 
 		return Optional.of(userDbEntity.toModel());
 	}
+
+	@Override
+	public Map<UUID, User> fetchUsers(Set<UUID> userIds) {
+
+		List<UUID> ids = List.copyOf(userIds);
+		Map<UUID, User> users = new HashMap<>(ids.size());
+		for (int from = 0; from < ids.size(); from += MAX_USERS_PER_SELECT) {
+			BoundStatement select = read(selectUsers.bind(ids.subList(from, Math.min(from + MAX_USERS_PER_SELECT, ids.size()))));
+			List<UserDbEntity> userDbEntities = selectUserTimer.record(
+					() -> slowOperations.time("select users", () -> describe(select), () -> cassandraOperations.select(select, UserDbEntity.class), List::size));
+			userDbEntities.forEach(userDbEntity -> users.put(userDbEntity.getId(), userDbEntity.toModel()));
+		}
+
+		return users;
+	}
 }
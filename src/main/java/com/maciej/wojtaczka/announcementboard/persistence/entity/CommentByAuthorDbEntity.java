@@ -0,0 +1,45 @@
+package com.maciej.wojtaczka.announcementboard.persistence.entity;
+
+import com.maciej.wojtaczka.announcementboard.domain.model.Comment;
+import lombok.Builder;
+import lombok.Value;
+import org.springframework.data.cassandra.core.cql.PrimaryKeyType;
+import org.springframework.data.cassandra.core.mapping.Column;
+import org.springframework.data.cassandra.core.mapping.PrimaryKeyColumn;
+import org.springframework.data.cassandra.core.mapping.Table;
+
+import java.time.Instant;
+import java.util.UUID;
+
+@Table("comment_by_author")
+@Builder
+@Value
+public class CommentByAuthorDbEntity {
+
+	@PrimaryKeyColumn(name = "author_id", type = PrimaryKeyType.PARTITIONED)
+	UUID authorId;
+	@PrimaryKeyColumn(name = "month", type = PrimaryKeyType.PARTITIONED)
+	int month;
+
+	@PrimaryKeyColumn(name = "creation_time", type = PrimaryKeyType.CLUSTERED)
+	Instant creationTime;
+	@PrimaryKeyColumn(name = "announcement_author_id", type = PrimaryKeyType.CLUSTERED)
+	UUID announcementAuthorId;
+	@PrimaryKeyColumn(name = "announcement_creation_time", type = PrimaryKeyType.CLUSTERED)
+	Instant announcementCreationTime;
+	@Column("author_nickname")
+	String authorNickname;
+	@Column("content")
+	String content;
+
+	public Comment toModel() {
+		return Comment.builder()
+					  .announcementAuthorId(announcementAuthorId)
+					  .announcementCreationTime(announcementCreationTime)
+					  .authorId(authorId)
+					  .authorNickname(authorNickname)
+					  .content(content)
+					  .creationTime(creationTime)
+					  .build();
+	}
+}
@@ -41,7 +41,7 @@ public class CommentDbEntity {
 							  .build();
 	}
 
-	Comment toModel() {
+	public Comment toModel() {
 		return Comment.builder()
 					  .announcementAuthorId(announcementAuthorId)
 					  .announcementCreationTime(announcementCreationTime)
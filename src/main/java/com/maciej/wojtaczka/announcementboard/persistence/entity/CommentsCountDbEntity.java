@@ -34,6 +34,17 @@ public class CommentsCountDbEntity {
 		return announcementAuthorId.toString() + ":" + announcementCreationTime.toEpochMilli();
 	}
 
+	/**
+	 * Sum of two counters of the same announcement, such as its single row and one of its shards.
+	 */
+	public CommentsCountDbEntity plus(CommentsCountDbEntity other) {
+		return builder()
+				.announcementAuthorId(announcementAuthorId)
+				.announcementCreationTime(announcementCreationTime)
+				.commentsCount(commentsCount + other.commentsCount)
+				.build();
+	}
+
 	public boolean isEmpty() {
 		return announcementAuthorId == null || announcementCreationTime == null || commentsCount == null;
 	}
@@ -1,26 +1,39 @@
 package com.maciej.wojtaczka.announcementboard.rest;
 
 import com.maciej.wojtaczka.announcementboard.domain.AnnouncementBoardService;
+import com.maciej.wojtaczka.announcementboard.domain.dto.AnnouncementDraft;
 import com.maciej.wojtaczka.announcementboard.domain.model.Announcement;
+import com.maciej.wojtaczka.announcementboard.domain.model.Comment;
 import com.maciej.wojtaczka.announcementboard.domain.query.AnnouncementQuery;
+import com.maciej.wojtaczka.announcementboard.domain.query.Page;
 import com.maciej.wojtaczka.announcementboard.rest.dto.AnnouncementData;
 import com.maciej.wojtaczka.announcementboard.rest.dto.CommentData;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.net.URI;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
+import static java.util.stream.Collectors.toList;
+
 @RestController
 public class AnnouncementBoardController {
 
 	public final static String ANNOUNCEMENTS_URL = "/v1/announcements";
 	public final static String ANNOUNCEMENTS_FETCH_URL = "/v1/announcements/fetch";
+	public final static String ANNOUNCEMENTS_BULK_URL = "/v1/announcements/bulk";
+	public final static String USERS_URL = "/v1/users";
 
 	private final AnnouncementBoardService announcementBoardService;
 
@@ -39,6 +52,33 @@ public class AnnouncementBoardController {
 							 .body(announcement);
 	}
 
+	/**
+	 * Answers in the order of the request, with null in place of an announcement that could not be saved, in which case
+	 * the status is 207 rather than 201.
+	 */
+	@PostMapping(ANNOUNCEMENTS_BULK_URL)
+	ResponseEntity<List<Announcement>> publishAnnouncements(@RequestBody List<AnnouncementData> announcementsData) {
+
+		List<AnnouncementDraft> drafts = new ArrayList<>(announcementsData.size());
+		for (int i = 0; i < announcementsData.size(); i++) {
+			AnnouncementData announcementData = announcementsData.get(i);
+			if (announcementData == null || announcementData.getAuthor() == null) {
+				throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Announcement at index " + i + " has no author");
+			}
+			drafts.add(new AnnouncementDraft(announcementData.getAuthor(), announcementData.getContent()));
+		}
+
+		List<Optional<Announcement>> published = announcementBoardService.publishAnnouncements(drafts);
+
+		boolean allSaved = published.stream().allMatch(Optional::isPresent);
+		List<Announcement> announcements = published.stream()
+													.map(announcement -> announcement.orElse(null))
+													.collect(toList());
+
+		return ResponseEntity.status(allSaved ? HttpStatus.CREATED : HttpStatus.MULTI_STATUS)
+							 .body(announcements);
+	}
+
 	@PostMapping(ANNOUNCEMENTS_URL + "/{announcementAuthorId}/{announcementCreationTimeMillis}")
 	ResponseEntity<Void> placeComment(@PathVariable UUID announcementAuthorId,
 									  @PathVariable Long announcementCreationTimeMillis,
@@ -53,6 +93,34 @@ public class AnnouncementBoardController {
 		return ResponseEntity.ok().build();
 	}
 
+	@GetMapping(ANNOUNCEMENTS_URL + "/{authorId}")
+	ResponseEntity<Page<Announcement>> fetchTimeline(@PathVariable UUID authorId,
+													 @RequestParam(defaultValue = "20") int pageSize,
+													 @RequestParam(required = false) String cursor) {
+
+		return ResponseEntity.ok(announcementBoardService.fetchTimeline(authorId, pageSize, cursor));
+	}
+
+	@GetMapping(ANNOUNCEMENTS_URL + "/{announcementAuthorId}/{announcementCreationTimeMillis}/comments")
+	ResponseEntity<Page<Comment>> fetchComments(@PathVariable UUID announcementAuthorId,
+												@PathVariable Long announcementCreationTimeMillis,
+												@RequestParam(defaultValue = "20") int pageSize,
+												@RequestParam(required = false) String cursor) {
+
+		return ResponseEntity.ok(announcementBoardService.fetchComments(announcementAuthorId,
+																		Instant.ofEpochMilli(announcementCreationTimeMillis),
+																		pageSize,
+																		cursor));
+	}
+
+	@GetMapping(USERS_URL + "/{userId}/comments")
+	ResponseEntity<Page<Comment>> fetchUserComments(@PathVariable UUID userId,
+													@RequestParam(defaultValue = "20") int pageSize,
+													@RequestParam(required = false) String cursor) {
+
+		return ResponseEntity.ok(announcementBoardService.fetchUserComments(userId, pageSize, cursor));
+	}
+
 	//TODO: Replace with gRPC
 	@PostMapping(ANNOUNCEMENTS_FETCH_URL)
 	ResponseEntity<List<AnnouncementQuery.Result>> fetchAllAnnouncement(@RequestBody List<AnnouncementQuery> announcementQueries) {
@@ -0,0 +1,73 @@
+package com.maciej.wojtaczka.announcementboard.rest.capture;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gzipped sequence of {@link CapturedRequest}s, each stored as: offset in micros, uri and length-prefixed body.
+ */
+public class CaptureFile {
+
+	private static final int MAGIC = 0x414e4e43;
+	private static final int VERSION = 1;
+
+	public static Writer openForWriting(Path path) throws IOException {
+		DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(path))));
+		output.writeInt(MAGIC);
+		output.writeInt(VERSION);
+		return new Writer(output);
+	}
+
+	public static List<CapturedRequest> readAll(Path path) throws IOException {
+		try (DataInputStream input = new DataInputStream(new BufferedInputStream(new GZIPInputStream(Files.newInputStream(path))))) {
+			if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+				throw new IOException(path + " is not a supported capture file");
+			}
+			List<CapturedRequest> requests = new ArrayList<>();
+			while (true) {
+				long offsetMicros;
+				try {
+					offsetMicros = input.readLong();
+				} catch (EOFException endOfCapture) {
+					return requests;
+				}
+				String uri = input.readUTF();
+				byte[] body = new byte[input.readInt()];
+				input.readFully(body);
+				requests.add(new CapturedRequest(offsetMicros, uri, body));
+			}
+		}
+	}
+
+	public static class Writer implements Closeable {
+
+		private final DataOutputStream output;
+
+		private Writer(DataOutputStream output) {
+			this.output = output;
+		}
+
+		public synchronized void write(CapturedRequest request) throws IOException {
+			output.writeLong(request.getOffsetMicros());
+			output.writeUTF(request.getUri());
+			output.writeInt(request.getBody().length);
+			output.write(request.getBody());
+		}
+
+		@Override
+		public synchronized void close() throws IOException {
+			output.close();
+		}
+	}
+}
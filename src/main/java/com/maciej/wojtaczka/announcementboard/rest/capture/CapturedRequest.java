@@ -0,0 +1,11 @@
+package com.maciej.wojtaczka.announcementboard.rest.capture;
+
+import lombok.Value;
+
+@Value
+public class CapturedRequest {
+
+	long offsetMicros;
+	String uri;
+	byte[] body;
+}
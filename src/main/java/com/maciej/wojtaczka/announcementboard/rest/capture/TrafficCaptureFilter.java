@@ -0,0 +1,114 @@
+package com.maciej.wojtaczka.announcementboard.rest.capture;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingRequestWrapper;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.maciej.wojtaczka.announcementboard.rest.AnnouncementBoardController.ANNOUNCEMENTS_URL;
+
+/**
+ * Records publish, comment and fetch requests with their arrival time so that they can be replayed against another instance.
+ * Requests are written by a single background thread; when it falls behind, new requests are dropped rather than delayed.
+ * Dropped requests are counted in {@code traffic.capture.dropped} and logged at most once per {@value #DROP_WARNING_INTERVAL_SECONDS}
+ * seconds, so that an overloaded instance does not also flood its log.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "announcement-board.capture.enabled", havingValue = "true")
+public class TrafficCaptureFilter extends OncePerRequestFilter {
+
+	private static final int MAX_PENDING_REQUESTS = 10_000;
+	private static final long DROP_WARNING_INTERVAL_SECONDS = 10;
+
+	private final long startNanos = System.nanoTime();
+	private final CaptureFile.Writer writer;
+	private final ThreadPoolExecutor recorder;
+	private final Counter dropped;
+	private final AtomicLong droppedSinceWarning = new AtomicLong();
+	private final AtomicLong nextDropWarningNanos = new AtomicLong(System.nanoTime());
+
+	public TrafficCaptureFilter(@Value("${announcement-board.capture.file}") String file, MeterRegistry meterRegistry) throws IOException {
+		this.dropped = Counter.builder("traffic.capture.dropped")
+							  .description("Requests not captured because the capture writer was falling behind")
+							  .register(meterRegistry);
+		this.writer = CaptureFile.openForWriting(Path.of(file));
+		this.recorder = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+											   new ArrayBlockingQueue<>(MAX_PENDING_REQUESTS),
+											   runnable -> {
+												   Thread thread = new Thread(runnable, "traffic-capture");
+												   thread.setDaemon(true);
+												   return thread;
+											   },
+											   (rejected, executor) -> drop());
+		log.info("Capturing announcement board traffic to {}", file);
+	}
+
+	@Override
+	protected boolean shouldNotFilter(HttpServletRequest request) {
+		return !HttpMethod.POST.matches(request.getMethod()) || !request.getRequestURI().startsWith(ANNOUNCEMENTS_URL);
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request,
+									HttpServletResponse response,
+									FilterChain filterChain) throws ServletException, IOException {
+		long offsetMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos);
+		ContentCachingRequestWrapper cachingRequest = new ContentCachingRequestWrapper(request);
+		try {
+			filterChain.doFilter(cachingRequest, response);
+		} finally {
+			CapturedRequest captured = new CapturedRequest(offsetMicros, request.getRequestURI(), cachingRequest.getContentAsByteArray());
+			recorder.execute(() -> record(captured));
+		}
+	}
+
+	private void drop() {
+		dropped.increment();
+		droppedSinceWarning.incrementAndGet();
+		long due = nextDropWarningNanos.get();
+		long now = System.nanoTime();
+		if (now - due >= 0 && nextDropWarningNanos.compareAndSet(due, now + TimeUnit.SECONDS.toNanos(DROP_WARNING_INTERVAL_SECONDS))) {
+			log.warn("Traffic capture is falling behind, dropped {} requests since the last warning", droppedSinceWarning.getAndSet(0));
+		}
+	}
+
+	private void record(CapturedRequest captured) {
+		try {
+			writer.write(captured);
+		} catch (IOException e) {
+			log.warn("Could not capture request to {}: ", captured.getUri(), e);
+		}
+	}
+
+	@Override
+	public void destroy() {
+		recorder.shutdown();
+		try {
+			if (!recorder.awaitTermination(5, TimeUnit.SECONDS)) {
+				log.warn("Traffic capture did not finish writing pending requests");
+			}
+			writer.close();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (IOException e) {
+			log.warn("Could not close traffic capture: ", e);
+		}
+	}
+}
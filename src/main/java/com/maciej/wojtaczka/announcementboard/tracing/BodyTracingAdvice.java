@@ -0,0 +1,100 @@
+package com.maciej.wojtaczka.announcementboard.tracing;
+
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.Tracer;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.servlet.mvc.method.annotation.RequestBodyAdviceAdapter;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import javax.servlet.http.HttpServletRequest;
+import java.lang.reflect.Type;
+
+/**
+ * Spans for reading the request body and writing the response body. Jackson streams the response straight into the
+ * servlet output, so the serialization span is closed by {@link RequestTracingFilter} once the body has been written.
+ */
+@ControllerAdvice
+class BodyTracingAdvice extends RequestBodyAdviceAdapter implements ResponseBodyAdvice<Object> {
+
+	private static final String DESERIALIZE_SPAN = BodyTracingAdvice.class.getName() + ".deserialize";
+	private static final String SERIALIZE_SPAN = BodyTracingAdvice.class.getName() + ".serialize";
+
+	private final Tracer tracer;
+
+	BodyTracingAdvice(Tracer tracer) {
+		this.tracer = tracer;
+	}
+
+	@Override
+	public boolean supports(MethodParameter methodParameter, Type targetType, Class<? extends HttpMessageConverter<?>> converterType) {
+		return true;
+	}
+
+	@Override
+	public HttpInputMessage beforeBodyRead(HttpInputMessage inputMessage, MethodParameter parameter, Type targetType,
+										   Class<? extends HttpMessageConverter<?>> converterType) {
+		Span span = tracer.spanBuilder("deserialize request").startSpan();
+		RequestContextHolder.currentRequestAttributes().setAttribute(DESERIALIZE_SPAN, span, RequestAttributes.SCOPE_REQUEST);
+		return inputMessage;
+	}
+
+	@Override
+	public Object afterBodyRead(Object body, HttpInputMessage inputMessage, MethodParameter parameter, Type targetType,
+								Class<? extends HttpMessageConverter<?>> converterType) {
+		endSpan(RequestContextHolder.currentRequestAttributes(), DESERIALIZE_SPAN);
+		return body;
+	}
+
+	@Override
+	public Object handleEmptyBody(Object body, HttpInputMessage inputMessage, MethodParameter parameter, Type targetType,
+								  Class<? extends HttpMessageConverter<?>> converterType) {
+		endSpan(RequestContextHolder.currentRequestAttributes(), DESERIALIZE_SPAN);
+		return body;
+	}
+
+	@Override
+	public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+		return true;
+	}
+
+	@Override
+	public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+								  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+								  ServerHttpRequest request, ServerHttpResponse response) {
+		Span span = tracer.spanBuilder("serialize response").startSpan();
+		RequestContextHolder.currentRequestAttributes().setAttribute(SERIALIZE_SPAN, span, RequestAttributes.SCOPE_REQUEST);
+		return body;
+	}
+
+	/**
+	 * Ends the serialization span and a deserialization span left open by a body that failed to parse.
+	 */
+	static void endOpenSpans(HttpServletRequest request) {
+		endSpan(request, DESERIALIZE_SPAN);
+		endSpan(request, SERIALIZE_SPAN);
+	}
+
+	private static void endSpan(RequestAttributes attributes, String name) {
+		Object span = attributes.getAttribute(name, RequestAttributes.SCOPE_REQUEST);
+		if (span != null) {
+			attributes.removeAttribute(name, RequestAttributes.SCOPE_REQUEST);
+			((Span) span).end();
+		}
+	}
+
+	private static void endSpan(HttpServletRequest request, String name) {
+		Object span = request.getAttribute(name);
+		if (span != null) {
+			request.removeAttribute(name);
+			((Span) span).end();
+		}
+	}
+}
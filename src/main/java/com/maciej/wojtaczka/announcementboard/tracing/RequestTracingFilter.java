@@ -0,0 +1,96 @@
+package com.maciej.wojtaczka.announcementboard.tracing;
+
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Scope;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+import static com.maciej.wojtaczka.announcementboard.rest.AnnouncementBoardController.ANNOUNCEMENTS_BULK_URL;
+import static com.maciej.wojtaczka.announcementboard.rest.AnnouncementBoardController.ANNOUNCEMENTS_FETCH_URL;
+import static com.maciej.wojtaczka.announcementboard.rest.AnnouncementBoardController.ANNOUNCEMENTS_URL;
+import static com.maciej.wojtaczka.announcementboard.rest.AnnouncementBoardController.USERS_URL;
+
+/**
+ * Opens the root span of a publish, bulk publish, comment or fetch request, and of a timeline, comments or user comments
+ * page request; stage spans started further down become its children.
+ */
+@Component
+class RequestTracingFilter extends OncePerRequestFilter {
+
+	private static final String COMMENT_ENDPOINT = ANNOUNCEMENTS_URL + "/{announcementAuthorId}/{announcementCreationTimeMillis}";
+	private static final String TIMELINE_ENDPOINT = ANNOUNCEMENTS_URL + "/{authorId}";
+	private static final String COMMENTS_ENDPOINT = COMMENT_ENDPOINT + "/comments";
+	private static final String USER_COMMENTS_ENDPOINT = USERS_URL + "/{userId}/comments";
+
+	private final Tracer tracer;
+
+	RequestTracingFilter(Tracer tracer) {
+		this.tracer = tracer;
+	}
+
+	@Override
+	protected boolean shouldNotFilter(HttpServletRequest request) {
+		return endpointOf(request.getMethod(), request.getRequestURI()) == null;
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request,
+									HttpServletResponse response,
+									FilterChain filterChain) throws ServletException, IOException {
+		Span span = tracer.spanBuilder(request.getMethod() + " " + endpointOf(request.getMethod(), request.getRequestURI())).startSpan();
+		try (Scope ignored = span.makeCurrent()) {
+			filterChain.doFilter(request, response);
+			span.setAttribute("http.status_code", response.getStatus());
+			if (response.getStatus() >= 500) {
+				span.setStatus(StatusCode.ERROR);
+			}
+		} catch (IOException | ServletException | RuntimeException e) {
+			span.recordException(e);
+			span.setStatus(StatusCode.ERROR);
+			throw e;
+		} finally {
+			BodyTracingAdvice.endOpenSpans(request);
+			span.end();
+		}
+	}
+
+	/**
+	 * The route template of a traced request, or null if the request is not traced.
+	 */
+	static String endpointOf(String method, String uri) {
+		if (HttpMethod.POST.matches(method)) {
+			if (!uri.startsWith(ANNOUNCEMENTS_URL)) {
+				return null;
+			}
+			if (uri.equals(ANNOUNCEMENTS_FETCH_URL) || uri.equals(ANNOUNCEMENTS_BULK_URL) || uri.equals(ANNOUNCEMENTS_URL)) {
+				return uri;
+			}
+			return COMMENT_ENDPOINT;
+		}
+		if (HttpMethod.GET.matches(method)) {
+			if (uri.startsWith(ANNOUNCEMENTS_URL + "/")) {
+				String[] segments = uri.substring(ANNOUNCEMENTS_URL.length() + 1).split("/");
+				if (segments.length == 1) {
+					return TIMELINE_ENDPOINT;
+				}
+				if (segments.length == 3 && segments[2].equals("comments")) {
+					return COMMENTS_ENDPOINT;
+				}
+			}
+			if (uri.startsWith(USERS_URL + "/") && uri.endsWith("/comments")
+					&& uri.substring(USERS_URL.length() + 1).split("/").length == 2) {
+				return USER_COMMENTS_ENDPOINT;
+			}
+		}
+		return null;
+	}
+}
@@ -0,0 +1,46 @@
+package com.maciej.wojtaczka.announcementboard.tracing;
+
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.api.trace.TracerProvider;
+import io.opentelemetry.exporter.logging.LoggingSpanExporter;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.export.BatchSpanProcessor;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+@Configuration
+class TracingConfiguration {
+
+	static final String INSTRUMENTATION_NAME = "announcement-board";
+
+	@Bean
+	TracerProvider tracerProvider(@Value("${announcement-board.tracing.exporter:none}") String exporter,
+								  @Value("${announcement-board.tracing.file:announcement-board-spans.jsonl}") String file) throws IOException {
+		switch (exporter) {
+			case "none":
+				return TracerProvider.noop();
+			case "log":
+				return sdkTracerProvider(new LoggingSpanExporter());
+			case "file":
+				return sdkTracerProvider(new FileSpanExporter(Path.of(file)));
+			default:
+				throw new IllegalArgumentException("Unknown tracing exporter: " + exporter + ", expected one of: none, log, file");
+		}
+	}
+
+	@Bean
+	Tracer tracer(TracerProvider tracerProvider) {
+		return tracerProvider.get(INSTRUMENTATION_NAME);
+	}
+
+	private static SdkTracerProvider sdkTracerProvider(SpanExporter spanExporter) {
+		return SdkTracerProvider.builder()
+								.addSpanProcessor(BatchSpanProcessor.builder(spanExporter).build())
+								.build();
+	}
+}
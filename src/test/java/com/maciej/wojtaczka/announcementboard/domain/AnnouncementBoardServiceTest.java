@@ -0,0 +1,179 @@
+package com.maciej.wojtaczka.announcementboard.domain;
+
+import com.maciej.wojtaczka.announcementboard.domain.dto.AnnouncementDraft;
+import com.maciej.wojtaczka.announcementboard.domain.hotkeys.HotKeys;
+import com.maciej.wojtaczka.announcementboard.domain.model.Announcement;
+import com.maciej.wojtaczka.announcementboard.domain.model.Comment;
+import com.maciej.wojtaczka.announcementboard.domain.model.User;
+import com.maciej.wojtaczka.announcementboard.domain.query.AnnouncementQuery;
+import com.maciej.wojtaczka.announcementboard.domain.query.Page;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.opentelemetry.api.trace.TracerProvider;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+import static java.time.Instant.parse;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AnnouncementBoardServiceTest {
+
+	private final UUID authorId = UUID.randomUUID();
+	private final UserService userService = mock(UserService.class);
+	private final DomainEventPublisher domainEventPublisher = mock(DomainEventPublisher.class);
+	private final AnnouncementRepository repository = mock(AnnouncementRepository.class);
+	private final AnnouncementCache cache = mock(AnnouncementCache.class);
+	private final AnnouncementBoardService service = service(100);
+
+	@Test
+	void shouldGiveOverlappingBulkPublishesOfAuthorDistinctCreationTimes() {
+		//given
+		when(userService.fetchUsers(Set.of(authorId))).thenAnswer(invocation -> Map.of(authorId, User.builder().id(authorId).build()));
+		when(repository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+		List<AnnouncementDraft> drafts = List.of(new AnnouncementDraft(authorId, "First"),
+												 new AnnouncementDraft(authorId, "Second"),
+												 new AnnouncementDraft(authorId, "Third"));
+
+		//when
+		CompletableFuture<List<Optional<Announcement>>> first = CompletableFuture.supplyAsync(() -> service.publishAnnouncements(drafts));
+		CompletableFuture<List<Optional<Announcement>>> second = CompletableFuture.supplyAsync(() -> service.publishAnnouncements(drafts));
+
+		//then
+		List<Optional<Announcement>> published = new ArrayList<>(first.join());
+		published.addAll(second.join());
+		assertThat(published).allMatch(Optional::isPresent);
+		Set<Instant> creationTimes = published.stream()
+											  .map(announcement -> announcement.orElseThrow().getCreationTime())
+											  .collect(Collectors.toSet());
+		assertThat(creationTimes).hasSize(6);
+	}
+
+	@Test
+	void shouldAnswerInRequestOrderAndPublishEventsOnlyForSavedAnnouncements() {
+		//given
+		UUID otherAuthorId = UUID.randomUUID();
+		when(userService.fetchUsers(Set.of(authorId, otherAuthorId))).thenReturn(Map.of(authorId, User.builder().id(authorId).build(),
+																						otherAuthorId, User.builder().id(otherAuthorId).build()));
+		when(repository.saveAll(anyList())).thenAnswer(invocation -> {
+			List<Announcement> announcements = invocation.getArgument(0);
+			return announcements.stream()
+								.filter(announcement -> announcement.getAuthorId().equals(authorId))
+								.collect(Collectors.toList());
+		});
+
+		//when
+		List<Optional<Announcement>> published = service.publishAnnouncements(List.of(new AnnouncementDraft(authorId, "First 1"),
+																					   new AnnouncementDraft(otherAuthorId, "Second 1"),
+																					   new AnnouncementDraft(authorId, "First 2")));
+
+		//then
+		assertThat(published).hasSize(3);
+		assertThat(published.get(0)).hasValueSatisfying(announcement -> assertThat(announcement.getContent()).isEqualTo("First 1"));
+		assertThat(published.get(1)).isEmpty();
+		assertThat(published.get(2)).hasValueSatisfying(announcement -> assertThat(announcement.getContent()).isEqualTo("First 2"));
+
+		@SuppressWarnings({"unchecked", "rawtypes"})
+		ArgumentCaptor<List<DomainEvent<?>>> events = (ArgumentCaptor) ArgumentCaptor.forClass(List.class);
+		verify(domainEventPublisher).publishAll(events.capture());
+		assertThat(events.getValue()).extracting(event -> ((Announcement) event.getPayload()).getContent())
+									 .containsExactly("First 1", "First 2");
+	}
+
+	@Test
+	void shouldPublishNoEventsWhenSavingFails() {
+		//given
+		when(userService.fetchUsers(Set.of(authorId))).thenReturn(Map.of(authorId, User.builder().id(authorId).build()));
+		when(repository.saveAll(anyList())).thenThrow(new IllegalStateException("write timeout"));
+
+		//when
+		Throwable failure = catchThrowable(() -> service.publishAnnouncements(List.of(new AnnouncementDraft(authorId, "First"))));
+
+		//then
+		assertThat(failure).hasMessage("write timeout");
+		verify(domainEventPublisher, never()).publishAll(any());
+	}
+
+	@Test
+	void shouldServeFirstCommentsPageOfHotAnnouncementFromCacheOnceFetched() {
+		//given
+		AnnouncementBoardService hotService = service(1);
+		Instant creationTime = parse("2021-10-01T10:00:00Z");
+		AnnouncementQuery announcement = new AnnouncementQuery(authorId, creationTime);
+		Page<Comment> firstPage = new Page<>(List.of(comment(creationTime, "First", 1), comment(creationTime, "Second", 2)), null);
+		when(repository.fetchComments(announcement, AnnouncementBoardService.MAX_PAGE_SIZE, null)).thenReturn(firstPage);
+		when(cache.getFirstCommentsPage(announcement)).thenReturn(CommentsPageLookup.miss(3), CommentsPageLookup.hit(firstPage, 3));
+
+		//when
+		Page<Comment> fetched = hotService.fetchComments(authorId, creationTime, 10, null);
+		Page<Comment> cached = hotService.fetchComments(authorId, creationTime, 1, null);
+
+		//then
+		assertThat(fetched).isEqualTo(firstPage);
+		assertThat(cached.getItems()).extracting(Comment::getContent).containsExactly("First");
+		assertThat(cached.getNextCursor()).isNotNull();
+		verify(repository, times(1)).fetchComments(any(), anyInt(), isNull());
+		verify(cache).saveFirstCommentsPage(announcement, firstPage, 3);
+	}
+
+	@Test
+	void shouldEvictLastFirstCommentsPageWithoutReadingItWhenCommenting() {
+		//given
+		AnnouncementBoardService hotService = service(1);
+		Instant creationTime = parse("2021-10-01T10:00:00Z");
+		AnnouncementQuery announcement = new AnnouncementQuery(authorId, creationTime);
+		UUID commenterId = UUID.randomUUID();
+		when(userService.fetchUser(commenterId)).thenReturn(Optional.of(User.builder().id(commenterId).nickname("commenter").build()));
+		when(repository.fetchOne(authorId, creationTime)).thenReturn(Optional.of(Announcement.builder()
+																							.authorId(authorId)
+																							.content("Hello")
+																							.creationTime(creationTime)
+																							.build()));
+
+		//when
+		hotService.placeComment(commenterId, "Nice", authorId, creationTime);
+
+		//then
+		verify(cache).evictLastFirstCommentsPage(announcement);
+		verify(cache, never()).getFirstCommentsPage(any());
+	}
+
+	private AnnouncementBoardService service(long hotAnnouncementThreshold) {
+		return new AnnouncementBoardService(userService,
+											domainEventPublisher,
+											repository,
+											cache,
+											new SimpleMeterRegistry(),
+											TracerProvider.noop().get("test"),
+											new HotKeys(200, 4096, 4, Duration.ofMinutes(5), hotAnnouncementThreshold));
+	}
+
+	private static Comment comment(Instant announcementCreationTime, String content, long secondsLater) {
+		return Comment.builder()
+					  .announcementCreationTime(announcementCreationTime)
+					  .authorId(UUID.randomUUID())
+					  .authorNickname("commenter")
+					  .content(content)
+					  .creationTime(announcementCreationTime.plusSeconds(secondsLater))
+					  .build();
+	}
+}
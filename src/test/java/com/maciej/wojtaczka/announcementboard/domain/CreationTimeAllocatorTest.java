@@ -0,0 +1,62 @@
+package com.maciej.wojtaczka.announcementboard.domain;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+import static java.time.Instant.parse;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CreationTimeAllocatorTest {
+
+	private final Instant now = parse("2021-10-01T10:00:00.000Z");
+	private final CreationTimeAllocator allocator = new CreationTimeAllocator(Clock.fixed(now, ZoneOffset.UTC));
+
+	@Test
+	void shouldAllocateDisjointRangesForOverlappingAllocationsOfAuthor() {
+		//given
+		UUID authorId = UUID.randomUUID();
+
+		//when
+		Instant first = allocator.allocate(authorId, 3);
+		Instant second = allocator.allocate(authorId, 2);
+		Instant single = allocator.allocate(authorId, 1);
+
+		//then
+		assertThat(first).isEqualTo(now);
+		assertThat(second).isEqualTo(now.plusMillis(3));
+		assertThat(single).isEqualTo(now.plusMillis(5));
+	}
+
+	@Test
+	void shouldAllocateSameTimeForDifferentAuthors() {
+		//when
+		Instant first = allocator.allocate(UUID.randomUUID(), 3);
+		Instant second = allocator.allocate(UUID.randomUUID(), 3);
+
+		//then
+		assertThat(first).isEqualTo(now);
+		assertThat(second).isEqualTo(now);
+	}
+
+	@Test
+	void shouldStartAtCurrentMillisecondOnceLastAllocatedTimeIsPast() {
+		//given
+		UUID authorId = UUID.randomUUID();
+		Clock clock = mock(Clock.class);
+		when(clock.instant()).thenReturn(now, now.plusSeconds(1).plusNanos(1_500_000));
+		CreationTimeAllocator restarting = new CreationTimeAllocator(clock);
+		restarting.allocate(authorId, 3);
+
+		//when
+		Instant next = restarting.allocate(authorId, 1);
+
+		//then
+		assertThat(next).isEqualTo(parse("2021-10-01T10:00:01.001Z"));
+	}
+}
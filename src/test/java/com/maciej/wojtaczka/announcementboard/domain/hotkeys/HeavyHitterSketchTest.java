@@ -0,0 +1,54 @@
+package com.maciej.wojtaczka.announcementboard.domain.hotkeys;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static java.util.stream.Collectors.toList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HeavyHitterSketchTest {
+
+	@Test
+	void shouldReportHeaviestKeysOfSkewedStream() {
+		//given
+		HeavyHitterSketch<Integer> sketch = new HeavyHitterSketch<>(2048, 4, 10);
+		List<Integer> stream = new ArrayList<>();
+		for (int key = 0; key < 5_000; key++) {
+			for (int i = 0; i < 20_000 / (key + 1); i++) {
+				stream.add(key);
+			}
+		}
+		Collections.shuffle(stream, new Random(1));
+
+		//when
+		stream.forEach(key -> sketch.add(key, 1));
+
+		//then
+		List<Integer> top = sketch.top().stream()
+								  .map(HeavyHitterSketch.Entry::getKey)
+								  .collect(toList());
+		assertThat(top).containsExactlyElementsOf(IntStream.range(0, 10).boxed().collect(toList()));
+		assertThat(sketch.estimate(0)).isGreaterThanOrEqualTo(20_000);
+	}
+
+	@Test
+	void shouldHalveCountsOnDecay() {
+		//given
+		HeavyHitterSketch<String> sketch = new HeavyHitterSketch<>(1024, 4, 10);
+		sketch.add("hot", 100);
+		sketch.add("cold", 3);
+
+		//when
+		sketch.decay();
+
+		//then
+		assertThat(sketch.estimate("hot")).isEqualTo(50);
+		assertThat(sketch.estimate("cold")).isEqualTo(1);
+		assertThat(sketch.top()).extracting(HeavyHitterSketch.Entry::getKey).containsExactly("hot", "cold");
+	}
+}
@@ -51,6 +51,25 @@ class UserTest {
 		);
 	}
 
+	@Test
+	void shouldCreateAnnouncementsMillisecondApartWithEventForEach() {
+		//given
+		User announcer = User.builder()
+							 .id(UUID.randomUUID())
+							 .build();
+
+		//when
+		List<Announcement> announcements = announcer.publishAnnouncements(List.of("First", "Second", "Third"), Instant.parse("2021-10-01T10:00:00.000Z"));
+
+		//then
+		assertThat(announcements).extracting(Announcement::getContent).containsExactly("First", "Second", "Third");
+		assertThat(announcements).extracting(Announcement::getCreationTime)
+								 .containsExactly(Instant.parse("2021-10-01T10:00:00.000Z"),
+												  Instant.parse("2021-10-01T10:00:00.001Z"),
+												  Instant.parse("2021-10-01T10:00:00.002Z"));
+		assertThat(announcer.getDomainEvents()).extracting(DomainEvent::getPayload).containsExactlyElementsOf(announcements);
+	}
+
 	@Test
 	void shouldCommentAnnouncement() {
 		//given
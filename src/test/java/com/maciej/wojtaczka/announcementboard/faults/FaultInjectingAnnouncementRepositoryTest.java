@@ -0,0 +1,184 @@
+package com.maciej.wojtaczka.announcementboard.faults;
+
+import com.maciej.wojtaczka.announcementboard.domain.AnnouncementRepository;
+import com.maciej.wojtaczka.announcementboard.domain.model.Announcement;
+import com.maciej.wojtaczka.announcementboard.domain.model.Comment;
+import com.maciej.wojtaczka.announcementboard.domain.query.AnnouncementQuery;
+import com.maciej.wojtaczka.announcementboard.domain.query.CommentCursor;
+import com.maciej.wojtaczka.announcementboard.domain.query.Page;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FaultInjectingAnnouncementRepositoryTest {
+
+	private final UUID stalledAuthor = UUID.randomUUID();
+	private final UUID healthyAuthor = UUID.randomUUID();
+
+	@Test
+	void shouldTimeOutSelectOfStalledPartitionWithoutBlockingCaller() {
+		//given
+		FaultSpec spec = FaultSpec.builder()
+								  .stallLatency(Duration.ofSeconds(10))
+								  .timeout(Duration.ofMillis(50))
+								  .stalledAuthors(Set.of(stalledAuthor))
+								  .build();
+		FaultInjector injector = new FaultInjector("cassandra", spec, new Random(1));
+
+		//when
+		long start = System.nanoTime();
+		CompletableFuture<List<Announcement>> stalled = injector.stallAsync("select", true, CompletableFuture.completedFuture(List.of()));
+		CompletableFuture<List<Announcement>> healthy = injector.stallAsync("select", false, CompletableFuture.completedFuture(List.of()));
+
+		//then
+		assertThat(healthy).isCompletedWithValue(List.of());
+		assertThat(stalled).isNotDone();
+		assertThatThrownBy(stalled::join)
+				.hasCauseInstanceOf(FaultInjectedException.class)
+				.hasMessageContaining("timeout");
+		assertThat(Duration.ofNanos(System.nanoTime() - start)).isBetween(Duration.ofMillis(50), Duration.ofSeconds(5));
+	}
+
+	@Test
+	void shouldDelaySelectOfStalledPartitionByStallLatency() {
+		//given
+		FaultSpec spec = FaultSpec.builder()
+								  .stallLatency(Duration.ofMillis(50))
+								  .timeout(Duration.ofSeconds(5))
+								  .stalledAuthors(Set.of(stalledAuthor))
+								  .build();
+		FaultInjector injector = new FaultInjector("cassandra", spec, new Random(1));
+
+		//when
+		long start = System.nanoTime();
+		List<Announcement> selected = injector.stallAsync("select", true, CompletableFuture.completedFuture(List.<Announcement>of())).join();
+
+		//then
+		assertThat(selected).isEmpty();
+		assertThat(Duration.ofNanos(System.nanoTime() - start)).isBetween(Duration.ofMillis(50), Duration.ofSeconds(5));
+	}
+
+	@Test
+	void shouldLeaveStalledAuthorsOfFetchAllToTheirSelects() {
+		//given
+		FaultSpec spec = FaultSpec.builder()
+								  .stallLatency(Duration.ofSeconds(10))
+								  .timeout(Duration.ofMillis(50))
+								  .stalledAuthors(Set.of(stalledAuthor))
+								  .build();
+		AnnouncementRepository repository = new FaultInjectingAnnouncementRepository(new EmptyRepository(), new FaultInjector("repository", spec, new Random(1)));
+
+		//when
+		List<Announcement> fetched = repository.fetchAll(Map.of(healthyAuthor, List.of(Instant.now()),
+																stalledAuthor, List.of(Instant.now())));
+
+		//then
+		assertThat(fetched).isEmpty();
+	}
+
+	@Test
+	void shouldPassThroughWhenNoneOfAuthorsIsStalled() {
+		//given
+		FaultSpec spec = FaultSpec.builder()
+								  .stallLatency(Duration.ofSeconds(10))
+								  .timeout(Duration.ofMillis(50))
+								  .stalledAuthors(Set.of(stalledAuthor))
+								  .build();
+		AnnouncementRepository repository = new FaultInjectingAnnouncementRepository(new EmptyRepository(), new FaultInjector("repository", spec, new Random(1)));
+
+		//when
+		List<Announcement> fetched = repository.fetchAll(Map.of(healthyAuthor, List.of(Instant.now())));
+
+		//then
+		assertThat(fetched).isEmpty();
+	}
+
+	@Test
+	void shouldFailEveryCallWhenErrorRateIsOne() {
+		//given
+		FaultSpec spec = FaultSpec.builder()
+								  .errorRate(1)
+								  .build();
+		AnnouncementRepository repository = new FaultInjectingAnnouncementRepository(new EmptyRepository(), new FaultInjector("repository", spec, new Random(1)));
+
+		//when
+		//then
+		assertThatThrownBy(() -> repository.fetchOne(healthyAuthor, Instant.now()))
+				.isInstanceOf(FaultInjectedException.class)
+				.hasMessage("Injected error: repository.fetchOne failed");
+	}
+
+	@Test
+	void shouldSpreadLatencyAroundMedian() {
+		//given
+		FaultSpec spec = FaultSpec.builder()
+								  .latency(Duration.ofMillis(10))
+								  .latencySpread(0.5)
+								  .build();
+		FaultInjector injector = new FaultInjector("repository", spec, new Random(1));
+
+		//when
+		long belowMedian = 0;
+		for (int i = 0; i < 10_000; i++) {
+			if (injector.delayNanos(false) < Duration.ofMillis(10).toNanos()) {
+				belowMedian++;
+			}
+		}
+
+		//then
+		assertThat(belowMedian).isBetween(4_500L, 5_500L);
+	}
+
+	private static class EmptyRepository implements AnnouncementRepository {
+
+		@Override
+		public Announcement save(Announcement announcement) {
+			return announcement;
+		}
+
+		@Override
+		public List<Announcement> saveAll(List<Announcement> announcements) {
+			return announcements;
+		}
+
+		@Override
+		public void saveAnnouncementComment(Comment comment) {
+		}
+
+		@Override
+		public List<Announcement> fetchAll(Map<UUID, List<Instant>> authorIdToCreationTimes) {
+			return List.of();
+		}
+
+		@Override
+		public Optional<Announcement> fetchOne(UUID authorId, Instant creationTime) {
+			return Optional.empty();
+		}
+
+		@Override
+		public Page<Announcement> fetchTimeline(UUID authorId, int pageSize, String cursor) {
+			return new Page<>(List.of(), null);
+		}
+
+		@Override
+		public Page<Comment> fetchComments(AnnouncementQuery announcement, int pageSize, CommentCursor after) {
+			return new Page<>(List.of(), null);
+		}
+
+		@Override
+		public Page<Comment> fetchUserComments(UUID userId, int pageSize, String cursor) {
+			return new Page<>(List.of(), null);
+		}
+	}
+}
@@ -0,0 +1,45 @@
+package com.maciej.wojtaczka.announcementboard.messaging;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.maciej.wojtaczka.announcementboard.domain.DomainEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.util.concurrent.SettableListenableFuture;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class KafkaPublisherTest {
+
+	@SuppressWarnings("unchecked")
+	private final KafkaTemplate<String, String> kafkaTemplate = mock(KafkaTemplate.class);
+	private final KafkaPublisher publisher = new KafkaPublisher(kafkaTemplate, new ObjectMapper(), new SimpleMeterRegistry());
+
+	@Test
+	void shouldSendAndFlushAllEventsBeforeReportingFailedOnes() {
+		//given
+		when(kafkaTemplate.send(eq("first"), anyString())).thenThrow(new IllegalStateException("buffer exhausted"));
+		when(kafkaTemplate.send(eq("second"), anyString())).thenReturn(new SettableListenableFuture<>());
+		when(kafkaTemplate.send(eq("third"), anyString())).thenThrow(new IllegalStateException("producer closed"));
+
+		//when
+		Throwable failure = catchThrowable(() -> publisher.publishAll(List.of(new DomainEvent<>("first", "First"),
+																			   new DomainEvent<>("second", "Second"),
+																			   new DomainEvent<>("third", "Third"))));
+
+		//then
+		assertThat(failure).hasMessage("buffer exhausted");
+		assertThat(failure.getSuppressed()).extracting(Throwable::getMessage).containsExactly("producer closed");
+		var sent = inOrder(kafkaTemplate);
+		sent.verify(kafkaTemplate).send("second", "\"Second\"");
+		sent.verify(kafkaTemplate).flush();
+	}
+}
@@ -0,0 +1,177 @@
+package com.maciej.wojtaczka.announcementboard.persistence;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+class AdaptiveConcurrencyLimiterTest {
+
+	@Test
+	void shouldNotHandOutMorePermitsThanLimit() {
+		//given
+		AdaptiveConcurrencyLimiter limiter = AdaptiveConcurrencyLimiter.fixed(2);
+
+		//when
+		boolean first = limiter.tryAcquire();
+		boolean second = limiter.tryAcquire();
+		boolean third = limiter.tryAcquire();
+
+		//then
+		assertThat(first).isTrue();
+		assertThat(second).isTrue();
+		assertThat(third).isFalse();
+		assertThat(limiter.getInFlight()).isEqualTo(2);
+	}
+
+	@Test
+	void shouldGrowWhileLatencyIsStable() {
+		//given
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(4, 1, 10, 2, 0.5);
+
+		//when
+		for (int round = 0; round < 50; round++) {
+			int acquired = 0;
+			while (limiter.tryAcquire()) {
+				acquired++;
+			}
+			for (int i = 0; i < acquired; i++) {
+				limiter.release(0, 10, 1, false);
+			}
+		}
+
+		//then
+		assertThat(limiter.getLimit()).isEqualTo(10);
+	}
+
+	@Test
+	void shouldBackOffWhenLatencyRises() {
+		//given
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 2, 20, 2, 0.5);
+		limiter.tryAcquire();
+		limiter.tryAcquire();
+		limiter.release(0, 10, 1, false);
+
+		//when
+		limiter.release(0, 100, 1, false);
+
+		//then
+		assertThat(limiter.getLimit()).isEqualTo(5);
+	}
+
+	@Test
+	void shouldBackOffOnceForSelectsStartedBeforeLastBackoff() {
+		//given
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 2, 20, 2, 0.5);
+		limiter.tryAcquire();
+		limiter.tryAcquire();
+		limiter.tryAcquire();
+
+		//when
+		limiter.release(0, 100, 1, true);
+		limiter.release(0, 110, 1, true);
+		limiter.release(120, 130, 1, true);
+
+		//then
+		assertThat(limiter.getLimit()).isEqualTo(2);
+	}
+
+	@Test
+	void shouldNotBackOffBelowMinimum() {
+		//given
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(4, 3, 20, 2, 0.5);
+		limiter.tryAcquire();
+
+		//when
+		limiter.release(0, 10, 1, true);
+
+		//then
+		assertThat(limiter.getLimit()).isEqualTo(3);
+	}
+
+	@Test
+	void shouldKeepGrowingWhileSelectsOfDifferentSizesTakeTheirUsualTime() {
+		//given
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(4, 2, 10, 2, 0.5);
+
+		//when
+		for (int round = 0; round < 100; round++) {
+			long startedAt = round * 10_000_000L;
+			int acquired = 0;
+			while (limiter.tryAcquire()) {
+				acquired++;
+			}
+			for (int i = 0; i < acquired; i++) {
+				if (i % 2 == 0) {
+					limiter.release(startedAt, startedAt + 1_000_000, 1, false);
+				} else {
+					limiter.release(startedAt, startedAt + 5_000_000, 64, false);
+				}
+			}
+		}
+
+		//then
+		assertThat(limiter.getLimit()).isEqualTo(10);
+	}
+
+	@Test
+	void shouldNotBackOffBecauseOfSingleFastSelect() {
+		//given
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 2, 20, 2, 0.5);
+		for (int i = 0; i < 5; i++) {
+			limiter.tryAcquire();
+		}
+		limiter.release(0, 10_000_000, 1, false);
+		limiter.release(0, 1_000_000, 1, false);
+
+		//when
+		limiter.release(0, 10_000_000, 1, false);
+		limiter.release(0, 11_000_000, 1, false);
+
+		//then
+		assertThat(limiter.getLimit()).isEqualTo(10);
+	}
+
+	@Test
+	void shouldNotWaitForPermitWhenCallerHoldsOne() {
+		//given
+		AdaptiveConcurrencyLimiter limiter = AdaptiveConcurrencyLimiter.fixed(1);
+		limiter.tryAcquire();
+
+		//when
+		boolean acquired = assertTimeoutPreemptively(Duration.ofSeconds(1), () -> limiter.acquire(1));
+
+		//then
+		assertThat(acquired).isFalse();
+		assertThat(limiter.getInFlight()).isEqualTo(1);
+	}
+
+	@Test
+	void shouldWaitForPermitWhenCallerHoldsNone() throws Exception {
+		//given
+		AdaptiveConcurrencyLimiter limiter = AdaptiveConcurrencyLimiter.fixed(1);
+		limiter.tryAcquire();
+		CompletableFuture<Boolean> waiting = CompletableFuture.supplyAsync(() -> {
+			try {
+				return limiter.acquire(0);
+			} catch (InterruptedException e) {
+				throw new CompletionException(e);
+			}
+		});
+		Thread.sleep(100);
+		boolean acquiredWhileTaken = waiting.isDone();
+
+		//when
+		limiter.release(0, 10, 1, false);
+
+		//then
+		assertThat(acquiredWhileTaken).isFalse();
+		assertThat(waiting.get(1, TimeUnit.SECONDS)).isTrue();
+		assertThat(limiter.getInFlight()).isEqualTo(1);
+	}
+}
@@ -0,0 +1,39 @@
+package com.maciej.wojtaczka.announcementboard.persistence;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.SortedMap;
+
+import static java.time.Instant.parse;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AnnouncementPartitionTest {
+
+	@Test
+	void shouldBucketByUtcMonth() {
+		//when
+		int lastMomentOfSeptember = AnnouncementPartition.monthOf(parse("2021-09-30T23:59:59.999Z"));
+		int firstMomentOfOctober = AnnouncementPartition.monthOf(parse("2021-10-01T00:00:00Z"));
+
+		//then
+		assertThat(lastMomentOfSeptember).isEqualTo(202109);
+		assertThat(firstMomentOfOctober).isEqualTo(202110);
+	}
+
+	@Test
+	void shouldGroupCreationTimesByMonthInOrder() {
+		//given
+		List<Instant> creationTimes = List.of(parse("2021-01-05T10:00:00Z"), parse("2021-01-20T10:00:00Z"),
+											  parse("2020-12-31T10:00:00Z"), parse("2021-03-01T10:00:00Z"));
+
+		//when
+		SortedMap<Integer, List<Instant>> months = AnnouncementPartition.byMonth(creationTimes);
+
+		//then
+		assertThat(months).containsOnlyKeys(202012, 202101, 202103);
+		assertThat(months.firstKey()).isEqualTo(202012);
+		assertThat(months.get(202101)).containsExactly(parse("2021-01-05T10:00:00Z"), parse("2021-01-20T10:00:00Z"));
+	}
+}
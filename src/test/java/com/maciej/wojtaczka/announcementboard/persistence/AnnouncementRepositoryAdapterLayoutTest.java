@@ -0,0 +1,257 @@
+package com.maciej.wojtaczka.announcementboard.persistence;
+
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.cql.Row;
+import com.maciej.wojtaczka.announcementboard.diagnostics.SlowOperationLog;
+import com.maciej.wojtaczka.announcementboard.domain.model.Announcement;
+import com.maciej.wojtaczka.announcementboard.domain.model.Comment;
+import com.maciej.wojtaczka.announcementboard.domain.query.Page;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.opentelemetry.api.trace.TracerProvider;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.cassandra.core.AsyncCassandraTemplate;
+import org.springframework.data.cassandra.core.CassandraTemplate;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static java.time.Instant.parse;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class AnnouncementRepositoryAdapterLayoutTest {
+
+	private static CqlSession session;
+
+	private final UUID authorId = UUID.randomUUID();
+
+	@BeforeAll
+	static void startCassandra() throws IOException, InterruptedException {
+		session = EmbeddedCassandraSession.open();
+	}
+
+	@AfterAll
+	static void closeSession() {
+		session.close();
+	}
+
+	@Test
+	void shouldWriteAnnouncementAndCommentsCountToBothLayoutsInDualWrite() {
+		//given
+		AnnouncementRepositoryAdapter repository = repository(PartitionLayout.DUAL_WRITE);
+		Announcement announcement = announcement(parse("2021-08-15T10:00:00Z"));
+
+		//when
+		repository.save(announcement);
+		repository.saveAnnouncementComment(commentOf(announcement));
+
+		//then
+		assertThat(unbucketedContent(announcement)).contains("Hello");
+		assertThat(bucketedContent(announcement)).contains("Hello");
+		assertThat(unbucketedCommentsCount(announcement)).isEqualTo(1);
+		assertThat(bucketedCommentsCount(announcement)).isEqualTo(1);
+	}
+
+	@Test
+	void shouldWriteOnlyBucketedTablesInBucketed() {
+		//given
+		AnnouncementRepositoryAdapter repository = repository(PartitionLayout.BUCKETED);
+		Announcement announcement = announcement(parse("2021-08-15T10:00:00Z"));
+
+		//when
+		repository.saveAll(List.of(announcement));
+		repository.saveAnnouncementComment(commentOf(announcement));
+
+		//then
+		assertThat(unbucketedContent(announcement)).isEmpty();
+		assertThat(bucketedContent(announcement)).contains("Hello");
+		assertThat(unbucketedCommentsCount(announcement)).isZero();
+		assertThat(bucketedCommentsCount(announcement)).isEqualTo(1);
+	}
+
+	@Test
+	void shouldFetchAnnouncementsOfAuthorFromEveryMonthInBucketed() {
+		//given
+		AnnouncementRepositoryAdapter repository = repository(PartitionLayout.BUCKETED);
+		Announcement june = announcement(parse("2021-06-30T23:59:59.999Z"));
+		Announcement july = announcement(parse("2021-07-01T00:00:00Z"));
+		Announcement september = announcement(parse("2021-09-10T12:00:00Z"));
+		repository.saveAll(List.of(june, july, september));
+		repository.saveAnnouncementComment(commentOf(july));
+
+		//when
+		List<Announcement> fetched = repository.fetchAll(Map.of(authorId, List.of(june.getCreationTime(),
+																				   july.getCreationTime(),
+																				   september.getCreationTime())));
+
+		//then
+		assertThat(fetched).extracting(Announcement::getCreationTime)
+						   .containsExactlyInAnyOrder(june.getCreationTime(), july.getCreationTime(), september.getCreationTime());
+		assertThat(fetched).filteredOn(fetchedAnnouncement -> fetchedAnnouncement.getCreationTime().equals(july.getCreationTime()))
+						   .extracting(Announcement::getCommentsCount)
+						   .containsExactly(1L);
+	}
+
+	@Test
+	void shouldPageTimelineBackOverYearsWithoutAnnouncementsInBucketed() {
+		//given
+		AnnouncementRepositoryAdapter repository = repository(PartitionLayout.BUCKETED);
+		Announcement older = announcement(parse("2015-03-10T12:00:00Z"));
+		Announcement newer = announcement(parse("2021-08-15T10:00:00Z"));
+		repository.save(older);
+		repository.saveAll(List.of(newer));
+
+		//when
+		Page<Announcement> timeline = repository.fetchTimeline(authorId, 10, null);
+
+		//then
+		assertThat(timeline.getItems()).extracting(Announcement::getCreationTime)
+									   .containsExactly(newer.getCreationTime(), older.getCreationTime());
+		assertThat(timeline.getNextCursor()).isNull();
+	}
+
+	@Test
+	void shouldFetchOneAnnouncementFromItsMonthInBucketed() {
+		//given
+		AnnouncementRepositoryAdapter repository = repository(PartitionLayout.BUCKETED);
+		Announcement announcement = announcement(parse("2021-08-15T10:00:00Z"));
+		repository.save(announcement);
+		repository.saveAnnouncementComment(commentOf(announcement));
+		repository.saveAnnouncementComment(commentOf(announcement));
+
+		//when
+		Optional<Announcement> fetched = repository.fetchOne(authorId, announcement.getCreationTime());
+
+		//then
+		assertThat(fetched).hasValueSatisfying(fetchedAnnouncement -> {
+			assertThat(fetchedAnnouncement.getContent()).isEqualTo("Hello");
+			assertThat(fetchedAnnouncement.getCommentsCount()).isEqualTo(2);
+		});
+	}
+
+	@Test
+	void shouldBackfillBucketedTablesAndCatchUpCountersWhenRunAgain() throws InterruptedException {
+		//given
+		AnnouncementRepositoryAdapter unbucketed = repository(PartitionLayout.UNBUCKETED);
+		Announcement announcement = announcement(parse("2021-08-15T10:00:00Z"));
+		unbucketed.save(announcement);
+		unbucketed.saveAnnouncementComment(commentOf(announcement));
+		unbucketed.saveAnnouncementComment(commentOf(announcement));
+		AnnouncementBucketBackfill backfill = new AnnouncementBucketBackfill(session, 16);
+
+		//when
+		backfill.run();
+		repository(PartitionLayout.DUAL_WRITE).saveAnnouncementComment(commentOf(announcement));
+		backfill.run();
+
+		//then
+		assertThat(bucketedContent(announcement)).contains("Hello");
+		assertThat(bucketedCommentsCount(announcement)).isEqualTo(3);
+		assertThat(repository(PartitionLayout.BUCKETED).fetchOne(authorId, announcement.getCreationTime()))
+				.hasValueSatisfying(fetched -> assertThat(fetched.getCommentsCount()).isEqualTo(3));
+	}
+
+	@Test
+	void shouldTimeStatementsOnTablesOfLayout() {
+		//given
+		SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+		AnnouncementRepositoryAdapter repository = repository(PartitionLayout.BUCKETED, meterRegistry);
+		Announcement announcement = announcement(parse("2021-08-15T10:00:00Z"));
+
+		//when
+		repository.save(announcement);
+		repository.saveAnnouncementComment(commentOf(announcement));
+		repository.fetchOne(authorId, announcement.getCreationTime());
+
+		//then
+		assertThat(statementCount(meterRegistry, "announcement_by_month", "insert")).isEqualTo(1);
+		assertThat(statementCount(meterRegistry, "announcement_by_month", "select")).isEqualTo(1);
+		assertThat(statementCount(meterRegistry, "comments_count_by_month", "update")).isEqualTo(1);
+		assertThat(statementCount(meterRegistry, "comments_count_by_month", "select")).isEqualTo(1);
+		assertThat(meterRegistry.find("cassandra.statement").tag("table", "announcement").timer()).isNull();
+		assertThat(meterRegistry.find("cassandra.statement").tag("table", "comments_count").timer()).isNull();
+	}
+
+	private static long statementCount(SimpleMeterRegistry meterRegistry, String table, String operation) {
+		return meterRegistry.get("cassandra.statement")
+							.tag("table", table)
+							.tag("operation", operation)
+							.timer()
+							.count();
+	}
+
+	private static AnnouncementRepositoryAdapter repository(PartitionLayout layout) {
+		return repository(layout, new SimpleMeterRegistry());
+	}
+
+	private static AnnouncementRepositoryAdapter repository(PartitionLayout layout, SimpleMeterRegistry meterRegistry) {
+		return new AnnouncementRepositoryAdapter(session,
+												 new CassandraTemplate(session),
+												 new AsyncCassandraTemplate(session),
+												 layout,
+												 AdaptiveConcurrencyLimiter.fixed(16),
+												 new FetchPlanner(64, 3, 10, Clock.systemUTC()),
+												 CommentCounterSharding.disabled(),
+												 CommentCountWriteBehind.disabled(),
+												 mock(CounterAdjustmentQueue.class),
+												 meterRegistry,
+												 TracerProvider.noop().get("test"),
+												 new SlowOperationLog(Duration.ofSeconds(1), 0));
+	}
+
+	private Announcement announcement(Instant creationTime) {
+		return Announcement.builder()
+						   .authorId(authorId)
+						   .content("Hello")
+						   .creationTime(creationTime)
+						   .build();
+	}
+
+	private static Comment commentOf(Announcement announcement) {
+		return Comment.builder()
+					  .announcementAuthorId(announcement.getAuthorId())
+					  .announcementCreationTime(announcement.getCreationTime())
+					  .authorId(UUID.randomUUID())
+					  .authorNickname("commenter")
+					  .content("Nice")
+					  .creationTime(Instant.now())
+					  .build();
+	}
+
+	private static Optional<String> unbucketedContent(Announcement announcement) {
+		return Optional.ofNullable(session.execute("SELECT content FROM announcement WHERE author_id = ? AND creation_time = ?",
+												   announcement.getAuthorId(), announcement.getCreationTime()).one())
+					   .map(row -> row.getString("content"));
+	}
+
+	private static Optional<String> bucketedContent(Announcement announcement) {
+		return Optional.ofNullable(session.execute("SELECT content FROM announcement_by_month WHERE author_id = ? AND month = ? AND creation_time = ?",
+												   announcement.getAuthorId(),
+												   AnnouncementPartition.monthOf(announcement.getCreationTime()),
+												   announcement.getCreationTime()).one())
+					   .map(row -> row.getString("content"));
+	}
+
+	private static long unbucketedCommentsCount(Announcement announcement) {
+		Row row = session.execute("SELECT comments_count FROM comments_count WHERE announcement_author_id = ? AND announcement_creation_time = ?",
+								  announcement.getAuthorId(), announcement.getCreationTime()).one();
+		return row == null ? 0 : row.getLong("comments_count");
+	}
+
+	private static long bucketedCommentsCount(Announcement announcement) {
+		Row row = session.execute("SELECT comments_count FROM comments_count_by_month "
+										  + "WHERE announcement_author_id = ? AND month = ? AND announcement_creation_time = ?",
+								  announcement.getAuthorId(),
+								  AnnouncementPartition.monthOf(announcement.getCreationTime()),
+								  announcement.getCreationTime()).one();
+		return row == null ? 0 : row.getLong("comments_count");
+	}
+}
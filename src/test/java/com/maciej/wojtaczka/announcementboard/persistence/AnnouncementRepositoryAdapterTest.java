@@ -0,0 +1,239 @@
+package com.maciej.wojtaczka.announcementboard.persistence;
+
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.cql.AsyncResultSet;
+import com.datastax.oss.driver.api.core.cql.BatchStatement;
+import com.datastax.oss.driver.api.core.cql.BoundStatement;
+import com.datastax.oss.driver.api.core.cql.PreparedStatement;
+import com.datastax.oss.driver.api.core.cql.SimpleStatement;
+import com.datastax.oss.driver.api.core.cql.Statement;
+import com.maciej.wojtaczka.announcementboard.diagnostics.SlowOperationLog;
+import com.maciej.wojtaczka.announcementboard.domain.model.Announcement;
+import com.maciej.wojtaczka.announcementboard.domain.model.Comment;
+import com.maciej.wojtaczka.announcementboard.persistence.entity.AnnouncementDbEntity;
+import com.maciej.wojtaczka.announcementboard.persistence.entity.CommentsCountDbEntity;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.opentelemetry.api.trace.TracerProvider;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.cassandra.core.AsyncCassandraOperations;
+import org.springframework.data.cassandra.core.CassandraOperations;
+import org.springframework.util.concurrent.CompletableToListenableFutureAdapter;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.time.Instant.parse;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class AnnouncementRepositoryAdapterTest {
+
+	private static final String INSERT_ANNOUNCEMENT = "INSERT INTO announcement_board.announcement (";
+	private static final String INSERT_COMMENT = "INSERT INTO announcement_board.comment (";
+	private static final String UPDATE_COMMENTS_COUNT = "UPDATE announcement_board.comments_count ";
+
+	private final UUID announcementAuthorId = UUID.randomUUID();
+	private final Instant announcementCreationTime = parse("2021-10-01T10:00:00Z");
+	private final Comment comment = Comment.builder()
+										   .announcementAuthorId(announcementAuthorId)
+										   .announcementCreationTime(announcementCreationTime)
+										   .authorId(UUID.randomUUID())
+										   .authorNickname("commenter")
+										   .content("Nice")
+										   .creationTime(parse("2021-10-01T11:00:00Z"))
+										   .build();
+
+	private final Map<String, List<Integer>> failingExecutions = new ConcurrentHashMap<>();
+	private final Map<String, AtomicInteger> executions = new ConcurrentHashMap<>();
+	private final CounterAdjustmentQueue adjustments = mock(CounterAdjustmentQueue.class);
+	private final AsyncCassandraOperations asyncCassandraOperations = mock(AsyncCassandraOperations.class);
+	private final AnnouncementRepositoryAdapter adapter = newAdapter(AdaptiveConcurrencyLimiter.fixed(100));
+
+	@Test
+	void shouldQueueFailedIncrementOfStoredComment() {
+		//given
+		failingExecutions.put(UPDATE_COMMENTS_COUNT, List.of(1));
+
+		//when
+		adapter.saveAnnouncementComment(comment);
+
+		//then
+		verify(adjustments).enqueue(AnnouncementPartition.unbucketed(announcementAuthorId), announcementCreationTime, OptionalInt.empty(), 1);
+	}
+
+	@Test
+	void shouldTakeBackIncrementAndFailWithInsertErrorWhenCommentIsNotStored() {
+		//given
+		failingExecutions.put(INSERT_COMMENT, List.of(1));
+
+		//when
+		Throwable failure = catchThrowable(() -> adapter.saveAnnouncementComment(comment));
+
+		//then
+		assertThat(failure).hasMessage("failed " + INSERT_COMMENT);
+		assertThat(executions.get(UPDATE_COMMENTS_COUNT)).hasValue(2);
+		verifyNoInteractions(adjustments);
+	}
+
+	@Test
+	void shouldQueueFailedTakeBackAndFailWithInsertError() {
+		//given
+		failingExecutions.put(INSERT_COMMENT, List.of(1));
+		failingExecutions.put(UPDATE_COMMENTS_COUNT, List.of(2));
+
+		//when
+		Throwable failure = catchThrowable(() -> adapter.saveAnnouncementComment(comment));
+
+		//then
+		assertThat(failure).hasMessage("failed " + INSERT_COMMENT);
+		verify(adjustments).enqueue(AnnouncementPartition.unbucketed(announcementAuthorId), announcementCreationTime, OptionalInt.empty(), -1);
+	}
+
+	@Test
+	void shouldReturnAnnouncementsOfSucceededBatchesOnly() {
+		//given
+		Announcement first = announcement(UUID.randomUUID(), "First");
+		Announcement second = announcement(UUID.randomUUID(), "Second");
+		failingExecutions.put(INSERT_ANNOUNCEMENT, List.of(1));
+
+		//when
+		List<Announcement> saved = adapter.saveAll(List.of(first, second));
+
+		//then
+		assertThat(saved).containsExactly(second);
+	}
+
+	@Test
+	void shouldFailWithBatchErrorWhenNoAnnouncementIsStored() {
+		//given
+		failingExecutions.put(INSERT_ANNOUNCEMENT, List.of(1, 2));
+
+		//when
+		Throwable failure = catchThrowable(() -> adapter.saveAll(List.of(announcement(UUID.randomUUID(), "First"),
+																		 announcement(UUID.randomUUID(), "Second"))));
+
+		//then
+		assertThat(failure).hasMessage("failed " + INSERT_ANNOUNCEMENT);
+	}
+
+	@Test
+	void shouldKeepSelectingAnnouncementsOfOtherAuthorsWhileOneIsSlow() {
+		//given
+		AnnouncementRepositoryAdapter limitedAdapter = newAdapter(AdaptiveConcurrencyLimiter.fixed(2));
+		AtomicInteger announcementSelects = new AtomicInteger();
+		CompletableFuture<List<AnnouncementDbEntity>> slowSelect = new CompletableFuture<>();
+		Executor quickSelects = CompletableFuture.delayedExecutor(20, TimeUnit.MILLISECONDS);
+		when(asyncCassandraOperations.select(any(Statement.class), eq(AnnouncementDbEntity.class))).thenAnswer(
+				invocation -> new CompletableToListenableFutureAdapter<>(announcementSelects.incrementAndGet() == 1
+																		? slowSelect
+																		: CompletableFuture.<List<AnnouncementDbEntity>>supplyAsync(List::of, quickSelects)));
+		when(asyncCassandraOperations.select(any(Statement.class), eq(CommentsCountDbEntity.class))).thenAnswer(
+				invocation -> new CompletableToListenableFutureAdapter<>(CompletableFuture.completedFuture(List.of())));
+		Map<UUID, List<Instant>> authorIdToCreationTimes = new LinkedHashMap<>();
+		authorIdToCreationTimes.put(UUID.randomUUID(), List.of(announcementCreationTime));
+		authorIdToCreationTimes.put(UUID.randomUUID(), List.of(announcementCreationTime));
+		authorIdToCreationTimes.put(UUID.randomUUID(), List.of(announcementCreationTime));
+
+		//when
+		CompletableFuture<List<Announcement>> fetched = CompletableFuture.supplyAsync(() -> limitedAdapter.fetchAll(authorIdToCreationTimes));
+
+		//then
+		assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+			while (announcementSelects.get() < 3) {
+				Thread.onSpinWait();
+			}
+		});
+		assertThat(fetched).isNotDone();
+		slowSelect.complete(List.of());
+		assertThat(fetched.join()).isEmpty();
+	}
+
+	private static Announcement announcement(UUID authorId, String content) {
+		return Announcement.builder()
+						   .authorId(authorId)
+						   .content(content)
+						   .creationTime(parse("2021-10-01T10:00:00Z"))
+						   .build();
+	}
+
+	private AnnouncementRepositoryAdapter newAdapter(AdaptiveConcurrencyLimiter selectLimiter) {
+		when(asyncCassandraOperations.execute(any(Statement.class))).thenAnswer(invocation -> {
+			Statement<?> statement = invocation.getArgument(0);
+			BoundStatement bound = statement instanceof BatchStatement
+					? (BoundStatement) ((BatchStatement) statement).iterator().next()
+					: (BoundStatement) statement;
+			String query = bound.getPreparedStatement().getQuery();
+			return new CompletableToListenableFutureAdapter<>(execute(query));
+		});
+		return new AnnouncementRepositoryAdapter(preparingSession(),
+												 mock(CassandraOperations.class),
+												 asyncCassandraOperations,
+												 PartitionLayout.UNBUCKETED,
+												 selectLimiter,
+												 new FetchPlanner(64, 3, 10, Clock.systemUTC()),
+												 CommentCounterSharding.disabled(),
+												 CommentCountWriteBehind.disabled(),
+												 adjustments,
+												 new SimpleMeterRegistry(),
+												 TracerProvider.noop().get("test"),
+												 new SlowOperationLog(Duration.ofSeconds(1), 0));
+	}
+
+	/**
+	 * Counts the executions of the statements of each key from one, a batch by its first statement, and fails those listed
+	 * for the key.
+	 */
+	private CompletableFuture<AsyncResultSet> execute(String query) {
+		for (String key : List.of(INSERT_ANNOUNCEMENT, INSERT_COMMENT, UPDATE_COMMENTS_COUNT)) {
+			if (query.startsWith(key)) {
+				int execution = executions.computeIfAbsent(key, k -> new AtomicInteger()).incrementAndGet();
+				if (failingExecutions.getOrDefault(key, List.of()).contains(execution)) {
+					return CompletableFuture.failedFuture(new IllegalStateException("failed " + key));
+				}
+			}
+		}
+		AsyncResultSet applied = mock(AsyncResultSet.class);
+		when(applied.wasApplied()).thenReturn(true);
+		return CompletableFuture.completedFuture(applied);
+	}
+
+	/**
+	 * A session whose bound statements remember the query they were prepared from.
+	 */
+	static CqlSession preparingSession() {
+		CqlSession session = mock(CqlSession.class);
+		when(session.prepare(any(SimpleStatement.class))).thenAnswer(invocation -> {
+			SimpleStatement statement = invocation.getArgument(0);
+			PreparedStatement prepared = mock(PreparedStatement.class);
+			when(prepared.getQuery()).thenReturn(statement.getQuery());
+			when(prepared.bind(any())).thenAnswer(binding -> {
+				BoundStatement bound = mock(BoundStatement.class);
+				when(bound.getPreparedStatement()).thenReturn(prepared);
+				when(bound.setExecutionProfileName(anyString())).thenReturn(bound);
+				when(bound.setIdempotent(any())).thenReturn(bound);
+				return bound;
+			});
+			return prepared;
+		});
+		return session;
+	}
+}
@@ -0,0 +1,125 @@
+package com.maciej.wojtaczka.announcementboard.persistence;
+
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.cql.AsyncResultSet;
+import com.datastax.oss.driver.api.core.cql.BoundStatement;
+import com.datastax.oss.driver.api.core.cql.PreparedStatement;
+import com.datastax.oss.driver.api.core.cql.SimpleStatement;
+import com.datastax.oss.driver.api.core.cql.Statement;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static java.time.Instant.parse;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CommentCountWriteBehindTest {
+
+	private final AnnouncementPartition partition = AnnouncementPartition.unbucketed(UUID.randomUUID());
+	private final Instant first = parse("2021-10-01T10:00:00Z");
+	private final Instant second = parse("2021-10-02T10:00:00Z");
+
+	private final Map<BoundStatement, Object[]> boundValues = new ConcurrentHashMap<>();
+	private final Map<Instant, Long> written = new ConcurrentHashMap<>();
+	private final AtomicInteger updatesToFail = new AtomicInteger();
+
+	@Test
+	void shouldWriteIncrementsAddedWhileFlushing() throws Exception {
+		//given
+		CommentCountWriteBehind writeBehind = new CommentCountWriteBehind(session(), Duration.ofHours(1), 1000, new SimpleMeterRegistry());
+		AtomicBoolean adding = new AtomicBoolean(true);
+		List<CompletableFuture<Void>> commenters = IntStream.range(0, 4)
+															.mapToObj(commenter -> CompletableFuture.runAsync(() -> {
+																for (int i = 0; i < 10_000; i++) {
+																	writeBehind.add(partition, i % 2 == 0 ? first : second, OptionalInt.empty(), 1);
+																}
+															}))
+															.collect(Collectors.toList());
+		CompletableFuture<Void> allAdded = CompletableFuture.allOf(commenters.toArray(new CompletableFuture[0]))
+															.whenComplete((result, error) -> adding.set(false));
+
+		//when
+		while (adding.get()) {
+			writeBehind.flush();
+		}
+		allAdded.join();
+		writeBehind.close();
+
+		//then
+		assertThat(written).containsEntry(first, 20_000L)
+						   .containsEntry(second, 20_000L);
+	}
+
+	@Test
+	void shouldRetryFailedUpdateWithNextFlush() throws Exception {
+		//given
+		CommentCountWriteBehind writeBehind = new CommentCountWriteBehind(session(), Duration.ofHours(1), 1000, new SimpleMeterRegistry());
+		updatesToFail.set(1);
+		writeBehind.add(partition, first, OptionalInt.empty(), 1);
+		writeBehind.add(partition, first, OptionalInt.empty(), 1);
+		writeBehind.flush();
+		writeBehind.add(partition, first, OptionalInt.empty(), 1);
+
+		//when
+		writeBehind.flush();
+
+		//then
+		assertThat(written).containsOnly(Map.entry(first, 3L));
+		writeBehind.close();
+	}
+
+	@Test
+	void shouldWritePendingIncrementsOnCloseAndLaterOnesStraightAway() throws Exception {
+		//given
+		CommentCountWriteBehind writeBehind = new CommentCountWriteBehind(session(), Duration.ofHours(1), 1000, new SimpleMeterRegistry());
+		writeBehind.add(partition, first, OptionalInt.empty(), 1);
+		writeBehind.add(partition, second, OptionalInt.empty(), -1);
+
+		//when
+		writeBehind.close();
+		writeBehind.add(partition, first, OptionalInt.empty(), 1);
+
+		//then
+		assertThat(written).containsOnly(Map.entry(first, 2L), Map.entry(second, -1L));
+	}
+
+	/**
+	 * Adds the delta of each successful update to {@link #written} under the announcement creation time, which is bound last.
+	 */
+	private CqlSession session() {
+		CqlSession session = mock(CqlSession.class);
+		PreparedStatement prepared = mock(PreparedStatement.class);
+		when(session.prepare(any(SimpleStatement.class))).thenReturn(prepared);
+		when(prepared.bind(any())).thenAnswer(invocation -> {
+			BoundStatement bound = mock(BoundStatement.class);
+			when(bound.setExecutionProfileName(anyString())).thenReturn(bound);
+			boundValues.put(bound, invocation.getArguments());
+			return bound;
+		});
+		when(session.executeAsync(any(Statement.class))).thenAnswer(invocation -> {
+			if (updatesToFail.getAndUpdate(failures -> Math.max(0, failures - 1)) > 0) {
+				return CompletableFuture.failedFuture(new IllegalStateException("write timeout"));
+			}
+			Object[] values = boundValues.get(invocation.<BoundStatement>getArgument(0));
+			written.merge((Instant) values[values.length - 1], (Long) values[0], Long::sum);
+			return CompletableFuture.completedFuture(mock(AsyncResultSet.class));
+		});
+		return session;
+	}
+}
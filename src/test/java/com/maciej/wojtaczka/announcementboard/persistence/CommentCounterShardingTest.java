@@ -0,0 +1,65 @@
+package com.maciej.wojtaczka.announcementboard.persistence;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.OptionalInt;
+import java.util.UUID;
+
+import static java.time.Instant.parse;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CommentCounterShardingTest {
+
+	private static final UUID AUTHOR_ID = UUID.randomUUID();
+	private static final Instant CREATION_TIME = parse("2021-10-01T10:00:00Z");
+
+	@Test
+	void shouldNeverShardWhenDisabled() {
+		//given
+		CommentCounterSharding sharding = CommentCounterSharding.disabled();
+
+		//when
+		OptionalInt shard = sharding.shardFor(AUTHOR_ID, CREATION_TIME, UUID.randomUUID());
+
+		//then
+		assertThat(sharding.isEnabled()).isFalse();
+		assertThat(shard).isEmpty();
+	}
+
+	@Test
+	void shouldShardOnceAnnouncementIsCommentedOften() {
+		//given
+		CommentCounterSharding sharding = new CommentCounterSharding(8, 3, Duration.ofHours(1));
+		UUID commenterId = UUID.randomUUID();
+
+		//when
+		OptionalInt first = sharding.shardFor(AUTHOR_ID, CREATION_TIME, commenterId);
+		OptionalInt second = sharding.shardFor(AUTHOR_ID, CREATION_TIME, commenterId);
+		OptionalInt third = sharding.shardFor(AUTHOR_ID, CREATION_TIME, commenterId);
+		OptionalInt fourth = sharding.shardFor(AUTHOR_ID, CREATION_TIME, commenterId);
+
+		//then
+		assertThat(first).isEmpty();
+		assertThat(second).isEmpty();
+		assertThat(third).isPresent();
+		assertThat(third.getAsInt()).isBetween(0, 7);
+		assertThat(fourth).isEqualTo(third);
+	}
+
+	@Test
+	void shouldNotShardQuietAnnouncementsOfShardedAuthor() {
+		//given
+		CommentCounterSharding sharding = new CommentCounterSharding(8, 3, Duration.ofHours(1));
+		for (int i = 0; i < 10; i++) {
+			sharding.shardFor(AUTHOR_ID, CREATION_TIME, UUID.randomUUID());
+		}
+
+		//when
+		OptionalInt shard = sharding.shardFor(AUTHOR_ID, CREATION_TIME.plusSeconds(1), UUID.randomUUID());
+
+		//then
+		assertThat(shard).isEmpty();
+	}
+}
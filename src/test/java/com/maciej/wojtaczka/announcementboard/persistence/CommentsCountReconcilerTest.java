@@ -0,0 +1,214 @@
+package com.maciej.wojtaczka.announcementboard.persistence;
+
+import com.datastax.oss.driver.api.core.CqlSession;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.time.Instant.parse;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CommentsCountReconcilerTest {
+
+	private static final Instant ANNOUNCEMENT_CREATION_TIME = parse("2021-10-01T10:00:00Z");
+
+	private static CqlSession session;
+
+	@BeforeAll
+	static void startCassandra() throws IOException, InterruptedException {
+		session = EmbeddedCassandraSession.open();
+	}
+
+	@AfterAll
+	static void closeSession() {
+		session.close();
+	}
+
+	@Test
+	void shouldSplitRingIntoEqualRanges() {
+		//when
+		long first = CommentsCountReconciler.nextBoundary(Long.MIN_VALUE, 4);
+		long second = CommentsCountReconciler.nextBoundary(first, 4);
+		long third = CommentsCountReconciler.nextBoundary(second, 4);
+		long last = CommentsCountReconciler.nextBoundary(third, 4);
+
+		//then
+		assertThat(first).isEqualTo(-4611686018427387905L);
+		assertThat(second).isEqualTo(-2L);
+		assertThat(third).isEqualTo(4611686018427387901L);
+		assertThat(last).isEqualTo(Long.MAX_VALUE);
+	}
+
+	@Test
+	void shouldResumeFromCheckpointInsideRange() {
+		//when
+		long boundary = CommentsCountReconciler.nextBoundary(-12345L, 4);
+
+		//then
+		assertThat(boundary).isEqualTo(-2L);
+	}
+
+	@Test
+	void shouldWalkWholeRingInOneRange() {
+		//when
+		long boundary = CommentsCountReconciler.nextBoundary(Long.MIN_VALUE, 1);
+
+		//then
+		assertThat(boundary).isEqualTo(Long.MAX_VALUE);
+	}
+
+	@Test
+	void shouldRepairCommentsCountDriftedFromItsComments() throws Exception {
+		//given
+		UUID authorId = UUID.randomUUID();
+		givenComments(authorId, 3);
+		givenCommentsCount(authorId, 5);
+
+		//when
+		try (CommentsCountReconciler reconciler = reconciler()) {
+			reconciler.runPass();
+		}
+
+		//then
+		assertThat(commentsCountOf(authorId)).isEqualTo(3);
+	}
+
+	@Test
+	void shouldNotRepairCommentsCountThatChangedWhileSettling() throws Exception {
+		//given
+		UUID authorId = UUID.randomUUID();
+		givenComments(authorId, 3);
+		givenCommentsCount(authorId, 5);
+		AtomicInteger settles = new AtomicInteger();
+
+		//when
+		try (CommentsCountReconciler reconciler = new CommentsCountReconciler(session, PartitionLayout.UNBUCKETED, false, 4, 100_000,
+																			  Duration.ofHours(1), Duration.ofHours(1), new SimpleMeterRegistry()) {
+			@Override
+			void awaitSettling(Duration remaining) {
+				settles.incrementAndGet();
+				givenCommentsCount(authorId, 1);
+			}
+		}) {
+			reconciler.runPass();
+		}
+
+		//then
+		assertThat(settles).hasValue(1);
+		assertThat(commentsCountOf(authorId)).isEqualTo(6);
+	}
+
+	@Test
+	void shouldRepairCommentsCountOfAnnouncementWithoutComments() throws Exception {
+		//given
+		UUID authorId = UUID.randomUUID();
+		givenCommentsCount(authorId, 2);
+
+		//when
+		try (CommentsCountReconciler reconciler = reconciler()) {
+			reconciler.runPass();
+		}
+
+		//then
+		assertThat(commentsCountOf(authorId)).isZero();
+	}
+
+	@Test
+	void shouldSettleDriftsOfAllRangesAtOnce() throws Exception {
+		//given
+		UUID firstAuthorId = UUID.randomUUID();
+		UUID secondAuthorId = UUID.randomUUID();
+		givenComments(firstAuthorId, 3);
+		givenCommentsCount(firstAuthorId, 5);
+		givenCommentsCount(secondAuthorId, 2);
+		AtomicInteger settles = new AtomicInteger();
+
+		//when
+		try (CommentsCountReconciler reconciler = new CommentsCountReconciler(session, PartitionLayout.UNBUCKETED, false, 4, 100_000,
+																			  Duration.ofHours(1), Duration.ofHours(1), new SimpleMeterRegistry()) {
+			@Override
+			void awaitSettling(Duration remaining) {
+				settles.incrementAndGet();
+			}
+		}) {
+			reconciler.runPass();
+		}
+
+		//then
+		assertThat(settles).hasValue(1);
+		assertThat(commentsCountOf(firstAuthorId)).isEqualTo(3);
+		assertThat(commentsCountOf(secondAuthorId)).isZero();
+	}
+
+	@Test
+	void shouldResumePassFromCheckpoint() throws Exception {
+		//given
+		UUID firstAuthorId = UUID.randomUUID();
+		UUID secondAuthorId = UUID.randomUUID();
+		givenComments(firstAuthorId, 3);
+		givenComments(secondAuthorId, 3);
+		givenCommentsCount(firstAuthorId, 5);
+		givenCommentsCount(secondAuthorId, 5);
+
+		long firstToken = tokenOf(firstAuthorId);
+		long secondToken = tokenOf(secondAuthorId);
+		UUID walkedAuthorId = firstToken > secondToken ? firstAuthorId : secondAuthorId;
+		UUID skippedAuthorId = firstToken > secondToken ? secondAuthorId : firstAuthorId;
+		session.execute("INSERT INTO announcement_board.reconciliation_checkpoint (job, last_token) VALUES ('comments_count', "
+								+ Math.min(firstToken, secondToken) + ")");
+
+		//when
+		try (CommentsCountReconciler reconciler = reconciler()) {
+			reconciler.runPass();
+		}
+
+		//then
+		assertThat(commentsCountOf(walkedAuthorId)).isEqualTo(3);
+		assertThat(commentsCountOf(skippedAuthorId)).isEqualTo(5);
+		long checkpoint = Objects.requireNonNull(
+				session.execute("SELECT last_token FROM announcement_board.reconciliation_checkpoint WHERE job = 'comments_count'").one())
+								 .getLong("last_token");
+		assertThat(checkpoint).isEqualTo(Long.MIN_VALUE);
+	}
+
+	private static CommentsCountReconciler reconciler() {
+		return new CommentsCountReconciler(session, PartitionLayout.UNBUCKETED, false, 4, 100_000, Duration.ofHours(1), Duration.ZERO,
+										   new SimpleMeterRegistry());
+	}
+
+	private static void givenComments(UUID announcementAuthorId, int count) {
+		for (int i = 0; i < count; i++) {
+			session.execute(String.format("INSERT INTO announcement_board.comment (announcement_author_id, announcement_creation_time, author_id, "
+										  + "author_nickname, creation_time, content) VALUES (%s, %d, %s, 'commenter', %d, 'Nice')",
+										  announcementAuthorId, ANNOUNCEMENT_CREATION_TIME.toEpochMilli(), UUID.randomUUID(),
+										  ANNOUNCEMENT_CREATION_TIME.plusSeconds(i).toEpochMilli()));
+		}
+	}
+
+	private static void givenCommentsCount(UUID announcementAuthorId, long delta) {
+		session.execute(String.format("UPDATE announcement_board.comments_count SET comments_count = comments_count + %d "
+									  + "WHERE announcement_author_id = %s AND announcement_creation_time = %d",
+									  delta, announcementAuthorId, ANNOUNCEMENT_CREATION_TIME.toEpochMilli()));
+	}
+
+	private static long commentsCountOf(UUID announcementAuthorId) {
+		return Objects.requireNonNull(session.execute(String.format(
+				"SELECT comments_count FROM announcement_board.comments_count WHERE announcement_author_id = %s AND announcement_creation_time = %d",
+				announcementAuthorId, ANNOUNCEMENT_CREATION_TIME.toEpochMilli())).one()).getLong(0);
+	}
+
+	private static long tokenOf(UUID announcementAuthorId) {
+		return Objects.requireNonNull(session.execute(String.format(
+				"SELECT token(announcement_author_id, announcement_creation_time) FROM announcement_board.comment "
+				+ "WHERE announcement_author_id = %s AND announcement_creation_time = %d LIMIT 1",
+				announcementAuthorId, ANNOUNCEMENT_CREATION_TIME.toEpochMilli())).one()).getLong(0);
+	}
+}
@@ -0,0 +1,125 @@
+package com.maciej.wojtaczka.announcementboard.persistence;
+
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.cql.AsyncResultSet;
+import com.datastax.oss.driver.api.core.cql.BoundStatement;
+import com.datastax.oss.driver.api.core.cql.PreparedStatement;
+import com.datastax.oss.driver.api.core.cql.SimpleStatement;
+import com.datastax.oss.driver.api.core.cql.Statement;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.OptionalInt;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import static java.time.Instant.parse;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CounterAdjustmentQueueTest {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void shouldKeepQueuedAdjustmentsAcrossRestart() throws Exception {
+		//given
+		Path journal = directory.resolve("counter-adjustments.log");
+		UUID authorId = UUID.randomUUID();
+		try (CounterAdjustmentQueue queue = newQueue(journal)) {
+			queue.enqueue(AnnouncementPartition.unbucketed(authorId), parse("2021-10-01T10:00:00Z"), OptionalInt.empty(), -1);
+			queue.enqueue(AnnouncementPartition.bucketed(authorId, parse("2021-10-01T10:00:00Z")), parse("2021-10-01T10:00:00Z"), OptionalInt.of(3), -1);
+		}
+
+		//when
+		try (CounterAdjustmentQueue restarted = newQueue(journal)) {
+
+			//then
+			assertThat(restarted.pendingCount()).isEqualTo(2);
+		}
+	}
+
+	@Test
+	void shouldSkipAppliedAndUnreadableJournalLines() throws Exception {
+		//given
+		Path journal = directory.resolve("counter-adjustments.log");
+		UUID applied = UUID.randomUUID();
+		UUID pending = UUID.randomUUID();
+		UUID authorId = UUID.randomUUID();
+		Files.write(journal, List.of("+ " + applied + " " + authorId + " - 1633082400000 - -1",
+									 "+ " + pending + " " + authorId + " 202110 1633082400000 3 1",
+									 "- " + applied,
+									 "+ " + UUID.randomUUID() + " " + authorId));
+
+		//when
+		try (CounterAdjustmentQueue queue = newQueue(journal)) {
+
+			//then
+			assertThat(queue.pendingCount()).isEqualTo(1);
+		}
+	}
+
+	@Test
+	void shouldApplyPendingAdjustmentsCompletedOnDriverThreads() throws Exception {
+		//given
+		Path journal = directory.resolve("counter-adjustments.log");
+		CqlSession session = sessionCompletingOnAnotherThread();
+		UUID authorId = UUID.randomUUID();
+		try (CounterAdjustmentQueue queue = new CounterAdjustmentQueue(session, journal, Duration.ofHours(1), new SimpleMeterRegistry())) {
+			queue.enqueue(AnnouncementPartition.unbucketed(authorId), parse("2021-10-01T10:00:00Z"), OptionalInt.empty(), -1);
+			queue.enqueue(AnnouncementPartition.unbucketed(authorId), parse("2021-10-02T10:00:00Z"), OptionalInt.empty(), 1);
+
+			//when
+			assertTimeoutPreemptively(Duration.ofSeconds(5), queue::retryPending);
+
+			//then
+			assertThat(queue.pendingCount()).isZero();
+		}
+		try (CounterAdjustmentQueue restarted = newQueue(journal)) {
+			assertThat(restarted.pendingCount()).isZero();
+		}
+	}
+
+	@Test
+	void shouldFailToStartWhenJournalIsNotWritable() {
+		//given
+		Path journal = directory.resolve("missing").resolve("counter-adjustments.log");
+
+		//when
+		Throwable failure = catchThrowable(() -> newQueue(journal));
+
+		//then
+		assertThat(failure).isInstanceOf(IOException.class);
+	}
+
+	private static CqlSession sessionCompletingOnAnotherThread() {
+		CqlSession session = mock(CqlSession.class);
+		PreparedStatement prepared = mock(PreparedStatement.class);
+		BoundStatement bound = mock(BoundStatement.class);
+		when(session.prepare(any(SimpleStatement.class))).thenReturn(prepared);
+		when(prepared.bind(any())).thenReturn(bound);
+		when(bound.setExecutionProfileName(anyString())).thenReturn(bound);
+		Executor driverThread = CompletableFuture.delayedExecutor(50, TimeUnit.MILLISECONDS);
+		when(session.executeAsync(any(Statement.class)))
+				.thenAnswer(invocation -> CompletableFuture.supplyAsync(() -> mock(AsyncResultSet.class), driverThread));
+		return session;
+	}
+
+	private static CounterAdjustmentQueue newQueue(Path journal) throws Exception {
+		return new CounterAdjustmentQueue(mock(CqlSession.class), journal, Duration.ofHours(1), new SimpleMeterRegistry());
+	}
+}
@@ -0,0 +1,38 @@
+package com.maciej.wojtaczka.announcementboard.persistence;
+
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.config.DefaultDriverOption;
+import com.datastax.oss.driver.api.core.config.DriverConfigLoader;
+import org.cassandraunit.CQLDataLoader;
+import org.cassandraunit.dataset.cql.ClassPathCQLDataSet;
+import org.cassandraunit.utils.EmbeddedCassandraServerHelper;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+
+/**
+ * Opens sessions to the embedded Cassandra with the schema loaded and the execution profiles the statements name.
+ */
+class EmbeddedCassandraSession {
+
+	static CqlSession open() throws IOException, InterruptedException {
+		EmbeddedCassandraServerHelper.startEmbeddedCassandra();
+		new CQLDataLoader(EmbeddedCassandraServerHelper.getSession()).load(new ClassPathCQLDataSet("schema.cql"));
+
+		return CqlSession.builder()
+						 .addContactPoint(new InetSocketAddress(EmbeddedCassandraServerHelper.getHost(),
+																EmbeddedCassandraServerHelper.getNativeTransportPort()))
+						 .withLocalDatacenter("datacenter1")
+						 .withKeyspace("announcement_board")
+						 .withConfigLoader(DriverConfigLoader.programmaticBuilder()
+															 .startProfile(BoundStatements.READ_PROFILE)
+															 .withDuration(DefaultDriverOption.REQUEST_TIMEOUT, Duration.ofSeconds(5))
+															 .endProfile()
+															 .startProfile(BoundStatements.WRITE_PROFILE)
+															 .withDuration(DefaultDriverOption.REQUEST_TIMEOUT, Duration.ofSeconds(5))
+															 .endProfile()
+															 .build())
+						 .build();
+	}
+}
@@ -0,0 +1,68 @@
+package com.maciej.wojtaczka.announcementboard.persistence;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static java.time.Instant.parse;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FetchPlannerTest {
+
+	private static final Instant NOW = parse("2021-10-01T00:00:00Z");
+
+	private final FetchPlanner planner = new FetchPlanner(64, 3, 10, Clock.fixed(NOW, ZoneOffset.UTC));
+
+	@Test
+	void shouldLookUpFewOldAnnouncementsExactly() {
+		//given
+		List<Instant> creationTimes = List.of(parse("2020-09-01T10:00:00Z"), parse("2020-10-01T10:00:00Z"));
+
+		//when
+		FetchPlanner.Strategy strategy = planner.plan(creationTimes);
+
+		//then
+		assertThat(strategy).isEqualTo(FetchPlanner.Strategy.EXACT);
+	}
+
+	@Test
+	void shouldScanRangeOfDenselyRequestedOldAnnouncements() {
+		//given
+		List<Instant> creationTimes = List.of(parse("2020-10-01T10:00:00Z"), parse("2020-10-01T11:00:00Z"),
+											  parse("2020-10-01T12:00:00Z"), parse("2020-10-01T13:00:00Z"));
+
+		//when
+		FetchPlanner.Strategy strategy = planner.plan(creationTimes);
+
+		//then
+		assertThat(strategy).isEqualTo(FetchPlanner.Strategy.RANGE);
+	}
+
+	@Test
+	void shouldScanTailWhenNewestRequestedAnnouncementIsRecent() {
+		//given
+		List<Instant> creationTimes = List.of(parse("2021-09-30T22:00:00Z"), parse("2021-09-30T23:59:00Z"));
+
+		//when
+		FetchPlanner.Strategy strategy = planner.plan(creationTimes);
+
+		//then
+		assertThat(strategy).isEqualTo(FetchPlanner.Strategy.TAIL);
+	}
+
+	@Test
+	void shouldNotUseInWithMoreKeysThanAllowed() {
+		//given
+		FetchPlanner smallInPlanner = new FetchPlanner(1, 3, 10, Clock.fixed(NOW, ZoneOffset.UTC));
+		List<Instant> creationTimes = List.of(parse("2020-09-01T10:00:00Z"), parse("2020-10-01T10:00:00Z"));
+
+		//when
+		FetchPlanner.Strategy strategy = smallInPlanner.plan(creationTimes);
+
+		//then
+		assertThat(strategy).isEqualTo(FetchPlanner.Strategy.RANGE);
+	}
+}
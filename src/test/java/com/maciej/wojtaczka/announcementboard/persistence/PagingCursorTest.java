@@ -0,0 +1,47 @@
+package com.maciej.wojtaczka.announcementboard.persistence;
+
+import com.maciej.wojtaczka.announcementboard.domain.exception.AnnouncementException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+class PagingCursorTest {
+
+	@Test
+	void shouldDecodeEncodedCursor() {
+		//given
+		PagingCursor cursor = new PagingCursor(202110, ByteBuffer.wrap(new byte[] { 1, -2, 3 }));
+
+		//when
+		PagingCursor decoded = PagingCursor.decode(cursor.encode());
+
+		//then
+		assertThat(decoded).isEqualTo(cursor);
+	}
+
+	@Test
+	void shouldDecodeCursorWithoutMonthOrPagingState() {
+		//given
+		PagingCursor cursor = PagingCursor.start(null);
+
+		//when
+		PagingCursor decoded = PagingCursor.decode(cursor.encode());
+
+		//then
+		assertThat(decoded).isEqualTo(cursor);
+	}
+
+	@Test
+	void shouldRejectMalformedCursor() {
+		//when
+		Throwable withoutSeparator = catchThrowable(() -> PagingCursor.decode("not a cursor"));
+		Throwable withMalformedMonth = catchThrowable(() -> PagingCursor.decode("2021x.AQID"));
+
+		//then
+		assertThat(withoutSeparator).isInstanceOf(AnnouncementException.class);
+		assertThat(withMalformedMonth).isInstanceOf(AnnouncementException.class);
+	}
+}
@@ -0,0 +1,66 @@
+package com.maciej.wojtaczka.announcementboard.persistence;
+
+import com.datastax.oss.driver.api.core.config.DriverExecutionProfile;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.OptionalLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SpeculativeDelayTrackerTest {
+
+	private final SpeculativeDelayTracker tracker = new SpeculativeDelayTracker(99, 10, Duration.ZERO);
+
+	@Test
+	void shouldHaveNoDelayBeforeAnyExecution() {
+		//when
+		OptionalLong delay = tracker.delayNanos("read");
+
+		//then
+		assertThat(delay).isEmpty();
+	}
+
+	@Test
+	void shouldDelayByPercentileOfProfileLatencies() {
+		//given
+		DriverExecutionProfile read = profile("read");
+		for (long millis = 1; millis <= 100; millis++) {
+			tracker.onNodeSuccess(null, Duration.ofMillis(millis).toNanos(), read, null, "");
+		}
+
+		//when
+		OptionalLong delay = tracker.delayNanos("read");
+
+		//then
+		assertThat(delay).isPresent();
+		assertThat(delay.getAsLong()).isCloseTo(Duration.ofMillis(99).toNanos(), within(Duration.ofMillis(2).toNanos()));
+		assertThat(tracker.delayNanos("write")).isEmpty();
+	}
+
+	@Test
+	void shouldKeepPreviousDelayWhenIntervalHasTooFewExecutions() {
+		//given
+		DriverExecutionProfile read = profile("read");
+		for (int i = 0; i < 10; i++) {
+			tracker.onNodeSuccess(null, Duration.ofMillis(10).toNanos(), read, null, "");
+		}
+		long previousDelay = tracker.delayNanos("read").orElseThrow();
+		tracker.onNodeSuccess(null, Duration.ofSeconds(1).toNanos(), read, null, "");
+
+		//when
+		OptionalLong delay = tracker.delayNanos("read");
+
+		//then
+		assertThat(delay).hasValue(previousDelay);
+	}
+
+	private static DriverExecutionProfile profile(String name) {
+		DriverExecutionProfile profile = mock(DriverExecutionProfile.class);
+		when(profile.getName()).thenReturn(name);
+		return profile;
+	}
+}
@@ -5,9 +5,12 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.maciej.wojtaczka.announcementboard.cache.AnnouncementRedisCache;
 import com.maciej.wojtaczka.announcementboard.cache.entry.AnnouncementEntry;
+import com.maciej.wojtaczka.announcementboard.domain.AnnouncementBoardService;
 import com.maciej.wojtaczka.announcementboard.domain.AnnouncementRepository;
 import com.maciej.wojtaczka.announcementboard.domain.model.Announcement;
 import com.maciej.wojtaczka.announcementboard.domain.query.AnnouncementQuery;
+import com.maciej.wojtaczka.announcementboard.persistence.entity.CommentByAuthorDbEntity;
+import com.maciej.wojtaczka.announcementboard.rest.dto.CommentData;
 import com.maciej.wojtaczka.announcementboard.util.UserFixtures;
 import lombok.SneakyThrows;
 import org.cassandraunit.CQLDataLoader;
@@ -21,12 +24,16 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.data.cassandra.core.CassandraOperations;
 import org.springframework.test.context.web.WebAppConfiguration;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.ResultActions;
 
 import java.io.IOException;
 import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -34,19 +41,29 @@ import java.util.UUID;
 import java.util.stream.Stream;
 
 import static com.maciej.wojtaczka.announcementboard.rest.AnnouncementBoardController.ANNOUNCEMENTS_FETCH_URL;
+import static com.maciej.wojtaczka.announcementboard.rest.AnnouncementBoardController.ANNOUNCEMENTS_URL;
+import static com.maciej.wojtaczka.announcementboard.rest.AnnouncementBoardController.USERS_URL;
 import static com.maciej.wojtaczka.announcementboard.util.UserFixtures.GivenUser.FIRST;
 import static com.maciej.wojtaczka.announcementboard.util.UserFixtures.GivenUser.SECOND;
 import static com.maciej.wojtaczka.announcementboard.util.UserFixtures.GivenUser.THIRD;
 import static java.time.Instant.parse;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
-@SpringBootTest
+@SpringBootTest(properties = "announcement-board.hot-keys.hot-announcement-threshold=1")
 @WebAppConfiguration
 @AutoConfigureMockMvc
 class AnnouncementBoardControllerQueryTest {
@@ -73,6 +90,12 @@ class AnnouncementBoardControllerQueryTest {
 	@Autowired
 	private AnnouncementRedisCache cache;
 
+	@Autowired
+	private CassandraOperations cassandraOperations;
+
+	@Autowired
+	private AnnouncementBoardService announcementBoardService;
+
 	@Captor
 	private ArgumentCaptor<Map<UUID, List<Instant>>> announcementRepoArgCaptor;
 
@@ -215,6 +238,190 @@ class AnnouncementBoardControllerQueryTest {
 		assertThat(isCached(announcementsFromUser2.get(1))).isTrue();
 	}
 
+	@Test
+	void shouldPageAuthorTimelineNewestFirst() throws Exception {
+		//given
+		UserFixtures.GivenUser user =
+				$.givenUser()
+				 .publishedAnnouncement().withContent("Hello 1").atTime(parse("2007-12-03T10:15:30.00Z"))
+				 .andAnnouncement().withContent("Hello 2").atTime(parse("2007-12-04T10:15:30.00Z"))
+				 .thatHasBeenCommented()
+				 .andTheGivenUser()
+				 .publishedAnnouncement().withContent("Hello 3").atTime(parse("2007-12-05T10:15:30.00Z"))
+				 .andThisUser()
+				 .exists();
+
+		//when
+		String firstPage = mockMvc.perform(get(ANNOUNCEMENTS_URL + "/" + user.getUserId())
+												   .param("pageSize", "2")
+												   .accept(APPLICATION_JSON))
+								  .andExpect(status().isOk())
+								  .andExpect(jsonPath("$.items", hasSize(2)))
+								  .andExpect(jsonPath("$.items[0].content").value("Hello 3"))
+								  .andExpect(jsonPath("$.items[1].content").value("Hello 2"))
+								  .andExpect(jsonPath("$.items[1].commentsCount").value(1))
+								  .andExpect(jsonPath("$.nextCursor", notNullValue()))
+								  .andReturn()
+								  .getResponse().getContentAsString();
+		String cursor = objectMapper.readTree(firstPage).get("nextCursor").asText();
+
+		//then
+		mockMvc.perform(get(ANNOUNCEMENTS_URL + "/" + user.getUserId())
+								.param("pageSize", "2")
+								.param("cursor", cursor)
+								.accept(APPLICATION_JSON))
+			   .andExpect(status().isOk())
+			   .andExpect(jsonPath("$.items", hasSize(1)))
+			   .andExpect(jsonPath("$.items[0].content").value("Hello 1"))
+			   .andExpect(jsonPath("$.nextCursor", nullValue()));
+	}
+
+	@Test
+	void shouldPageCommentsOldestFirst() throws Exception {
+		//given
+		UserFixtures.GivenUser user =
+				$.givenUser()
+				 .publishedAnnouncement().withContent("Hello").atTime(parse("2007-12-03T10:15:30.00Z"))
+				 .thatHasBeenCommented().atTime(parse("2007-12-03T10:17:30.00Z")).withContent("Comment 2")
+				 .andAlsoCommented().atTime(parse("2007-12-03T10:16:30.00Z")).withContent("Comment 1")
+				 .andAlsoCommented().atTime(parse("2007-12-03T10:18:30.00Z")).withContent("Comment 3")
+				 .andTheGivenUser()
+				 .exists();
+		String commentsUrl = ANNOUNCEMENTS_URL + "/" + user.getUserId() + "/" + parse("2007-12-03T10:15:30.00Z").toEpochMilli() + "/comments";
+
+		//when
+		String firstPage = mockMvc.perform(get(commentsUrl)
+												   .param("pageSize", "2")
+												   .accept(APPLICATION_JSON))
+								  .andExpect(status().isOk())
+								  .andExpect(jsonPath("$.items", hasSize(2)))
+								  .andExpect(jsonPath("$.items[0].content").value("Comment 1"))
+								  .andExpect(jsonPath("$.items[1].content").value("Comment 2"))
+								  .andExpect(jsonPath("$.nextCursor", notNullValue()))
+								  .andReturn()
+								  .getResponse().getContentAsString();
+		String cursor = objectMapper.readTree(firstPage).get("nextCursor").asText();
+
+		//then
+		mockMvc.perform(get(commentsUrl)
+								.param("pageSize", "2")
+								.param("cursor", cursor)
+								.accept(APPLICATION_JSON))
+			   .andExpect(status().isOk())
+			   .andExpect(jsonPath("$.items", hasSize(1)))
+			   .andExpect(jsonPath("$.items[0].content").value("Comment 3"))
+			   .andExpect(jsonPath("$.nextCursor", nullValue()));
+	}
+
+	@Test
+	void shouldNotCacheFirstCommentsPageFetchedBeforeNewComment() throws Exception {
+		//given
+		Instant announcementCreationTime = parse("2007-12-04T10:15:30.00Z");
+		UserFixtures.GivenUser announcer = $.givenUser()
+											.publishedAnnouncement().withContent("Hello").atTime(announcementCreationTime)
+											.andThisUser()
+											.exists();
+		UserFixtures.GivenUser commenter = $.givenUser()
+											.exists();
+		placeComment(announcer.getUserId(), announcementCreationTime, commenter.getUserId(), "Comment 1");
+		String commentsUrl = ANNOUNCEMENTS_URL + "/" + announcer.getUserId() + "/" + announcementCreationTime.toEpochMilli() + "/comments";
+		doAnswer(invocation -> {
+			Object fetched = invocation.callRealMethod();
+			announcementBoardService.placeComment(commenter.getUserId(), "Comment 2", announcer.getUserId(), announcementCreationTime);
+			return fetched;
+		}).doCallRealMethod().when(announcementRepository).fetchComments(any(), anyInt(), isNull());
+
+		//when
+		mockMvc.perform(get(commentsUrl)
+								.accept(APPLICATION_JSON))
+			   .andExpect(status().isOk())
+			   .andExpect(jsonPath("$.items", hasSize(1)));
+
+		//then
+		mockMvc.perform(get(commentsUrl)
+								.accept(APPLICATION_JSON))
+			   .andExpect(status().isOk())
+			   .andExpect(jsonPath("$.items", hasSize(2)))
+			   .andExpect(jsonPath("$.items[1].content").value("Comment 2"));
+		mockMvc.perform(get(commentsUrl)
+								.accept(APPLICATION_JSON))
+			   .andExpect(status().isOk())
+			   .andExpect(jsonPath("$.items", hasSize(2)));
+		verify(announcementRepository, times(2)).fetchComments(any(), anyInt(), isNull());
+	}
+
+	@Test
+	void shouldPageUserCommentsNewestFirstAcrossMonths() throws Exception {
+		//given
+		Instant announcementCreationTime = parse("2007-12-03T10:15:30.00Z");
+		UserFixtures.GivenUser announcer = $.givenUser()
+											.publishedAnnouncement().withContent("Hello").atTime(announcementCreationTime)
+											.andThisUser()
+											.exists();
+		UserFixtures.GivenUser commenter = $.givenUser()
+											.exists();
+		givenCommentByAuthor(commenter.getUserId(), Instant.now().truncatedTo(ChronoUnit.MILLIS).minus(40, ChronoUnit.DAYS), "Comment 1");
+		placeComment(announcer.getUserId(), announcementCreationTime, commenter.getUserId(), "Comment 2");
+		placeComment(announcer.getUserId(), announcementCreationTime, commenter.getUserId(), "Comment 3");
+		String commentsUrl = USERS_URL + "/" + commenter.getUserId() + "/comments";
+
+		//when
+		String firstPage = mockMvc.perform(get(commentsUrl)
+												   .param("pageSize", "2")
+												   .accept(APPLICATION_JSON))
+								  .andExpect(status().isOk())
+								  .andExpect(jsonPath("$.items", hasSize(2)))
+								  .andExpect(jsonPath("$.items[0].content").value("Comment 3"))
+								  .andExpect(jsonPath("$.items[0].announcementAuthorId").value(announcer.getUserId().toString()))
+								  .andExpect(jsonPath("$.items[0].authorNickname").value(commenter.getUserNickName()))
+								  .andExpect(jsonPath("$.items[1].content").value("Comment 2"))
+								  .andExpect(jsonPath("$.nextCursor", notNullValue()))
+								  .andReturn()
+								  .getResponse().getContentAsString();
+		String cursor = objectMapper.readTree(firstPage).get("nextCursor").asText();
+
+		//then
+		mockMvc.perform(get(commentsUrl)
+								.param("pageSize", "2")
+								.param("cursor", cursor)
+								.accept(APPLICATION_JSON))
+			   .andExpect(status().isOk())
+			   .andExpect(jsonPath("$.items", hasSize(1)))
+			   .andExpect(jsonPath("$.items[0].content").value("Comment 1"))
+			   .andExpect(jsonPath("$.nextCursor", nullValue()));
+	}
+
+	/**
+	 * Comments placed through the API are created now, so an older month can only be seeded, together with its month.
+	 */
+	private void givenCommentByAuthor(UUID authorId, Instant creationTime, String content) {
+		ZonedDateTime utc = creationTime.atZone(ZoneOffset.UTC);
+		int month = utc.getYear() * 100 + utc.getMonthValue();
+		cassandraOperations.getCqlOperations().execute(String.format(
+				"INSERT INTO announcement_board.month_by_author (author_id, listing, month) VALUES (%s, 'comment_by_author', %d)", authorId, month));
+		cassandraOperations.insert(CommentByAuthorDbEntity.builder()
+														  .authorId(authorId)
+														  .month(month)
+														  .creationTime(creationTime)
+														  .announcementAuthorId(UUID.randomUUID())
+														  .announcementCreationTime(creationTime.minus(1, ChronoUnit.HOURS))
+														  .authorNickname("commenter")
+														  .content(content)
+														  .build());
+	}
+
+	private void placeComment(UUID announcementAuthorId, Instant announcementCreationTime, UUID commenterId, String content) throws Exception {
+		CommentData commentData = CommentData.builder()
+											 .authorId(commenterId)
+											 .content(content)
+											 .build();
+		mockMvc.perform(post(ANNOUNCEMENTS_URL + "/" + announcementAuthorId + "/" + announcementCreationTime.toEpochMilli())
+								.content(asJsonString(commentData))
+								.contentType(APPLICATION_JSON)
+								.accept(APPLICATION_JSON))
+			   .andExpect(status().isOk());
+	}
+
 	private boolean isCached(Announcement announcement) {
 		return cache.existsById(AnnouncementEntry.createId(announcement.getAuthorId(), announcement.getCreationTime()));
 	}
@@ -40,11 +40,13 @@ import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 
+import static com.maciej.wojtaczka.announcementboard.rest.AnnouncementBoardController.ANNOUNCEMENTS_BULK_URL;
 import static com.maciej.wojtaczka.announcementboard.rest.AnnouncementBoardController.ANNOUNCEMENTS_URL;
 import static java.time.Instant.parse;
 import static java.time.temporal.ChronoUnit.MILLIS;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.junit.jupiter.api.Assertions.assertAll;
 import static org.springframework.http.MediaType.APPLICATION_JSON;
@@ -139,6 +141,116 @@ class AnnouncementBoardControllerTest {
 		assertThat(kafkaTestListener.noMoreMessagesOnTopic(User.DomainEvents.ANNOUNCEMENT_PUBLISHED, 50)).isTrue();
 	}
 
+	@Test
+	void shouldCreateAnnouncementsInBulkAndEmitEvents() throws Exception {
+		//given
+		UUID firstAnnouncerId = UUID.randomUUID();
+		UUID secondAnnouncerId = UUID.randomUUID();
+		$.givenUser().withId(firstAnnouncerId).exists();
+		$.givenUser().withId(secondAnnouncerId).exists();
+
+		List<AnnouncementData> requestBody = List.of(
+				AnnouncementData.builder().author(firstAnnouncerId).content("First 1").build(),
+				AnnouncementData.builder().author(secondAnnouncerId).content("Second 1").build(),
+				AnnouncementData.builder().author(firstAnnouncerId).content("First 2").build());
+
+		//when
+		ResultActions result = mockMvc.perform(post(ANNOUNCEMENTS_BULK_URL)
+													   .content(asJsonString(requestBody))
+													   .contentType(APPLICATION_JSON)
+													   .accept(APPLICATION_JSON));
+
+		//then
+		//verify response
+		String jsonAnnouncements = result.andExpect(status().isCreated())
+										 .andExpect(jsonPath("$", hasSize(3)))
+										 .andExpect(jsonPath("$[0].content", equalTo("First 1")))
+										 .andExpect(jsonPath("$[1].content", equalTo("Second 1")))
+										 .andExpect(jsonPath("$[2].content", equalTo("First 2")))
+										 .andReturn().getResponse().getContentAsString();
+
+		//verify persistence
+		List<AnnouncementDbEntity> firstAnnouncerRows = cassandraOperations.select(
+				String.format("select * from announcement_board.announcement where author_id = %s", firstAnnouncerId),
+				AnnouncementDbEntity.class);
+		List<AnnouncementDbEntity> secondAnnouncerRows = cassandraOperations.select(
+				String.format("select * from announcement_board.announcement where author_id = %s", secondAnnouncerId),
+				AnnouncementDbEntity.class);
+
+		assertThat(firstAnnouncerRows).extracting(AnnouncementDbEntity::getContent).containsExactly("First 1", "First 2");
+		assertThat(secondAnnouncerRows).extracting(AnnouncementDbEntity::getContent).containsExactly("Second 1");
+
+		//verify publishing events
+		List<Announcement> announcements = objectMapper.readValue(jsonAnnouncements, new TypeReference<>() {
+		});
+		List<Announcement> publishedAnnouncements = new ArrayList<>();
+		for (String capturedEvent : kafkaTestListener.receiveContentsFromTopic(User.DomainEvents.ANNOUNCEMENT_PUBLISHED, 3)) {
+			publishedAnnouncements.add(objectMapper.readValue(capturedEvent, Announcement.class));
+		}
+		assertThat(publishedAnnouncements).containsExactlyInAnyOrderElementsOf(announcements);
+		assertThat(kafkaTestListener.noMoreMessagesOnTopic(User.DomainEvents.ANNOUNCEMENT_PUBLISHED, 50)).isTrue();
+	}
+
+	@Test
+	void shouldStoreAllAnnouncementsOfOverlappingBulkPublishesOfSameAuthor() {
+		//given
+		UUID announcerId = UUID.randomUUID();
+		$.givenUser().withId(announcerId).exists();
+
+		List<AnnouncementData> requestBody = List.of(
+				AnnouncementData.builder().author(announcerId).content("First").build(),
+				AnnouncementData.builder().author(announcerId).content("Second").build());
+		List<CompletableFuture<Void>> jobs = new ArrayList<>();
+
+		//when
+		for (int i = 0; i < 2; i++) {
+			jobs.add(CompletableFuture.runAsync(() -> {
+				try {
+					mockMvc.perform(post(ANNOUNCEMENTS_BULK_URL)
+											.content(asJsonString(requestBody))
+											.contentType(APPLICATION_JSON)
+											.accept(APPLICATION_JSON))
+						   .andExpect(status().isCreated());
+				} catch (Exception e) {
+					throw new IllegalStateException(e);
+				}
+			}));
+		}
+
+		//then
+		CompletableFuture.allOf(jobs.toArray(new CompletableFuture[0])).join();
+		List<AnnouncementDbEntity> rows = cassandraOperations.select(
+				String.format("select * from announcement_board.announcement where author_id = %s", announcerId),
+				AnnouncementDbEntity.class);
+		assertThat(rows).hasSize(4);
+		assertThat(kafkaTestListener.receiveContentsFromTopic(User.DomainEvents.ANNOUNCEMENT_PUBLISHED, 4)).hasSize(4);
+	}
+
+	@Test
+	void shouldRejectBulkPublishWithAnnouncementWithoutAuthor() throws Exception {
+		//given
+		UUID announcerId = UUID.randomUUID();
+		$.givenUser().withId(announcerId).exists();
+
+		List<AnnouncementData> requestBody = List.of(
+				AnnouncementData.builder().author(announcerId).content("First").build(),
+				AnnouncementData.builder().content("Anonymous").build());
+
+		//when
+		ResultActions result = mockMvc.perform(post(ANNOUNCEMENTS_BULK_URL)
+													   .content(asJsonString(requestBody))
+													   .contentType(APPLICATION_JSON)
+													   .accept(APPLICATION_JSON));
+
+		//then
+		result.andExpect(status().isBadRequest());
+		List<AnnouncementDbEntity> rows = cassandraOperations.select(
+				String.format("select * from announcement_board.announcement where author_id = %s", announcerId),
+				AnnouncementDbEntity.class);
+		assertThat(rows).isEmpty();
+		assertThat(kafkaTestListener.noMoreMessagesOnTopic(User.DomainEvents.ANNOUNCEMENT_PUBLISHED, 50)).isTrue();
+	}
+
 	@Test
 	void shouldPlaceCommentUnderAnnouncement() throws Exception {
 		//given
@@ -0,0 +1,42 @@
+package com.maciej.wojtaczka.announcementboard.rest.capture;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CaptureFileTest {
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	void shouldReadCapturedRequestsInOrder() throws Exception {
+		//given
+		Path capture = tempDir.resolve("capture.bin");
+		byte[] fetchBody = "[{\"authorId\":\"ab91aac7-e4a3-4801-950b-7b4dc3405313\",\"creationTime\":\"2007-12-03T10:15:30Z\"}]"
+				.getBytes(StandardCharsets.UTF_8);
+		byte[] commentBody = "{\"authorId\":\"ab91aac7-e4a3-4801-950b-7b4dc3405313\",\"content\":\"Nice\"}"
+				.getBytes(StandardCharsets.UTF_8);
+
+		//when
+		try (CaptureFile.Writer writer = CaptureFile.openForWriting(capture)) {
+			writer.write(new CapturedRequest(0, "/v1/announcements/fetch", fetchBody));
+			writer.write(new CapturedRequest(1500, "/v1/announcements/ab91aac7-e4a3-4801-950b-7b4dc3405313/1196676930000", commentBody));
+		}
+		List<CapturedRequest> captured = CaptureFile.readAll(capture);
+
+		//then
+		assertThat(captured).hasSize(2);
+		assertThat(captured.get(0).getOffsetMicros()).isEqualTo(0);
+		assertThat(captured.get(0).getUri()).isEqualTo("/v1/announcements/fetch");
+		assertThat(captured.get(0).getBody()).isEqualTo(fetchBody);
+		assertThat(captured.get(1).getOffsetMicros()).isEqualTo(1500);
+		assertThat(captured.get(1).getUri()).isEqualTo("/v1/announcements/ab91aac7-e4a3-4801-950b-7b4dc3405313/1196676930000");
+		assertThat(captured.get(1).getBody()).isEqualTo(commentBody);
+	}
+}
@@ -0,0 +1,55 @@
+package com.maciej.wojtaczka.announcementboard.tracing;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RequestTracingFilterTest {
+
+	private final UUID id = UUID.randomUUID();
+
+	@Test
+	void shouldNameCommandEndpoints() {
+		//when
+		String publish = RequestTracingFilter.endpointOf("POST", "/v1/announcements");
+		String bulk = RequestTracingFilter.endpointOf("POST", "/v1/announcements/bulk");
+		String fetch = RequestTracingFilter.endpointOf("POST", "/v1/announcements/fetch");
+		String comment = RequestTracingFilter.endpointOf("POST", "/v1/announcements/" + id + "/1633082400000");
+
+		//then
+		assertThat(publish).isEqualTo("/v1/announcements");
+		assertThat(bulk).isEqualTo("/v1/announcements/bulk");
+		assertThat(fetch).isEqualTo("/v1/announcements/fetch");
+		assertThat(comment).isEqualTo("/v1/announcements/{announcementAuthorId}/{announcementCreationTimeMillis}");
+	}
+
+	@Test
+	void shouldNamePageEndpoints() {
+		//when
+		String timeline = RequestTracingFilter.endpointOf("GET", "/v1/announcements/" + id);
+		String comments = RequestTracingFilter.endpointOf("GET", "/v1/announcements/" + id + "/1633082400000/comments");
+		String userComments = RequestTracingFilter.endpointOf("GET", "/v1/users/" + id + "/comments");
+
+		//then
+		assertThat(timeline).isEqualTo("/v1/announcements/{authorId}");
+		assertThat(comments).isEqualTo("/v1/announcements/{announcementAuthorId}/{announcementCreationTimeMillis}/comments");
+		assertThat(userComments).isEqualTo("/v1/users/{userId}/comments");
+	}
+
+	@Test
+	void shouldNotTraceOtherRequests() {
+		//when
+		String health = RequestTracingFilter.endpointOf("GET", "/actuator/health");
+		String announcement = RequestTracingFilter.endpointOf("GET", "/v1/announcements/" + id + "/1633082400000");
+		String postUserComments = RequestTracingFilter.endpointOf("POST", "/v1/users/" + id + "/comments");
+		String delete = RequestTracingFilter.endpointOf("DELETE", "/v1/announcements/" + id);
+
+		//then
+		assertThat(health).isNull();
+		assertThat(announcement).isNull();
+		assertThat(postUserComments).isNull();
+		assertThat(delete).isNull();
+	}
+}
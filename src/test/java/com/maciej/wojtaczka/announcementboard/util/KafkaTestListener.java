@@ -14,8 +14,10 @@ import org.springframework.kafka.test.utils.ContainerTestUtils;
 import org.springframework.kafka.test.utils.KafkaTestUtils;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
@@ -85,6 +87,21 @@ public class KafkaTestListener implements DisposableBean {
 		return Optional.of(firstMessage.value());
 	}
 
+	@SneakyThrows
+	public List<String> receiveContentsFromTopic(String topic, int count) {
+		long deadline = System.currentTimeMillis() + 2000;
+		ConcurrentLinkedQueue<ConsumerRecord<String, String>> records = recordsPerTopic.get(topic);
+		while (records.size() < count && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		List<String> contents = new ArrayList<>();
+		ConsumerRecord<String, String> record;
+		while (contents.size() < count && (record = records.poll()) != null) {
+			contents.add(record.value());
+		}
+		return contents;
+	}
+
 	@SneakyThrows
 	public boolean noMoreMessagesOnTopic(String topic, long awaitTimeMillis) {
 		Thread.sleep(awaitTimeMillis);
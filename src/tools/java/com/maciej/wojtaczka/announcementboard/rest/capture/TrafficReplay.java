@@ -0,0 +1,132 @@
+package com.maciej.wojtaczka.announcementboard.rest.capture;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import static com.maciej.wojtaczka.announcementboard.rest.AnnouncementBoardController.ANNOUNCEMENTS_BULK_URL;
+import static com.maciej.wojtaczka.announcementboard.rest.AnnouncementBoardController.ANNOUNCEMENTS_FETCH_URL;
+import static com.maciej.wojtaczka.announcementboard.rest.AnnouncementBoardController.ANNOUNCEMENTS_URL;
+
+/**
+ * Plays a capture written by {@link TrafficCaptureFilter} back against a running instance, keeping the captured pacing
+ * divided by {@code speed}, and prints latency distributions per endpoint.
+ * Latency is measured from the moment a request was due, so a slow instance cannot hide behind a delayed send.
+ * <pre>
+ * ./mvnw test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test \
+ *     -Dexec.args="-classpath %classpath com.maciej.wojtaczka.announcementboard.rest.capture.TrafficReplay capture.bin http://localhost:8080 10"
+ * </pre>
+ */
+public class TrafficReplay {
+
+	private final URI baseUri;
+	private final double speed;
+	private final HttpClient client = HttpClient.newBuilder()
+												.connectTimeout(Duration.ofSeconds(5))
+												.build();
+	private final Map<String, EndpointReport> reports = new TreeMap<>();
+
+	public TrafficReplay(URI baseUri, double speed) {
+		this.baseUri = baseUri;
+		this.speed = speed;
+	}
+
+	public static void main(String[] args) throws Exception {
+		if (args.length < 2) {
+			System.err.println("Usage: TrafficReplay <capture file> <base url> [speed, default 1]");
+			System.exit(1);
+		}
+		List<CapturedRequest> captured = CaptureFile.readAll(Path.of(args[0]));
+		double speed = args.length > 2 ? Double.parseDouble(args[2]) : 1;
+
+		new TrafficReplay(URI.create(args[1]), speed).replay(captured)
+													 .forEach((endpoint, report) -> System.out.println(report.summary(endpoint)));
+	}
+
+	public Map<String, EndpointReport> replay(List<CapturedRequest> captured) {
+		if (captured.isEmpty()) {
+			return reports;
+		}
+		long firstOffsetMicros = captured.get(0).getOffsetMicros();
+		long startNanos = System.nanoTime();
+		List<CompletableFuture<?>> inFlight = new ArrayList<>(captured.size());
+
+		for (CapturedRequest request : captured) {
+			long dueNanos = startNanos + (long) (TimeUnit.MICROSECONDS.toNanos(request.getOffsetMicros() - firstOffsetMicros) / speed);
+			for (long now = System.nanoTime(); now < dueNanos; now = System.nanoTime()) {
+				LockSupport.parkNanos(dueNanos - now);
+			}
+
+			EndpointReport report = reports.computeIfAbsent(endpointOf(request.getUri()), endpoint -> new EndpointReport());
+			HttpRequest httpRequest = HttpRequest.newBuilder(baseUri.resolve(request.getUri()))
+												 .header("Content-Type", "application/json")
+												 .header("Accept", "application/json")
+												 .POST(HttpRequest.BodyPublishers.ofByteArray(request.getBody()))
+												 .build();
+
+			inFlight.add(client.sendAsync(httpRequest, HttpResponse.BodyHandlers.discarding())
+							   .whenComplete((response, error) -> report.record(dueNanos, error == null && response.statusCode() < 400)));
+		}
+
+		CompletableFuture.allOf(inFlight.toArray(new CompletableFuture[0]))
+						 .exceptionally(error -> null)
+						 .join();
+		return reports;
+	}
+
+	private static String endpointOf(String uri) {
+		if (uri.equals(ANNOUNCEMENTS_FETCH_URL)) {
+			return "fetch";
+		}
+		if (uri.equals(ANNOUNCEMENTS_BULK_URL)) {
+			return "bulk";
+		}
+		if (uri.equals(ANNOUNCEMENTS_URL)) {
+			return "publish";
+		}
+		return "comment";
+	}
+
+	public static class EndpointReport {
+
+		private final Histogram latencyMicros = new ConcurrentHistogram(3);
+		private final LongAdder errors = new LongAdder();
+
+		void record(long dueNanos, boolean succeeded) {
+			latencyMicros.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - dueNanos));
+			if (!succeeded) {
+				errors.increment();
+			}
+		}
+
+		String summary(String endpoint) {
+			return String.format("%-8s count=%d errors=%d p50=%.2fms p90=%.2fms p99=%.2fms p999=%.2fms max=%.2fms",
+								 endpoint,
+								 latencyMicros.getTotalCount(),
+								 errors.sum(),
+								 millis(latencyMicros.getValueAtPercentile(50)),
+								 millis(latencyMicros.getValueAtPercentile(90)),
+								 millis(latencyMicros.getValueAtPercentile(99)),
+								 millis(latencyMicros.getValueAtPercentile(99.9)),
+								 millis(latencyMicros.getMaxValue()));
+		}
+
+		private static double millis(long micros) {
+			return micros / 1000.0;
+		}
+	}
+}